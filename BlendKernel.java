@@ -0,0 +1,115 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import java.nio.IntBuffer;
+
+/*
+ * Cross-Dissolve of the Warped Start and End Images.
+ *
+ * Works on packed RGB pixels with integer weights out of 256. The red and blue
+ * channels are blended together in one multiply and green in another, since each
+ * channel times a weight of at most 256 fits in its own 16 bits.
+ */
+public class BlendKernel {
+
+    private static final int RED_BLUE = 0x00FF00FF;
+    private static final int GREEN = 0x0000FF00;
+
+    /*
+     * Blends the Start and End Frames for a Point in the Morph.
+     * The weights match drawing the start frame onto black with an alpha of
+     * 1 - t and then the end frame over it with an alpha of t.
+     *
+     * @param   start           The warped start pixels
+     * @param   end             The warped end pixels
+     * @param   out             The pixels to hold the blend
+     * @param   frameCount      The current frame count
+     * @param   totalFrames     The total number of frames
+     */
+    public static void blend(int start[], int end[], int out[], int frameCount, int totalFrames) {
+        int endWeight = endWeight(frameCount, totalFrames);
+        int startWeight = Math.min(startWeight(frameCount, totalFrames), 256 - endWeight);
+
+        RenderEvents.Blend event = new RenderEvents.Blend();
+        event.start();
+        blend(start, end, out, 0, out.length, startWeight, endWeight);
+        event.finish(frameCount, 0, out.length, 0);
+    }
+
+    /*
+     * Blends the Start and End Frames Read Straight from Their Buffers.
+     *
+     * @param   start           The warped start pixels
+     * @param   end             The warped end pixels
+     * @param   out             The pixels to hold the blend
+     * @param   frameCount      The current frame count
+     * @param   totalFrames     The total number of frames
+     */
+    public static void blend(IntBuffer start, IntBuffer end, int out[], int frameCount, int totalFrames) {
+        if (start.hasArray() && end.hasArray() && start.arrayOffset() == 0 && end.arrayOffset() == 0) {
+            blend(start.array(), end.array(), out, frameCount, totalFrames);
+            return;
+        }
+
+        int endWeight = endWeight(frameCount, totalFrames);
+        int startWeight = Math.min(startWeight(frameCount, totalFrames), 256 - endWeight);
+
+        RenderEvents.Blend event = new RenderEvents.Blend();
+        event.start();
+        for (int i = 0; i < out.length; i++) {
+            out[i] = blendPixel(start.get(i), end.get(i), startWeight, endWeight);
+        }
+        event.finish(frameCount, 0, out.length, 0);
+    }
+
+    /*
+     * Blends a Run of Pixels with the Given Weights.
+     *
+     * @param   start           The warped start pixels
+     * @param   end             The warped end pixels
+     * @param   out             The pixels to hold the blend
+     * @param   from            The first pixel index
+     * @param   to              The pixel index to stop before
+     * @param   startWeight     The start weight out of 256
+     * @param   endWeight       The end weight out of 256, with the two summing to at most 256
+     */
+    public static void blend(int start[], int end[], int out[], int from, int to, int startWeight, int endWeight) {
+        for (int i = from; i < to; i++) {
+            out[i] = blendPixel(start[i], end[i], startWeight, endWeight);
+        }
+    }
+
+    /*
+     * Blends a Single Pair of Packed Pixels.
+     *
+     * @return      The blended pixel
+     */
+    public static int blendPixel(int s, int e, int startWeight, int endWeight) {
+        int rb = ((s & RED_BLUE) * startWeight + (e & RED_BLUE) * endWeight + 0x00800080) >>> 8;
+        int g = ((s & GREEN) * startWeight + (e & GREEN) * endWeight + 0x00008000) >>> 8;
+        return (rb & RED_BLUE) | (g & GREEN);
+    }
+
+    /*
+     * Finds the Start Weight, (1 - t) squared, out of 256.
+     */
+    public static int startWeight(int frameCount, int totalFrames) {
+        double t = (double) frameCount / totalFrames;
+        return (int) Math.round((1 - t) * (1 - t) * 256);
+    }
+
+    /*
+     * Finds the End Weight, t, out of 256.
+     */
+    public static int endWeight(int frameCount, int totalFrames) {
+        double t = (double) frameCount / totalFrames;
+        return (int) Math.round(t * 256);
+    }
+}
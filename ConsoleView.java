@@ -39,6 +39,9 @@ public class ConsoleView extends JPanel {
     private JButton resetPreviewButton;
     private JButton generateMorphButton;
 
+    // Progress of the Morph Being Generated
+    private JLabel statusLabel;
+
     /*
      * Constructor for the Console View.
      *
@@ -54,6 +57,10 @@ public class ConsoleView extends JPanel {
         buildButtons(controller);
         buildComponents(controller);
         buildPreview(controller);
+
+        statusLabel = new JLabel(" ");
+        statusLabel.setPreferredSize(new Dimension(1200, 20));
+        add(statusLabel);
     }
 
     /*
@@ -309,6 +316,17 @@ public class ConsoleView extends JPanel {
         resetPreviewButton.setEnabled(true);
     }
 
+    /*
+     * Shows a Status Message Below the Controls.
+     * The label is painted at once, so it updates while the event thread renders.
+     *
+     * @param   text        The message
+     */
+    public void showStatus(String text) {
+        statusLabel.setText(text);
+        statusLabel.paintImmediately(0, 0, statusLabel.getWidth(), statusLabel.getHeight());
+    }
+
     /*
      * Updates the Frame Slider Label.
      *
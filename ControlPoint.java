@@ -101,8 +101,15 @@ public class ControlPoint {
         xBoxCoordinates[3] = (int)(xCenterCoordinate - (CONTROL_POINT_WIDTH / 2));
         yBoxCoordinates[3] = (int)(yCenterCoordinate + (CONTROL_POINT_WIDTH / 2));
 
-        // Create the Control Point Square
-        square = new Polygon(xBoxCoordinates, yBoxCoordinates, xBoxCoordinates.length);
+        // Create the Control Point Square, or Update it in Place Once Created
+        if (square == null) {
+            square = new Polygon(xBoxCoordinates, yBoxCoordinates, xBoxCoordinates.length);
+        }
+        else {
+            System.arraycopy(xBoxCoordinates, 0, square.xpoints, 0, xBoxCoordinates.length);
+            System.arraycopy(yBoxCoordinates, 0, square.ypoints, 0, yBoxCoordinates.length);
+            square.invalidate();
+        }
     }
 
     /*
@@ -152,6 +159,15 @@ public class ControlPoint {
         color = c;
     }
 
+    /*
+     * Retrieves the Color of the Control Point.
+     *
+     * @return      The Color of the Control Point
+     */
+    public Color getColor() {
+        return color;
+    }
+
     /*
      * Retrieves the X Position of the Control Point in the Grid.
      *
@@ -0,0 +1,205 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+
+/*
+ * Moves Control Points in Response to the Mouse on the Start and End Image Views.
+ *
+ * Dragging a control point moves it within its neighbourhood and highlights its
+ * partner in the other view. After a group move is started, the first drag draws
+ * a box selecting control points and the next drag moves them together.
+ *
+ * The editor only needs the two image views, so edit sessions can be replayed
+ * against it without a window.
+ */
+public class ControlPointEditor implements MouseListener, MouseMotionListener {
+
+    // Color Constant
+    private static final Color SELECTED_COLOR = Color.ORANGE;
+
+    private final ImageView startImageView, endImageView;
+
+    // Called When a Group Move Ends or its Box Selected Nothing
+    private final Runnable groupMoveEnded;
+
+    // Control Point Movement Variables
+    private boolean isDragging = false;
+    private ControlPoint curControlPoint;
+    private ControlPoint correspondingControlPoint;
+    private boolean controlPointsEnabled = true;
+
+    // Group Move Variables
+    private boolean inGroupBox = false;
+    private boolean inGroupMove = false;
+    private Point groupMoveBoxStart;
+    private Point groupMoveLastPoint;
+    private ControlPoint containedControlPoints[];
+
+    /*
+     * Constructor for the Control Point Editor.
+     *
+     * @param   startImageView      The start image view
+     * @param   endImageView        The end image view
+     * @param   groupMoveEnded      Called when a group move ends
+     */
+    public ControlPointEditor(ImageView startImageView, ImageView endImageView, Runnable groupMoveEnded) {
+        this.startImageView = startImageView;
+        this.endImageView = endImageView;
+        this.groupMoveEnded = groupMoveEnded;
+    }
+
+    /*
+     * Enables or Disables Moving Single Control Points.
+     *
+     * @param   isEnabled       Whether or not control points can be moved
+     */
+    public void setControlPointsEnabled(boolean isEnabled) {
+        controlPointsEnabled = isEnabled;
+    }
+
+    /*
+     * Starts a Group Move Sequence; the Next Drag Selects the Control Points.
+     */
+    public void startGroupMove() {
+        inGroupBox = true;
+        containedControlPoints = null;
+    }
+
+    /*
+     * Checks if a Drag Now Would Draw the Group Move Box.
+     */
+    public boolean isSelectingGroup() {
+        return inGroupBox;
+    }
+
+    /*
+     * Checks if a Drag Now Would Move the Selected Group.
+     */
+    public boolean isMovingGroup() {
+        return inGroupMove;
+    }
+
+    public void mouseExited(MouseEvent e){}
+    public void mouseEntered(MouseEvent e){}
+    public void mouseReleased(MouseEvent e){
+
+        // Return Moved Points to the Cached Grid Overlay
+        startImageView.clearActiveControlPoints();
+        endImageView.clearActiveControlPoints();
+
+        if (controlPointsEnabled) {
+            isDragging = false;
+            curControlPoint = null;
+        }
+        if (inGroupMove) {
+            inGroupMove = false;
+            startImageView.deleteGroupMoveBox();
+            endImageView.deleteGroupMoveBox();
+            groupMoveEnded.run();
+        }
+        if (inGroupBox) {
+            // A Click Without a Drag Selects Nothing Too
+            if (containedControlPoints == null || containedControlPoints[0] == null) {
+                inGroupMove = false;
+                groupMoveEnded.run();
+            }
+            inGroupBox = false;
+            startImageView.eraseGroupMoveBox();
+            endImageView.eraseGroupMoveBox();
+        }
+    }
+    public void mousePressed(MouseEvent e){
+
+        ImageView curImageView = startImageView;
+        ImageView correspondingImageView = endImageView;
+
+        if (e.getSource() == endImageView) {
+            curImageView = endImageView;
+            correspondingImageView = startImageView;
+        }
+
+        if (curImageView.getGroupMoveBox() != null && curImageView.getGroupMoveBox().contains(e.getPoint())) {
+            inGroupMove = true;
+        }
+
+        if (inGroupBox) {
+            groupMoveBoxStart = e.getPoint();
+        }
+        else if (inGroupMove) {
+            groupMoveLastPoint = e.getPoint();
+            curImageView.setActiveControlPoints(containedControlPoints);
+        }
+        else if (controlPointsEnabled) {
+
+            // Check if User Clicked On a Control Point
+            ControlPoint tempControlPoint = curImageView.whichControlPoint(e.getPoint());
+            if (tempControlPoint != null) {
+
+                // Reset Selected Control Points If New Point Pair Selected
+                if (!(tempControlPoint == curControlPoint || tempControlPoint == correspondingControlPoint)) {
+                    curImageView.resetControlPointsColor();
+                    correspondingImageView.resetControlPointsColor();
+                }
+                curControlPoint = tempControlPoint;
+
+                // Set Selected Control Point Pair Color
+                correspondingControlPoint = correspondingImageView.getControlPoint(curControlPoint.getX(), curControlPoint.getY());
+                curControlPoint.changeColor(SELECTED_COLOR);
+                correspondingControlPoint.changeColor(SELECTED_COLOR);
+                curImageView.setActiveControlPoints(new ControlPoint[] {curControlPoint});
+                correspondingImageView.invalidateGridOverlay();
+                correspondingImageView.repaint();
+
+                isDragging = true;
+            }
+        }
+    }
+    public void mouseClicked(MouseEvent e){}
+
+    public void mouseDragged(MouseEvent e) {
+
+        ImageView sourceImageView = (ImageView) e.getSource();
+        ImageView correspondingImageView = startImageView;
+
+        if (sourceImageView == startImageView) {
+            correspondingImageView = endImageView;
+        }
+
+        if (inGroupBox) {
+            sourceImageView.drawGroupMoveBox(groupMoveBoxStart, e.getPoint());
+
+            containedControlPoints = sourceImageView.selectControlPointsInBox();
+            correspondingImageView.colorGroupControlPoints(containedControlPoints);
+
+        }
+        else if (inGroupMove) {
+
+            boolean moved = sourceImageView.moveControlPoints(containedControlPoints, (e.getX() - groupMoveLastPoint.getX()), (e.getY() - groupMoveLastPoint.getY()));
+
+            if (moved) {
+                groupMoveLastPoint = e.getPoint();
+            }
+        }
+        else if (controlPointsEnabled && isDragging) {
+
+            Point constrainedPoint = sourceImageView.constrainPoint(curControlPoint, e.getPoint());
+
+            // Out of Bounds Leaves the Point Where it Last Was
+            if (constrainedPoint != null) {
+                sourceImageView.moveControlPoint(curControlPoint, constrainedPoint.getX(), constrainedPoint.getY());
+            }
+        }
+    }
+    public void mouseMoved(MouseEvent e) {}
+}
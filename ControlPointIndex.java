@@ -0,0 +1,243 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import java.awt.*;
+import java.util.Arrays;
+
+/*
+ * Uniform Grid Index Over the Control Point Locations.
+ *
+ * The image is split into square cells and every movable control point is kept in
+ * the bucket of the cell its center lies in. Each bucket is an intrusive doubly
+ * linked list of point ids, so moving a point is a constant time unlink and relink.
+ */
+public class ControlPointIndex {
+
+    // Cell Size in Pixels
+    private static final int CELL_SIZE = 16;
+
+    // Marker for an Empty Link
+    private static final int NONE = -1;
+
+    private int cellsAcross;
+    private int gridHeight;
+
+    // Bucket Heads and Point Links
+    private int cellHead[];
+    private int nextPoint[];
+    private int previousPoint[];
+    private int pointCell[];
+
+    private ControlPoint points[];
+
+    /*
+     * Constructor for the Control Point Index.
+     *
+     * @param   imageWidth      The width of the image the points live on
+     * @param   maxColumns      The maximum number of control point columns
+     * @param   maxRows         The maximum number of control point rows
+     */
+    public ControlPointIndex(int imageWidth, int maxColumns, int maxRows) {
+
+        cellsAcross = (imageWidth / CELL_SIZE) + 1;
+        gridHeight = maxRows + 2;
+
+        int pointCount = (maxColumns + 2) * gridHeight;
+
+        cellHead = new int[cellsAcross * cellsAcross];
+        nextPoint = new int[pointCount];
+        previousPoint = new int[pointCount];
+        pointCell = new int[pointCount];
+        points = new ControlPoint[pointCount];
+
+        clear();
+    }
+
+    /*
+     * Removes Every Control Point from the Index.
+     */
+    public void clear() {
+        Arrays.fill(cellHead, NONE);
+        Arrays.fill(pointCell, NONE);
+        Arrays.fill(points, null);
+    }
+
+    /*
+     * Rebuilds the Index from the Movable Control Points.
+     *
+     * @param   controlPoints   The control point grid
+     * @param   columns         The number of control point columns
+     * @param   rows            The number of control point rows
+     */
+    public void rebuild(ControlPoint controlPoints[][], int columns, int rows) {
+        clear();
+
+        for (int xi = 1; xi < (columns + 1); xi++) {
+            for (int yi = 1; yi < (rows + 1); yi++) {
+                insert(controlPoints[xi][yi]);
+            }
+        }
+    }
+
+    /*
+     * Moves a Control Point to the Bucket Matching its Current Location.
+     * Must be called after the control point coordinates change.
+     *
+     * @param   controlPoint    The control point that moved
+     */
+    public void update(ControlPoint controlPoint) {
+        int id = idOf(controlPoint);
+        int cell = cellOf(controlPoint.getXCoordinate(), controlPoint.getYCoordinate());
+
+        points[id] = controlPoint;
+        if (pointCell[id] == cell) {
+            return;
+        }
+
+        unlink(id);
+        link(id, cell);
+    }
+
+    /*
+     * Finds the Control Point whose Square Contains the Point.
+     *
+     * @param   p       The point to look up
+     * @return          The control point, or null if none is hit
+     */
+    public ControlPoint pointAt(Point p) {
+
+        // Squares Reach at Most One Cell Past Their Center Cell
+        int minCellX = clampCell((int) p.getX() / CELL_SIZE - 1);
+        int maxCellX = clampCell((int) p.getX() / CELL_SIZE + 1);
+        int minCellY = clampCell((int) p.getY() / CELL_SIZE - 1);
+        int maxCellY = clampCell((int) p.getY() / CELL_SIZE + 1);
+
+        for (int cx = minCellX; cx <= maxCellX; cx++) {
+            for (int cy = minCellY; cy <= maxCellY; cy++) {
+                for (int id = cellHead[(cy * cellsAcross) + cx]; id != NONE; id = nextPoint[id]) {
+                    if (points[id].getControlPointSquare().contains(p)) {
+                        return points[id];
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /*
+     * Collects the Control Points Whose Centers Lie in the Shape.
+     *
+     * @param   shape       The selection shape
+     * @param   result      The array to fill, terminated by null if not full
+     * @return              The number of control points found
+     */
+    public int pointsIn(Shape shape, ControlPoint result[]) {
+
+        Rectangle bounds = shape.getBounds();
+
+        int minCellX = clampCell(bounds.x / CELL_SIZE);
+        int maxCellX = clampCell((bounds.x + bounds.width) / CELL_SIZE);
+        int minCellY = clampCell(bounds.y / CELL_SIZE);
+        int maxCellY = clampCell((bounds.y + bounds.height) / CELL_SIZE);
+
+        int count = 0;
+        for (int cx = minCellX; cx <= maxCellX; cx++) {
+            for (int cy = minCellY; cy <= maxCellY; cy++) {
+                for (int id = cellHead[(cy * cellsAcross) + cx]; id != NONE; id = nextPoint[id]) {
+                    if (count < result.length && shape.contains(points[id].getXCoordinate(), points[id].getYCoordinate())) {
+                        result[count] = points[id];
+                        count++;
+                    }
+                }
+            }
+        }
+
+        if (count < result.length) {
+            result[count] = null;
+        }
+
+        return count;
+    }
+
+    /*
+     * Adds a Control Point to the Index.
+     *
+     * @param   controlPoint    The control point to add
+     */
+    private void insert(ControlPoint controlPoint) {
+        int id = idOf(controlPoint);
+        points[id] = controlPoint;
+        link(id, cellOf(controlPoint.getXCoordinate(), controlPoint.getYCoordinate()));
+    }
+
+    /*
+     * Links a Point Id at the Head of a Cell Bucket.
+     */
+    private void link(int id, int cell) {
+        previousPoint[id] = NONE;
+        nextPoint[id] = cellHead[cell];
+        if (cellHead[cell] != NONE) {
+            previousPoint[cellHead[cell]] = id;
+        }
+        cellHead[cell] = id;
+        pointCell[id] = cell;
+    }
+
+    /*
+     * Unlinks a Point Id from its Current Cell Bucket.
+     */
+    private void unlink(int id) {
+        int cell = pointCell[id];
+        if (cell == NONE) {
+            return;
+        }
+
+        if (previousPoint[id] != NONE) {
+            nextPoint[previousPoint[id]] = nextPoint[id];
+        }
+        else {
+            cellHead[cell] = nextPoint[id];
+        }
+        if (nextPoint[id] != NONE) {
+            previousPoint[nextPoint[id]] = previousPoint[id];
+        }
+        pointCell[id] = NONE;
+    }
+
+    /*
+     * Retrieves the Index Id of a Control Point.
+     */
+    private int idOf(ControlPoint controlPoint) {
+        return (controlPoint.getX() * gridHeight) + controlPoint.getY();
+    }
+
+    /*
+     * Retrieves the Cell a Coordinate Falls In.
+     */
+    private int cellOf(double x, double y) {
+        int cx = clampCell((int) x / CELL_SIZE);
+        int cy = clampCell((int) y / CELL_SIZE);
+        return (cy * cellsAcross) + cx;
+    }
+
+    /*
+     * Clamps a Cell Coordinate to the Grid.
+     */
+    private int clampCell(int c) {
+        if (c < 0) {
+            return 0;
+        }
+        if (c >= cellsAcross) {
+            return cellsAcross - 1;
+        }
+        return c;
+    }
+}
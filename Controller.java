@@ -56,15 +56,17 @@ public class Controller
                 // Set Frame
                 if (time % (1000 / frames) == 0) {
                     frameCount++;
+                    long renderStart = System.nanoTime();
 
                     if (isMorphRunning) {
                         //view.setFrame(frameCount, frames * seconds, isMorphRunning);
-                        view.showMorphFrame(frameCount, frames * seconds);
+                        // Timed by the View Once the Frame Arrives
+                        view.showNextMorphFrame();
                         //view.setFrame(frameCount, frames * seconds, true);
                     }
                     else {
                         view.setPreviewFrame(frameCount, frames * seconds);
-
+                        view.getPreviewStats().frameRendered(System.nanoTime() - renderStart, frames);
                     }
                 }
 
@@ -149,6 +151,7 @@ public class Controller
 
         // Reset the frame count
         frameCount = 0;
+        view.getPreviewStats().reset();
 
         // Reset the Start Image View Control Points
         view.resetStartImageView();
@@ -214,6 +217,12 @@ public class Controller
             else if (curItem.getText().equals("Save Images")) {
                 view.saveImages();
             }
+            else if (curItem.getText().equals("Save Morph Job")) {
+                view.saveMorphJob();
+            }
+            else if (curItem.getText().equals("Show Playback Stats")) {
+                view.setPlaybackStatsShown(curItem.isSelected());
+            }
             else if (curItem.getText().equals("Exit")) {
                 System.exit(0);
             }
@@ -0,0 +1,281 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/*
+ * A Recorded Editing Session: the Mouse Events of the Control Point Editor.
+ *
+ * Each event is a press, drag or release on the start or end view, or the start
+ * of a group move, with the milliseconds since the event before it. Events are
+ * held five ints apiece in one array and saved one per line:
+ *
+ *     jmorph-session 1
+ *     p 0 0 212 164         type, view (0 start, 1 end), delay ms, x, y
+ *     d 0 16 215 166
+ *     r 0 9 215 166
+ *     g 0 1830 0 0
+ *
+ * Run the editor with -Djmorph.recordSession=file to record a session, and
+ * replay it with --editor-benchmark.
+ */
+public class EditSession {
+
+    private static final String HEADER = "jmorph-session 1";
+
+    // Event Types, as Written to the File
+    public static final int PRESS = 'p';
+    public static final int DRAG = 'd';
+    public static final int RELEASE = 'r';
+    public static final int GROUP_MOVE = 'g';
+
+    // Views
+    public static final int START_VIEW = 0;
+    public static final int END_VIEW = 1;
+
+    // Type, View, Delay, X and Y of Each Event
+    private static final int FIELDS = 5;
+
+    private int events[] = new int[FIELDS * 256];
+    private int count = 0;
+
+    /*
+     * Adds an Event to the End of the Session.
+     *
+     * @param   type        The event type, such as DRAG
+     * @param   view        The view, START_VIEW or END_VIEW
+     * @param   delay       The milliseconds since the previous event
+     * @param   x           The x-coordinate in the view
+     * @param   y           The y-coordinate in the view
+     */
+    public void add(int type, int view, int delay, int x, int y) {
+        if ((count + 1) * FIELDS > events.length) {
+            events = Arrays.copyOf(events, events.length * 2);
+        }
+        int i = count * FIELDS;
+        events[i] = type;
+        events[i + 1] = view;
+        events[i + 2] = delay;
+        events[i + 3] = x;
+        events[i + 4] = y;
+        count++;
+    }
+
+    /*
+     * Retrieves the Number of Events.
+     */
+    public int size() {
+        return count;
+    }
+
+    public int getType(int event) {
+        return events[event * FIELDS];
+    }
+
+    public int getView(int event) {
+        return events[event * FIELDS + 1];
+    }
+
+    public int getDelay(int event) {
+        return events[event * FIELDS + 2];
+    }
+
+    public int getX(int event) {
+        return events[event * FIELDS + 3];
+    }
+
+    public int getY(int event) {
+        return events[event * FIELDS + 4];
+    }
+
+    /*
+     * Formats an Event as a Line of the Session File.
+     */
+    private String line(int event) {
+        return (char) getType(event) + " " + getView(event) + " " + getDelay(event) + " "
+                + getX(event) + " " + getY(event);
+    }
+
+    /*
+     * Reads a Session File.
+     *
+     * @param   file        The session file
+     * @return              The session
+     */
+    public static EditSession load(File file) throws IOException {
+        EditSession session = new EditSession();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (!HEADER.equals(line)) {
+                throw new IOException("Not a Session File: " + file);
+            }
+
+            int number = 1;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String fields[] = line.split(" ");
+                try {
+                    if (fields.length != FIELDS || fields[0].length() != 1) {
+                        throw new IllegalArgumentException(line);
+                    }
+                    int type = fields[0].charAt(0);
+                    int view = Integer.parseInt(fields[1]);
+                    if ((type != PRESS && type != DRAG && type != RELEASE && type != GROUP_MOVE)
+                            || (view != START_VIEW && view != END_VIEW)) {
+                        throw new IllegalArgumentException(line);
+                    }
+                    session.add(type, view, Integer.parseInt(fields[2]),
+                            Integer.parseInt(fields[3]), Integer.parseInt(fields[4]));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Invalid Session Line " + number + ": " + line);
+                }
+            }
+        }
+        return session;
+    }
+
+    /*
+     * Saves the Session.
+     *
+     * @param   file        The file to write
+     */
+    public void save(File file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (int i = 0; i < count; i++) {
+                writer.write(line(i));
+                writer.newLine();
+            }
+        }
+    }
+
+    /*
+     * Records the Mouse Events of the Start and End Views to a Session File.
+     * Register it on both views ahead of the editor. Each event is written as it
+     * happens and the file is flushed at the end of every gesture.
+     */
+    public static class Recorder implements MouseListener, MouseMotionListener {
+
+        private final ImageView startImageView, endImageView;
+        private final EditSession session = new EditSession();
+        private BufferedWriter writer;
+        private long lastTime = 0;
+
+        /*
+         * Constructor for the Session Recorder.
+         *
+         * @param   file                The session file to write
+         * @param   startImageView      The start image view
+         * @param   endImageView        The end image view
+         */
+        public Recorder(File file, ImageView startImageView, ImageView endImageView) {
+            this.startImageView = startImageView;
+            this.endImageView = endImageView;
+            try {
+                writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+                writer.write(HEADER);
+                writer.newLine();
+                writer.flush();
+            } catch (IOException e) {
+                System.out.println("Error Recording Session: " + e.getMessage());
+                writer = null;
+            }
+        }
+
+        /*
+         * Records the Start of a Group Move.
+         */
+        public void groupMoveStarted() {
+            record(GROUP_MOVE, START_VIEW, System.currentTimeMillis(), 0, 0);
+            flush();
+        }
+
+        /*
+         * Appends an Event to the Session and the File.
+         */
+        private void record(int type, int view, long time, int x, int y) {
+            int delay = (lastTime == 0) ? 0 : (int) Math.max(0, Math.min(Integer.MAX_VALUE, time - lastTime));
+            lastTime = time;
+            session.add(type, view, delay, x, y);
+
+            if (writer != null) {
+                try {
+                    writer.write(session.line(session.size() - 1));
+                    writer.newLine();
+                } catch (IOException e) {
+                    System.out.println("Error Recording Session: " + e.getMessage());
+                    writer = null;
+                }
+            }
+        }
+
+        /*
+         * Records a Mouse Event on One of the Views.
+         */
+        private void record(int type, MouseEvent e) {
+            if (e.getSource() == startImageView || e.getSource() == endImageView) {
+                int view = (e.getSource() == startImageView) ? START_VIEW : END_VIEW;
+                record(type, view, e.getWhen(), e.getX(), e.getY());
+            }
+        }
+
+        /*
+         * Writes the Recorded Events Out.
+         */
+        private void flush() {
+            if (writer != null) {
+                try {
+                    writer.flush();
+                } catch (IOException e) {
+                    System.out.println("Error Recording Session: " + e.getMessage());
+                    writer = null;
+                }
+            }
+        }
+
+        /*
+         * Retrieves the Session Recorded So Far.
+         */
+        public EditSession getSession() {
+            return session;
+        }
+
+        public void mousePressed(MouseEvent e) {
+            record(PRESS, e);
+        }
+
+        public void mouseDragged(MouseEvent e) {
+            record(DRAG, e);
+        }
+
+        public void mouseReleased(MouseEvent e) {
+            record(RELEASE, e);
+            flush();
+        }
+
+        public void mouseClicked(MouseEvent e) {}
+        public void mouseEntered(MouseEvent e) {}
+        public void mouseExited(MouseEvent e) {}
+        public void mouseMoved(MouseEvent e) {}
+    }
+}
@@ -0,0 +1,443 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/*
+ * Headless Latency Benchmark of Control Point Editing.
+ *
+ * Recorded edit sessions, or generated ones when none are given, are replayed
+ * against a control point editor and two image views with no window. Each event is
+ * timed from the editor receiving it until every region it marked for repainting
+ * has been painted into an offscreen image, the work the event dispatch thread
+ * does before the user sees the point move. Latency percentiles are reported for
+ * each kind of event, for every image size and mesh density.
+ *
+ * A session is replayed on whatever mesh density is being measured. Presses that
+ * miss every control point are moved onto the nearest one, with the rest of the
+ * drag moved by the same amount, so a session recorded on one mesh still drags
+ * points on another. The late column is the share of events that took longer
+ * than the recorded gap to the next event, which a user would see as lag.
+ */
+public class EditorBenchmark {
+
+    private static final String DEFAULT_SIZES = "600,1920x1080,3840x2160";
+    private static final String DEFAULT_DENSITIES = "10x10,30x30,50x30";
+    private static final String KINDS[] = {"press", "point", "box", "group", "release"};
+
+    // Gestures in a Generated Session, Every Sixth a Group Move
+    private static final int SYNTHETIC_GESTURES = 60;
+    private static final int DRAG_STEPS = 30;
+    private static final int DRAG_MILLIS = 16;
+
+    private final int repeat;
+
+    /*
+     * Constructor for the Editor Benchmark.
+     *
+     * @param   repeat      The number of times each session is replayed
+     */
+    public EditorBenchmark(int repeat) {
+        this.repeat = repeat;
+    }
+
+    /*
+     * Runs the Benchmark from the Command Line.
+     * Usage: java JMorph --editor-benchmark [session ...] [--sizes 600,1920x1080,...]
+     *        [--densities 10x10,30x30,...] [--repeat n] [--warmup n]
+     *
+     * @return      The exit status
+     */
+    public static int run(String arg[]) {
+        System.setProperty("java.awt.headless", "true");
+
+        String sizes = DEFAULT_SIZES, densities = DEFAULT_DENSITIES;
+        int repeat = 3, warmup = 2;
+        List<File> sessionFiles = new ArrayList<>();
+
+        try {
+            for (int i = 1; i < arg.length; i++) {
+                if (arg[i].equals("--sizes") && i + 1 < arg.length) {
+                    sizes = arg[++i];
+                }
+                else if (arg[i].equals("--densities") && i + 1 < arg.length) {
+                    densities = arg[++i];
+                }
+                else if (arg[i].equals("--repeat") && i + 1 < arg.length) {
+                    repeat = Integer.parseInt(arg[++i]);
+                }
+                else if (arg[i].equals("--warmup") && i + 1 < arg.length) {
+                    warmup = Integer.parseInt(arg[++i]);
+                }
+                else if (!arg[i].startsWith("--")) {
+                    sessionFiles.add(new File(arg[i]));
+                }
+                else {
+                    throw new IllegalArgumentException(arg[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("Usage: java JMorph --editor-benchmark [session ...] [--sizes 600,1920x1080,...]"
+                    + " [--densities 10x10,30x30,...] [--repeat n] [--warmup n]");
+            return 2;
+        }
+
+        EditorBenchmark benchmark = new EditorBenchmark(Math.max(1, repeat));
+        try {
+            List<int[]> sizeList = MorphBenchmark.parseSizes(sizes, 2);
+            List<int[]> densityList = MorphBenchmark.parseSizes(densities, 1);
+            for (int density[] : densityList) {
+                if (density[0] > ImageView.MAX_COLUMNS || density[1] > ImageView.MAX_ROWS) {
+                    throw new IllegalArgumentException("Density Over " + ImageView.MAX_COLUMNS + "x"
+                            + ImageView.MAX_ROWS + ": " + density[0] + "x" + density[1]);
+                }
+            }
+
+            // Null Stands for a Session Generated for Each Mesh
+            Map<String, EditSession> sessions = new LinkedHashMap<>();
+            for (File file : sessionFiles) {
+                sessions.put(file.getName(), EditSession.load(file));
+            }
+            if (sessions.isEmpty()) {
+                sessions.put("synthetic", null);
+            }
+
+            // Install the Offscreen Painting for Every View
+            DirtyRegions dirtyRegions = new DirtyRegions();
+            RepaintManager.setCurrentManager(dirtyRegions);
+
+            // Compile the Editing Path Before Anything is Measured
+            BufferedImage warmupImage = SyntheticMorph.image(600, 600, 1);
+            for (int i = 0; i < warmup; i++) {
+                benchmark.measure(dirtyRegions, null, warmupImage, warmupImage, 10, 10);
+            }
+
+            System.out.println(header());
+            for (int size[] : sizeList) {
+                BufferedImage start = SyntheticMorph.image(size[0], size[1], 1);
+                BufferedImage end = SyntheticMorph.image(size[0], size[1], 2);
+                for (int density[] : densityList) {
+                    for (Map.Entry<String, EditSession> session : sessions.entrySet()) {
+                        long latencies[][] = benchmark.measure(dirtyRegions, session.getValue(), start, end,
+                                density[0], density[1]);
+                        for (int kind = 0; kind < KINDS.length; kind++) {
+                            if (latencies[kind].length > 0) {
+                                System.out.println(report(session.getKey(), size, density, kind, latencies[kind]));
+                            }
+                        }
+                    }
+                }
+            }
+            return 0;
+        } catch (IOException e) {
+            System.out.println("Error Running Editor Benchmark: " + e.getMessage());
+            return 1;
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid Benchmark Setting: " + e.getMessage());
+            return 2;
+        }
+    }
+
+    /*
+     * Replays a Session on Fresh Views and Times Each Event.
+     *
+     * @param   dirtyRegions    The installed repaint manager
+     * @param   session         The session, or null to generate one for the mesh
+     * @param   start           The start image
+     * @param   end             The end image
+     * @param   columns         The number of control point columns
+     * @param   rows            The number of control point rows
+     * @return                  For each kind of event, the latency of each, in nanoseconds,
+     *                          negated when the event was late
+     */
+    public long[][] measure(DirtyRegions dirtyRegions, EditSession session, BufferedImage start, BufferedImage end,
+                            int columns, int rows) {
+        long latencies[][] = new long[KINDS.length][];
+        int counts[] = new int[KINDS.length];
+        for (int kind = 0; kind < KINDS.length; kind++) {
+            latencies[kind] = new long[256];
+        }
+
+        for (int r = 0; r < repeat; r++) {
+            ImageView views[] = {new ImageView(start, rows, columns), new ImageView(end, rows, columns)};
+            BufferedImage screens[] = new BufferedImage[views.length];
+            for (int v = 0; v < views.length; v++) {
+                views[v].setSize(views[v].getPreferredSize());
+                screens[v] = new BufferedImage(views[v].getWidth(), views[v].getHeight(), BufferedImage.TYPE_INT_RGB);
+            }
+            ControlPointEditor editor = new ControlPointEditor(views[0], views[1], () -> {});
+            EditSession replayed = (session != null) ? session : synthetic(views[0], columns, rows, r);
+
+            // Paint Both Views Once So Each Event Finds the Overlays Built
+            dirtyRegions.clear();
+            for (int v = 0; v < views.length; v++) {
+                dirtyRegions.paint(views[v], screens[v], true);
+            }
+
+            int offsetX = 0, offsetY = 0;
+            for (int i = 0; i < replayed.size(); i++) {
+                int type = replayed.getType(i);
+                ImageView view = views[replayed.getView(i) == EditSession.END_VIEW ? 1 : 0];
+                int x = replayed.getX(i) + offsetX, y = replayed.getY(i) + offsetY;
+
+                if (type == EditSession.GROUP_MOVE) {
+                    editor.startGroupMove();
+                    continue;
+                }
+
+                // Move Presses That Would Miss onto the Nearest Control Point
+                if (type == EditSession.PRESS) {
+                    offsetX = offsetY = 0;
+                    x = replayed.getX(i);
+                    y = replayed.getY(i);
+                    Point p = new Point(x, y);
+                    boolean inBox = view.getGroupMoveBox() != null && view.getGroupMoveBox().contains(p);
+                    if (!editor.isSelectingGroup() && !inBox && view.whichControlPoint(p) == null) {
+                        ControlPoint nearest = nearestControlPoint(view, columns, rows, p);
+                        offsetX = (int) nearest.getXCoordinate() - x;
+                        offsetY = (int) nearest.getYCoordinate() - y;
+                        x += offsetX;
+                        y += offsetY;
+                    }
+                }
+
+                int kind;
+                if (type == EditSession.PRESS) {
+                    kind = 0;
+                }
+                else if (type == EditSession.RELEASE) {
+                    kind = 4;
+                }
+                else {
+                    kind = editor.isSelectingGroup() ? 2 : editor.isMovingGroup() ? 3 : 1;
+                }
+
+                long began = System.nanoTime();
+                dispatch(editor, view, type, x, y);
+                for (int v = 0; v < views.length; v++) {
+                    dirtyRegions.paint(views[v], screens[v], false);
+                }
+                long latency = System.nanoTime() - began;
+
+                // Late When the Next Event Would Have Arrived First
+                boolean isLate = i + 1 < replayed.size() && replayed.getDelay(i + 1) > 0
+                        && latency > replayed.getDelay(i + 1) * 1000000L;
+                if (counts[kind] == latencies[kind].length) {
+                    latencies[kind] = Arrays.copyOf(latencies[kind], counts[kind] * 2);
+                }
+                latencies[kind][counts[kind]++] = isLate ? -latency : latency;
+            }
+        }
+
+        for (int kind = 0; kind < KINDS.length; kind++) {
+            latencies[kind] = Arrays.copyOf(latencies[kind], counts[kind]);
+        }
+        return latencies;
+    }
+
+    /*
+     * Hands a Session Event to the Editor as the Mouse Event It Was.
+     */
+    private static void dispatch(ControlPointEditor editor, ImageView view, int type, int x, int y) {
+        int id = (type == EditSession.PRESS) ? MouseEvent.MOUSE_PRESSED
+                : (type == EditSession.DRAG) ? MouseEvent.MOUSE_DRAGGED : MouseEvent.MOUSE_RELEASED;
+        int modifiers = (type == EditSession.RELEASE) ? 0 : InputEvent.BUTTON1_DOWN_MASK;
+        MouseEvent e = new MouseEvent(view, id, System.currentTimeMillis(), modifiers, x, y, 1, false,
+                MouseEvent.BUTTON1);
+
+        if (type == EditSession.PRESS) {
+            editor.mousePressed(e);
+        }
+        else if (type == EditSession.DRAG) {
+            editor.mouseDragged(e);
+        }
+        else {
+            editor.mouseReleased(e);
+        }
+    }
+
+    /*
+     * Finds the Movable Control Point Nearest a Point.
+     */
+    private static ControlPoint nearestControlPoint(ImageView view, int columns, int rows, Point p) {
+        ControlPoint nearest = null;
+        double nearestDistance = Double.MAX_VALUE;
+        for (int xi = 1; xi <= columns; xi++) {
+            for (int yi = 1; yi <= rows; yi++) {
+                ControlPoint controlPoint = view.getControlPoint(xi, yi);
+                double distance = p.distanceSq(controlPoint.getXCoordinate(), controlPoint.getYCoordinate());
+                if (distance < nearestDistance) {
+                    nearest = controlPoint;
+                    nearestDistance = distance;
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /*
+     * Generates a Session of Single Point Drags and Group Moves on a Mesh.
+     * Drags wander up to a third of a cell from where they start, at the rate a
+     * mouse reports motion.
+     *
+     * @param   view        A view with the mesh, for the control point locations
+     * @param   columns     The number of control point columns
+     * @param   rows        The number of control point rows
+     * @param   seed        The seed of the random choices
+     * @return              The session
+     */
+    public static EditSession synthetic(ImageView view, int columns, int rows, long seed) {
+        Random random = new Random(seed);
+        EditSession session = new EditSession();
+        double cellWidth = view.getControlPoint(1, 1).getXCoordinate();
+        double cellHeight = view.getControlPoint(1, 1).getYCoordinate();
+
+        for (int g = 0; g < SYNTHETIC_GESTURES; g++) {
+            int side = random.nextInt(2);
+
+            if (g % 6 == 5) {
+
+                // Box Up to Three by Three Points, Then Move Them Together
+                int spanX = Math.min(2, columns - 1), spanY = Math.min(2, rows - 1);
+                int xi = 1 + random.nextInt(columns - spanX), yi = 1 + random.nextInt(rows - spanY);
+                ControlPoint first = view.getControlPoint(xi, yi);
+                ControlPoint last = view.getControlPoint(xi + spanX, yi + spanY);
+                int x1 = (int) (first.getXCoordinate() - cellWidth / 2), y1 = (int) (first.getYCoordinate() - cellHeight / 2);
+                int x2 = (int) (last.getXCoordinate() + cellWidth / 2), y2 = (int) (last.getYCoordinate() + cellHeight / 2);
+
+                session.add(EditSession.GROUP_MOVE, side, 400, 0, 0);
+                session.add(EditSession.PRESS, side, 400, x1, y1);
+                for (int s = 1; s <= DRAG_STEPS; s++) {
+                    session.add(EditSession.DRAG, side, DRAG_MILLIS,
+                            x1 + (x2 - x1) * s / DRAG_STEPS, y1 + (y2 - y1) * s / DRAG_STEPS);
+                }
+                session.add(EditSession.RELEASE, side, DRAG_MILLIS, x2, y2);
+
+                int cx = (x1 + x2) / 2, cy = (y1 + y2) / 2;
+                double angle = random.nextDouble() * 2 * Math.PI;
+                session.add(EditSession.PRESS, side, 400, cx, cy);
+                for (int s = 1; s <= DRAG_STEPS; s++) {
+                    session.add(EditSession.DRAG, side, DRAG_MILLIS,
+                            cx + (int) (Math.cos(angle) * s), cy + (int) (Math.sin(angle) * s));
+                }
+                session.add(EditSession.RELEASE, side, DRAG_MILLIS,
+                        cx + (int) (Math.cos(angle) * DRAG_STEPS), cy + (int) (Math.sin(angle) * DRAG_STEPS));
+            }
+            else {
+
+                // Drag One Point Around its Place
+                ControlPoint controlPoint = view.getControlPoint(1 + random.nextInt(columns), 1 + random.nextInt(rows));
+                int cx = (int) controlPoint.getXCoordinate(), cy = (int) controlPoint.getYCoordinate();
+                int reachX = Math.max(1, (int) (cellWidth / 3)), reachY = Math.max(1, (int) (cellHeight / 3));
+                int x = cx, y = cy;
+
+                session.add(EditSession.PRESS, side, 400, x, y);
+                for (int s = 0; s < DRAG_STEPS; s++) {
+                    x = Math.max(cx - reachX, Math.min(cx + reachX, x + random.nextInt(7) - 3));
+                    y = Math.max(cy - reachY, Math.min(cy + reachY, y + random.nextInt(7) - 3));
+                    session.add(EditSession.DRAG, side, DRAG_MILLIS, x, y);
+                }
+                session.add(EditSession.RELEASE, side, DRAG_MILLIS, x, y);
+            }
+        }
+        return session;
+    }
+
+    /*
+     * Formats the Latencies of One Kind of Event.
+     */
+    private static String report(String name, int size[], int density[], int kind, long latencies[]) {
+        int late = 0;
+        long sorted[] = new long[latencies.length];
+        for (int i = 0; i < latencies.length; i++) {
+            late += (latencies[i] < 0) ? 1 : 0;
+            sorted[i] = Math.abs(latencies[i]);
+        }
+        Arrays.sort(sorted);
+
+        return String.format("%-14s %5dx%-5d %3dx%-3d %-8s %7d %8.3f %8.3f %8.3f %8.3f %6.1f", name,
+                size[0], size[1], density[0], density[1], KINDS[kind], sorted.length,
+                RenderMetrics.percentile(sorted, 0.50), RenderMetrics.percentile(sorted, 0.95),
+                RenderMetrics.percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e6,
+                100.0 * late / sorted.length);
+    }
+
+    /*
+     * Retrieves the Column Headings Matching the Report Lines.
+     */
+    private static String header() {
+        return String.format("%-14s %11s %7s %-8s %7s %8s %8s %8s %8s %6s", "session", "size", "mesh",
+                "event", "count", "p50 ms", "p95 ms", "p99 ms", "max ms", "late %");
+    }
+
+    /*
+     * A Repaint Manager That Collects the Regions Views Mark for Repainting,
+     * So the Benchmark Can Paint Them Offscreen Rather Than Scheduling a Paint.
+     */
+    public static class DirtyRegions extends RepaintManager {
+
+        private final Map<JComponent, Rectangle> regions = new HashMap<>();
+
+        public void addDirtyRegion(JComponent c, int x, int y, int w, int h) {
+            if (w <= 0 || h <= 0) {
+                return;
+            }
+            Rectangle region = regions.get(c);
+            if (region == null) {
+                regions.put(c, new Rectangle(x, y, w, h));
+            }
+            else {
+                region.add(new Rectangle(x, y, w, h));
+            }
+        }
+
+        /*
+         * Forgets Every Collected Region.
+         */
+        public void clear() {
+            regions.clear();
+        }
+
+        /*
+         * Paints the Region a View Marked, or All of It, into an Offscreen Image.
+         *
+         * @param   view        The view
+         * @param   screen      The image standing in for the screen
+         * @param   isWhole     Whether to paint the whole view
+         */
+        public void paint(ImageView view, BufferedImage screen, boolean isWhole) {
+            Rectangle region = regions.remove(view);
+            if (isWhole) {
+                region = new Rectangle(0, 0, view.getWidth(), view.getHeight());
+            }
+            if (region == null) {
+                return;
+            }
+
+            Graphics2D g2d = screen.createGraphics();
+            g2d.clip(region.intersection(new Rectangle(0, 0, view.getWidth(), view.getHeight())));
+            view.paintComponent(g2d);
+            g2d.dispose();
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Detects Event Handlers That Hold Up the Swing Event Dispatch Thread.
+ *
+ * The watchdog replaces the system event queue and times every event it
+ * dispatches. A sampler thread takes the dispatch thread's stack while an event
+ * runs past the threshold. Each stall is filed under the handler it ran in, the
+ * innermost application frame nearest the bottom of the stack, and each sample
+ * under the application frame nearest the top, which is where the time went.
+ * The aggregated report is printed every minute in which new stalls happened and
+ * when the program exits.
+ *
+ * The threshold is jmorph.edtWatchdogMs, 100 by default; 0 turns the watchdog off.
+ * An event that opens a modal dialog waits in a nested event loop and is not
+ * counted, though the events the dialog dispatches are.
+ */
+public class EdtWatchdog extends EventQueue {
+
+    private static final long REPORT_MILLIS = 60000;
+    private static final int HOT_FRAMES_SHOWN = 3;
+
+    private final long thresholdNanos;
+    private final long sampleMillis;
+
+    // The Event Being Dispatched, 0 When None or When Waiting in a Nested Loop
+    private volatile long dispatchStart = 0;
+    private volatile Thread dispatchThread;
+
+    // Dispatches in Progress, Innermost Last; Only the Dispatch Thread Uses These
+    private int depth = 0;
+    private boolean isNested[] = new boolean[16];
+
+    // Stacks Sampled During the Current Dispatch, Guarded by this
+    private final List<StackTraceElement[]> samples = new ArrayList<>();
+
+    // Stalls by Handler, Guarded by this
+    private final Map<String, Offender> offenders = new HashMap<>();
+    private int stallCount = 0, reportedCount = 0;
+
+    /*
+     * Constructor for the EDT Watchdog.
+     *
+     * @param   thresholdMillis     The dispatch time counted as a stall
+     */
+    public EdtWatchdog(long thresholdMillis) {
+        this.thresholdNanos = thresholdMillis * 1000000L;
+        this.sampleMillis = Math.max(5, thresholdMillis / 4);
+    }
+
+    /*
+     * Installs the Watchdog on the System Event Queue, Unless Turned Off.
+     *
+     * @return      The watchdog, or null if it is turned off
+     */
+    public static EdtWatchdog install() {
+        long threshold = Long.getLong("jmorph.edtWatchdogMs", 100);
+        if (threshold <= 0) {
+            return null;
+        }
+
+        EdtWatchdog watchdog = new EdtWatchdog(threshold);
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(watchdog);
+
+        Thread sampler = new Thread(watchdog::sample, "edt-watchdog");
+        sampler.setDaemon(true);
+        sampler.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(watchdog::printReport, "edt-watchdog-report"));
+        return watchdog;
+    }
+
+    /*
+     * Dispatches an Event and Files It if It Stalled.
+     */
+    protected void dispatchEvent(AWTEvent event) {
+        // An Outer Event Now Waits in a Nested Loop; Its Time is Not Its Own
+        if (depth > 0) {
+            isNested[depth - 1] = true;
+        }
+        if (depth == isNested.length) {
+            isNested = Arrays.copyOf(isNested, depth * 2);
+        }
+        isNested[depth++] = false;
+
+        synchronized (this) {
+            samples.clear();
+        }
+        long start = System.nanoTime();
+        dispatchThread = Thread.currentThread();
+        dispatchStart = start;
+
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            dispatchStart = 0;
+            depth--;
+            if (!isNested[depth] && elapsed >= thresholdNanos) {
+                record(event, elapsed);
+            }
+        }
+    }
+
+    /*
+     * Files a Stall Under Its Handler, with the Frames Its Samples Were In.
+     */
+    private synchronized void record(AWTEvent event, long elapsed) {
+        String eventName = event.getClass().getSimpleName();
+        String handler = null;
+        List<String> hotFrames = new ArrayList<>();
+        for (StackTraceElement stack[] : samples) {
+            String top = null, bottom = null;
+            for (StackTraceElement frame : stack) {
+                if (isApplicationFrame(frame)) {
+                    top = (top == null) ? describe(frame) : top;
+                    bottom = describe(frame);
+                }
+            }
+
+            // Platform Code Alone Shows as Its Own Top Frame
+            hotFrames.add((top != null) ? top : (stack.length > 0) ? describe(stack[0]) : "Unknown");
+            if (handler == null) {
+                handler = bottom;
+            }
+        }
+        if (handler == null) {
+            handler = eventName + " from " + event.getSource().getClass().getSimpleName();
+        }
+
+        Offender offender = offenders.computeIfAbsent(handler + " [" + eventName + "]", key -> new Offender());
+        offender.stalls++;
+        offender.totalNanos += elapsed;
+        offender.maxNanos = Math.max(offender.maxNanos, elapsed);
+        for (String frame : hotFrames) {
+            offender.hotFrames.merge(frame, 1, Integer::sum);
+        }
+        stallCount++;
+        samples.clear();
+    }
+
+    /*
+     * Checks if a Stack Frame is in the Application Rather Than the Platform.
+     * Every application class is in the default package; lambda bodies are
+     * skipped for the method they call.
+     */
+    private static boolean isApplicationFrame(StackTraceElement frame) {
+        String name = frame.getClassName();
+        return name.indexOf('.') < 0 && !name.contains("$$Lambda") && !name.equals("EdtWatchdog");
+    }
+
+    /*
+     * Describes a Stack Frame as Class.method(File:line).
+     */
+    private static String describe(StackTraceElement frame) {
+        return frame.getClassName() + "." + frame.getMethodName()
+                + "(" + frame.getFileName() + ":" + frame.getLineNumber() + ")";
+    }
+
+    /*
+     * Samples the Dispatch Thread While an Event Runs Past the Threshold,
+     * and Prints the Report Each Minute with New Stalls.
+     */
+    private void sample() {
+        long lastReport = System.currentTimeMillis();
+        while (true) {
+            try {
+                Thread.sleep(sampleMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            long start = dispatchStart;
+            Thread thread = dispatchThread;
+            if (start != 0 && System.nanoTime() - start >= thresholdNanos) {
+                StackTraceElement stack[] = thread.getStackTrace();
+                synchronized (this) {
+                    // Keep It Only if the Same Event is Still Running
+                    if (dispatchStart == start) {
+                        samples.add(stack);
+                    }
+                }
+            }
+
+            if (System.currentTimeMillis() - lastReport >= REPORT_MILLIS) {
+                lastReport = System.currentTimeMillis();
+                printReport();
+            }
+        }
+    }
+
+    /*
+     * Prints Every Handler That Stalled, Longest Total Stall First, if There Were New Stalls.
+     */
+    public synchronized void printReport() {
+        if (stallCount == reportedCount) {
+            return;
+        }
+        reportedCount = stallCount;
+        System.out.println(report());
+    }
+
+    /*
+     * Describes Every Handler That Stalled, Longest Total Stall First.
+     *
+     * @return      The report
+     */
+    public synchronized String report() {
+        List<Map.Entry<String, Offender>> entries = new ArrayList<>(offenders.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue().totalNanos, a.getValue().totalNanos));
+
+        StringBuilder text = new StringBuilder("EDT Stalls over " + thresholdNanos / 1000000 + " ms: "
+                + stallCount + "\n");
+        for (Map.Entry<String, Offender> entry : entries) {
+            Offender offender = entry.getValue();
+            text.append(String.format("  %5d stalls %9d ms total %7d ms max  %s%n", offender.stalls,
+                    offender.totalNanos / 1000000, offender.maxNanos / 1000000, entry.getKey()));
+
+            // The Frames Most Samples Were In
+            List<Map.Entry<String, Integer>> frames = new ArrayList<>(offender.hotFrames.entrySet());
+            frames.sort((a, b) -> b.getValue() - a.getValue());
+            for (int i = 0; i < Math.min(HOT_FRAMES_SHOWN, frames.size()); i++) {
+                text.append(String.format("        %5d samples  %s%n", frames.get(i).getValue(), frames.get(i).getKey()));
+            }
+        }
+        return text.toString();
+    }
+
+    /*
+     * The Stalls of One Handler.
+     */
+    private static class Offender {
+        int stalls = 0;
+        long totalNanos = 0, maxNanos = 0;
+        final Map<String, Integer> hotFrames = new HashMap<>();
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Properties;
+
+/*
+ * Record of an Export Kept Beside Its Frames.
+ *
+ * Holds the hash of the morph the frames came from and which frames are finished,
+ * written as ranges such as 1-120,130. The file is replaced atomically on every
+ * save, so an export killed at any point leaves either the old or the new record.
+ * Each save is forced to disk before and after the rename, so the record survives
+ * a power loss as well.
+ *
+ * Frames are marked in memory and saved in batches, every few dozen frames or
+ * about once a second, by whichever thread finds a save due while no other is
+ * saving. Frames finished after the last save are only rendered again on resume.
+ * A worker rendering only part of the frames keeps its own manifest named after
+ * its range, so workers sharing an output directory never write the same file.
+ */
+public class ExportManifest {
+
+    public static final String FILE_NAME = "manifest.properties";
+    private static final String PREFIX = "manifest";
+    private static final String SUFFIX = ".properties";
+
+    // Frames or Time Between Batched Saves
+    private static final int SAVE_FRAMES = 32;
+    private static final long SAVE_NANOS = 1_000_000_000L;
+
+    private final File file;
+    private final long morphHash;
+    private final int totalFrames;
+    private final String format;
+    private final BitSet completed = new BitSet();
+
+    // Frames Marked Since the Last Save, When It Was, and Whether a Batch is Being Saved, Guarded by this
+    private int unsaved = 0;
+    private long lastSaveTime = System.nanoTime();
+    private boolean isSaving = false;
+
+    // Held While Writing, so Saves Reach the File in the Order They Were Taken
+    private final Object saveLock = new Object();
+
+    /*
+     * Constructor for the Export Manifest.
+     *
+     * @param   file            The manifest file
+     * @param   morphHash       The hash of the morph being exported
+     * @param   totalFrames     The total number of frames
+     * @param   format          The image format of the frames
+     */
+    public ExportManifest(File file, long morphHash, int totalFrames, String format) {
+        this.file = file;
+        this.morphHash = morphHash;
+        this.totalFrames = totalFrames;
+        this.format = format;
+    }
+
+    /*
+     * Finds the Manifest File for a Range of Frames.
+     * The whole morph uses manifest.properties; a part uses manifest-first-last.properties.
+     *
+     * @param   directory       The output directory
+     * @param   firstFrame      The first frame of the range
+     * @param   lastFrame       The last frame of the range
+     * @param   totalFrames     The total number of frames
+     * @return                  The manifest file
+     */
+    public static File file(File directory, int firstFrame, int lastFrame, int totalFrames) {
+        if (firstFrame == 1 && lastFrame == totalFrames) {
+            return new File(directory, FILE_NAME);
+        }
+        return new File(directory, PREFIX + "-" + firstFrame + "-" + lastFrame + SUFFIX);
+    }
+
+    /*
+     * Lists Every Manifest in an Output Directory, Whole or Partial.
+     *
+     * @param   directory   The output directory
+     * @return              The manifest files
+     */
+    public static File[] list(File directory) {
+        File files[] = directory.listFiles((dir, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        return (files == null) ? new File[0] : files;
+    }
+
+    /*
+     * Loads a Manifest File.
+     *
+     * @param   file        The manifest file
+     * @return              The manifest, or null if there is none
+     */
+    public static ExportManifest load(File file) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+
+        Properties properties = new Properties();
+        try (Reader reader = new FileReader(file)) {
+            properties.load(reader);
+        }
+
+        try {
+            ExportManifest manifest = new ExportManifest(file,
+                    Long.parseUnsignedLong(properties.getProperty("morph"), 16),
+                    Integer.parseInt(properties.getProperty("totalFrames")),
+                    properties.getProperty("format", "jpg"));
+            manifest.parseRanges(properties.getProperty("completed", ""));
+            return manifest;
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid Export Manifest: " + file, e);
+        }
+    }
+
+    /*
+     * Checks if the Manifest Describes the Same Frames as a Job.
+     *
+     * @param   morphHash       The hash of the morph
+     * @param   totalFrames     The total number of frames
+     * @param   format          The image format of the frames
+     * @return                  Whether or not its finished frames can be kept
+     */
+    public synchronized boolean matches(long morphHash, int totalFrames, String format) {
+        return this.morphHash == morphHash && this.totalFrames == totalFrames && this.format.equals(format);
+    }
+
+    /*
+     * Checks if a Frame is Finished.
+     *
+     * @param   frame       The frame number, from 1
+     */
+    public synchronized boolean isCompleted(int frame) {
+        return completed.get(frame);
+    }
+
+    /*
+     * Records a Finished Frame. It reaches the file with the next save.
+     *
+     * @param   frame       The frame number, from 1
+     */
+    public synchronized void markCompleted(int frame) {
+        completed.set(frame);
+        unsaved++;
+    }
+
+    /*
+     * Saves the Manifest if Enough Frames or Time Have Passed Since the Last Save.
+     * Returns at once when no save is due or another thread is already saving.
+     */
+    public void saveIfDue() throws IOException {
+        synchronized (this) {
+            if (isSaving || unsaved == 0
+                    || (unsaved < SAVE_FRAMES && System.nanoTime() - lastSaveTime < SAVE_NANOS)) {
+                return;
+            }
+            isSaving = true;
+        }
+        try {
+            save();
+        } finally {
+            synchronized (this) {
+                isSaving = false;
+            }
+        }
+    }
+
+    /*
+     * Forgets a Frame Whose File Has Gone Missing.
+     *
+     * @param   frame       The frame number, from 1
+     */
+    public synchronized void clearCompleted(int frame) {
+        completed.clear(frame);
+    }
+
+    /*
+     * Adds the Finished Frames of Another Manifest.
+     *
+     * @param   other       The manifest to take frames from
+     */
+    public void addCompleted(ExportManifest other) {
+        BitSet frames;
+        synchronized (other) {
+            frames = (BitSet) other.completed.clone();
+        }
+        synchronized (this) {
+            completed.or(frames);
+        }
+    }
+
+    /*
+     * Counts the Finished Frames.
+     */
+    public synchronized int getCompletedCount() {
+        return completed.cardinality();
+    }
+
+    /*
+     * Writes the Manifest Through a Temporary File.
+     * The finished frames are read under the monitor and written outside it, so
+     * threads marking frames never wait on the disk.
+     */
+    public void save() throws IOException {
+        synchronized (saveLock) {
+            Properties properties = new Properties();
+            properties.setProperty("morph", Long.toHexString(morphHash));
+            properties.setProperty("totalFrames", Integer.toString(totalFrames));
+            properties.setProperty("format", format);
+            synchronized (this) {
+                properties.setProperty("completed", formatRanges());
+                unsaved = 0;
+                lastSaveTime = System.nanoTime();
+            }
+
+            File temporary = new File(file.getPath() + ".tmp");
+            try (Writer writer = new FileWriter(temporary)) {
+                properties.store(writer, "JMorph Export");
+            }
+            replace(temporary, file);
+        }
+    }
+
+    /*
+     * Moves a Finished File into Place Durably.
+     * The file's contents reach the disk before the rename, and the rename itself
+     * before this returns, so after a crash the target holds either its old or its
+     * new contents.
+     *
+     * @param   temporary       The file to move, fully written
+     * @param   target          The file to replace
+     */
+    public static void replace(File temporary, File target) throws IOException {
+        try (FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // The Rename Lives in the Directory; Not Every System Can Open One to Force It
+        File directory = target.getAbsoluteFile().getParentFile();
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Windows Cannot Open Directories, and Commits Renames Itself
+        }
+    }
+
+    /*
+     * Writes the Finished Frames as Comma Separated Ranges.
+     */
+    private String formatRanges() {
+        StringBuilder text = new StringBuilder();
+        int start = completed.nextSetBit(0);
+        while (start >= 0) {
+            int end = completed.nextClearBit(start) - 1;
+            if (text.length() > 0) {
+                text.append(',');
+            }
+            text.append(start);
+            if (end > start) {
+                text.append('-').append(end);
+            }
+            start = completed.nextSetBit(end + 1);
+        }
+        return text.toString();
+    }
+
+    /*
+     * Reads Finished Frames Written by formatRanges().
+     */
+    private void parseRanges(String text) {
+        for (String range : text.split(",")) {
+            range = range.trim();
+            if (range.isEmpty()) {
+                continue;
+            }
+
+            int dash = range.indexOf('-');
+            if (dash < 0) {
+                completed.set(Integer.parseInt(range));
+            }
+            else {
+                completed.set(Integer.parseInt(range.substring(0, dash)), Integer.parseInt(range.substring(dash + 1)) + 1);
+            }
+        }
+    }
+
+    /*
+     * Retrieves the Total Number of Frames.
+     */
+    public int getTotalFrames() {
+        return totalFrames;
+    }
+
+    /*
+     * Retrieves the Image Format of the Frames.
+     */
+    public String getFormat() {
+        return format;
+    }
+}
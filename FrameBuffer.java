@@ -0,0 +1,164 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/*
+ * Packed RGB Pixels for One Frame, Held Either on the Heap or Off It.
+ *
+ * Heap buffers are plain int arrays and can be viewed as a BufferedImage without a
+ * copy. Direct buffers live outside the Java heap so the garbage collector never
+ * scans or moves them; they are read through their IntBuffer.
+ */
+public class FrameBuffer {
+
+    private static final DirectColorModel RGB_MODEL = new DirectColorModel(24, 0xFF0000, 0x00FF00, 0x0000FF);
+
+    private final int width, height;
+    private final IntBuffer pixels;
+    private final int array[];
+
+    // Image View, Created the First Time One is Needed
+    private BufferedImage image;
+
+    /*
+     * Constructor for a Frame Buffer.
+     *
+     * @param   width       The frame width
+     * @param   height      The frame height
+     * @param   offHeap     Whether or not to allocate the pixels outside the Java heap
+     */
+    public FrameBuffer(int width, int height, boolean offHeap) {
+        this.width = width;
+        this.height = height;
+
+        if (offHeap) {
+            pixels = ByteBuffer.allocateDirect(width * height * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+            array = null;
+        }
+        else {
+            array = new int[width * height];
+            pixels = IntBuffer.wrap(array);
+        }
+    }
+
+    /*
+     * Constructor for a Frame Buffer Over Existing Pixels.
+     *
+     * @param   width       The frame width
+     * @param   height      The frame height
+     * @param   pixels      The packed RGB pixels
+     */
+    public FrameBuffer(int width, int height, IntBuffer pixels) {
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+        this.array = (pixels.hasArray() && pixels.arrayOffset() == 0) ? pixels.array() : null;
+    }
+
+    /*
+     * Copies Packed Pixels into the Frame.
+     *
+     * @param   src     The pixels to copy, at least width * height long
+     */
+    public void write(int src[]) {
+        if (src == array) {
+            return;
+        }
+        pixels.put(0, src, 0, width * height);
+    }
+
+    /*
+     * Retrieves the Pixels as a Buffer.
+     *
+     * @return      The packed RGB pixels
+     */
+    public IntBuffer getPixels() {
+        return pixels;
+    }
+
+    /*
+     * Checks if the Pixels Can Be Used as an Array Without Copying.
+     *
+     * @return      Whether or not array() is available
+     */
+    public boolean hasArray() {
+        return array != null;
+    }
+
+    /*
+     * Retrieves the Backing Array of a Heap Frame.
+     *
+     * @return      The packed RGB pixels
+     */
+    public int[] array() {
+        return array;
+    }
+
+    /*
+     * Views the Frame as a BufferedImage.
+     * Heap frames share their pixels with the image. Off heap frames are copied
+     * into a heap image kept with the frame, so call this only to display or save.
+     *
+     * @return      The image
+     */
+    public BufferedImage asImage() {
+        if (image == null) {
+            int data[] = (array != null) ? array : new int[width * height];
+            DataBufferInt buffer = new DataBufferInt(data, data.length);
+            SinglePixelPackedSampleModel model = new SinglePixelPackedSampleModel(DataBufferInt.TYPE_INT, width, height,
+                    RGB_MODEL.getMasks());
+            WritableRaster raster = Raster.createWritableRaster(model, buffer, null);
+            image = new BufferedImage(RGB_MODEL, raster, false, null);
+        }
+
+        if (array == null) {
+            pixels.get(0, IntensityEngine.pixels(image), 0, width * height);
+        }
+
+        return image;
+    }
+
+    /*
+     * Retrieves the Frame Width.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /*
+     * Retrieves the Frame Height.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /*
+     * Retrieves the Size of the Pixels in Bytes.
+     */
+    public long getByteSize() {
+        return (long) width * height * 4;
+    }
+
+    /*
+     * Checks if the Pixels Are Held Outside the Java Heap.
+     */
+    public boolean isOffHeap() {
+        return pixels.isDirect();
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/*
+ * Two-Tier Cache of Blended Morph Frames.
+ *
+ * Frames are keyed by the morph they belong to, the total number of frames and the
+ * frame number. Recently shown frames stay in memory; when the memory budget is
+ * exceeded the least recently used frames are deflated to files in the cache
+ * directory, which in turn drops its least recently used files once its own budget
+ * is exceeded. Spilling runs on a background thread, and a frame waiting to be
+ * written can still be read.
+ */
+public class FrameCache {
+
+    private static final String SUFFIX = ".frame";
+
+    private final File directory;
+    private final long memoryBudget, diskBudget;
+
+    // Memory Tier in Access Order, Guarded by this
+    private final LinkedHashMap<String, int[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes = 0;
+
+    // Frames Evicted from Memory But Not Yet Written, Guarded by this
+    private final HashMap<String, int[]> spilling = new HashMap<>();
+
+    // Disk Tier in Access Order with File Sizes, Guarded by this
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private long diskBytes = 0;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(IntensityEngine.daemonThreads("frame-cache"));
+
+    // Hit Accounting, Guarded by this
+    private long memoryHits = 0, diskHits = 0, misses = 0;
+
+    /*
+     * Constructor for the Frame Cache.
+     *
+     * @param   directory       The directory for the disk tier, created if needed
+     * @param   memoryBudget    The most bytes of frames to keep in memory
+     * @param   diskBudget      The most bytes of compressed frames to keep on disk
+     */
+    public FrameCache(File directory, long memoryBudget, long diskBudget) {
+        this.directory = directory;
+        this.memoryBudget = memoryBudget;
+        this.diskBudget = diskBudget;
+
+        directory.mkdirs();
+        loadDiskIndex();
+        RenderMetrics.get().register(this);
+    }
+
+    /*
+     * Creates a Cache Configured by System Properties.
+     * jmorph.cacheDir, jmorph.cacheMemoryMB and jmorph.cacheDiskMB override the
+     * defaults of a directory under java.io.tmpdir, 256 MB and 1024 MB.
+     *
+     * @return      The frame cache
+     */
+    public static FrameCache fromProperties() {
+        File directory = new File(System.getProperty("jmorph.cacheDir",
+                new File(System.getProperty("java.io.tmpdir"), "jmorph-cache").getPath()));
+        long memoryBudget = Long.getLong("jmorph.cacheMemoryMB", 256) << 20;
+        long diskBudget = Long.getLong("jmorph.cacheDiskMB", 1024) << 20;
+        return new FrameCache(directory, memoryBudget, diskBudget);
+    }
+
+    /*
+     * Lists the Files Left by Earlier Runs, Oldest First.
+     */
+    private void loadDiskIndex() {
+        File files[] = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files == null) {
+            return;
+        }
+
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            String name = file.getName();
+            disk.put(name.substring(0, name.length() - SUFFIX.length()), file.length());
+            diskBytes += file.length();
+        }
+        trimDisk();
+    }
+
+    /*
+     * Builds the Key of a Frame.
+     */
+    private static String key(long morph, int frameCount, int totalFrames) {
+        return Long.toHexString(morph) + "-" + totalFrames + "-" + frameCount;
+    }
+
+    /*
+     * Copies a Cached Frame into the Given Pixels.
+     *
+     * @param   morph           The hash of the morph
+     * @param   frameCount      The frame number
+     * @param   totalFrames     The total number of frames
+     * @param   out             The pixels to fill
+     * @return                  Whether or not the frame was cached
+     */
+    public boolean get(long morph, int frameCount, int totalFrames, int out[]) {
+        String key = key(morph, frameCount, totalFrames);
+        boolean onDisk;
+
+        synchronized (this) {
+            int pixels[] = memory.get(key);
+            if (pixels == null) {
+                pixels = spilling.get(key);
+            }
+            if (pixels != null && pixels.length == out.length) {
+                System.arraycopy(pixels, 0, out, 0, out.length);
+                memoryHits++;
+                return true;
+            }
+
+            onDisk = disk.get(key) != null;
+            if (!onDisk) {
+                misses++;
+                return false;
+            }
+        }
+
+        // Read Outside the Lock, then Promote the Frame Back into Memory
+        if (!readFrame(key, out)) {
+            synchronized (this) {
+                removeDisk(key);
+                misses++;
+            }
+            return false;
+        }
+
+        synchronized (this) {
+            diskHits++;
+            putMemory(key, out.clone());
+        }
+        return true;
+    }
+
+    /*
+     * Adds a Blended Frame to the Cache.
+     *
+     * @param   morph           The hash of the morph
+     * @param   frameCount      The frame number
+     * @param   totalFrames     The total number of frames
+     * @param   pixels          The blended pixels, copied by the cache
+     */
+    public synchronized void put(long morph, int frameCount, int totalFrames, int pixels[]) {
+        putMemory(key(morph, frameCount, totalFrames), pixels.clone());
+    }
+
+    /*
+     * Checks if Every Frame of a Morph is Cached in Either Tier.
+     *
+     * @param   morph           The hash of the morph
+     * @param   totalFrames     The total number of frames
+     * @return                  Whether or not the whole morph can be replayed from the cache
+     */
+    public synchronized boolean containsAll(long morph, int totalFrames) {
+        for (int frame = 1; frame <= totalFrames; frame++) {
+            String key = key(morph, frame, totalFrames);
+            if (!memory.containsKey(key) && !spilling.containsKey(key) && !disk.containsKey(key)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Stores a Frame in Memory and Spills the Least Recently Used Frames Over Budget.
+     */
+    private void putMemory(String key, int pixels[]) {
+        int previous[] = memory.put(key, pixels);
+        if (previous != null) {
+            memoryBytes -= 4L * previous.length;
+        }
+        memoryBytes += 4L * pixels.length;
+
+        Iterator<Map.Entry<String, int[]>> eldest = memory.entrySet().iterator();
+        while (memoryBytes > memoryBudget && eldest.hasNext()) {
+            Map.Entry<String, int[]> entry = eldest.next();
+            if (entry.getKey().equals(key)) {
+                break;
+            }
+            eldest.remove();
+            memoryBytes -= 4L * entry.getValue().length;
+            spill(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /*
+     * Queues a Frame to Be Written to the Disk Tier.
+     */
+    private void spill(String key, int pixels[]) {
+        if (disk.containsKey(key)) {
+            return;
+        }
+
+        spilling.put(key, pixels);
+        writer.execute(() -> {
+            long size = writeFrame(key, pixels);
+            synchronized (this) {
+                spilling.remove(key);
+                if (size > 0) {
+                    disk.put(key, size);
+                    diskBytes += size;
+                    trimDisk();
+                }
+            }
+        });
+    }
+
+    /*
+     * Deletes the Least Recently Used Files Over the Disk Budget.
+     */
+    private void trimDisk() {
+        Iterator<String> eldest = disk.keySet().iterator();
+        while (diskBytes > diskBudget && eldest.hasNext()) {
+            String key = eldest.next();
+            diskBytes -= disk.get(key);
+            eldest.remove();
+            new File(directory, key + SUFFIX).delete();
+        }
+    }
+
+    /*
+     * Forgets and Deletes One File of the Disk Tier.
+     */
+    private void removeDisk(String key) {
+        Long size = disk.remove(key);
+        if (size != null) {
+            diskBytes -= size;
+        }
+        new File(directory, key + SUFFIX).delete();
+    }
+
+    /*
+     * Deflates a Frame to Its File.
+     *
+     * @return      The file size, or 0 if it could not be written
+     */
+    private long writeFrame(String key, int pixels[]) {
+        File file = new File(directory, key + SUFFIX);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new DeflaterOutputStream(new FileOutputStream(file), deflater, 1 << 16)))) {
+            out.writeInt(pixels.length);
+            for (int pixel : pixels) {
+                out.writeInt(pixel);
+            }
+        } catch (IOException e) {
+            System.out.println("Error Writing Cached Frame");
+            file.delete();
+            return 0;
+        } finally {
+            deflater.end();
+        }
+
+        return file.length();
+    }
+
+    /*
+     * Inflates a Frame from Its File.
+     *
+     * @return      Whether or not the file held a frame of the right size
+     */
+    private boolean readFrame(String key, int out[]) {
+        File file = new File(directory, key + SUFFIX);
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(new FileInputStream(file)), 1 << 16))) {
+            if (in.readInt() != out.length) {
+                return false;
+            }
+            for (int i = 0; i < out.length; i++) {
+                out[i] = in.readInt();
+            }
+            file.setLastModified(System.currentTimeMillis());
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /*
+     * Drops Every Frame from Memory. Frames already on disk are kept.
+     */
+    public synchronized void clearMemory() {
+        memory.clear();
+        memoryBytes = 0;
+    }
+
+    /*
+     * Retrieves the Bytes of Frames Held in Memory.
+     */
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    /*
+     * Retrieves the Bytes of Compressed Frames Held on Disk.
+     */
+    public synchronized long getDiskBytes() {
+        return diskBytes;
+    }
+
+    /*
+     * Retrieves the Number of Lookups Served from Memory.
+     */
+    public synchronized long getMemoryHits() {
+        return memoryHits;
+    }
+
+    /*
+     * Retrieves the Number of Lookups Served from Disk.
+     */
+    public synchronized long getDiskHits() {
+        return diskHits;
+    }
+
+    /*
+     * Retrieves the Number of Lookups Neither Tier Could Serve.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
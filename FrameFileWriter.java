@@ -0,0 +1,76 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/*
+ * Subscriber That Writes Each Published Frame to an Image File.
+ *
+ * Asks for one frame at a time, so the publisher renders no further ahead than the
+ * subscriber buffer allows while a frame is being encoded.
+ */
+public class FrameFileWriter implements Flow.Subscriber<MorphFrame> {
+
+    private final File directory;
+    private final String format;
+    private final CompletableFuture<Integer> done = new CompletableFuture<>();
+
+    private Flow.Subscription subscription;
+    private int written = 0;
+
+    /*
+     * Constructor for the Frame File Writer.
+     *
+     * @param   directory   The directory for the frames
+     * @param   format      The image format, such as jpg or png
+     */
+    public FrameFileWriter(File directory, String format) {
+        this.directory = directory;
+        this.format = format;
+    }
+
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    public void onNext(MorphFrame frame) {
+        try {
+            RenderEvents.writeImage(frame.asImage(), format,
+                    new File(directory, "Frame" + frame.getFrameCount() + "." + format), frame.getFrameCount());
+            written++;
+        } catch (IOException e) {
+            subscription.cancel();
+            done.completeExceptionally(e);
+            return;
+        } finally {
+            frame.release();
+        }
+        subscription.request(1);
+    }
+
+    public void onError(Throwable throwable) {
+        done.completeExceptionally(throwable);
+    }
+
+    public void onComplete() {
+        done.complete(written);
+    }
+
+    /*
+     * Retrieves a Future Holding the Number of Frames Written Once the Stream Ends.
+     */
+    public CompletableFuture<Integer> getDone() {
+        return done;
+    }
+}
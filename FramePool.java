@@ -0,0 +1,159 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import java.util.ArrayDeque;
+
+/*
+ * Pool of Reusable Frame Buffers.
+ *
+ * Generating a morph takes two frames per output frame. Returning them here when
+ * the morph is done lets the next morph reuse the same memory instead of asking the
+ * garbage collector for hundreds of megabytes again. Idle buffers stay until they
+ * are trimmed, so owners trim the pool when no morph is left to reuse them.
+ */
+public class FramePool {
+
+    private final boolean offHeap;
+
+    // Idle Buffers, All of the Current Frame Size
+    private final ArrayDeque<FrameBuffer> idle = new ArrayDeque<>();
+    private int width, height;
+
+    // Buffer Accounting
+    private int created = 0;
+    private int inUse = 0;
+
+    /*
+     * Constructor for the Frame Pool.
+     *
+     * @param   offHeap     Whether or not new buffers are allocated outside the Java heap
+     */
+    public FramePool(boolean offHeap) {
+        this.offHeap = offHeap;
+        RenderMetrics.get().register(this);
+    }
+
+    /*
+     * Takes a Buffer from the Pool, Creating One if None is Idle.
+     * Idle buffers of another size are dropped.
+     *
+     * @param   width       The frame width
+     * @param   height      The frame height
+     * @return              The frame buffer
+     */
+    public synchronized FrameBuffer acquire(int width, int height) {
+        if (width != this.width || height != this.height) {
+            idle.clear();
+            this.width = width;
+            this.height = height;
+        }
+
+        inUse++;
+        FrameBuffer buffer = idle.poll();
+        if (buffer == null) {
+            created++;
+            buffer = new FrameBuffer(width, height, offHeap);
+        }
+        return buffer;
+    }
+
+    /*
+     * Returns a Buffer to the Pool.
+     *
+     * @param   buffer      The frame buffer, which must not be used afterwards
+     */
+    public synchronized void release(FrameBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+
+        inUse--;
+        if (buffer.getWidth() == width && buffer.getHeight() == height) {
+            idle.push(buffer);
+        }
+    }
+
+    /*
+     * Returns Every Buffer in an Array to the Pool and Clears the Array.
+     *
+     * @param   buffers     The frame buffers
+     */
+    public synchronized void releaseAll(FrameBuffer buffers[]) {
+        if (buffers == null) {
+            return;
+        }
+
+        for (int i = 0; i < buffers.length; i++) {
+            release(buffers[i]);
+            buffers[i] = null;
+        }
+    }
+
+    /*
+     * Drops Idle Buffers Until at Most the Given Number Remain.
+     * Dropped buffers, including those off the heap, are freed by the garbage
+     * collector once nothing else refers to them.
+     *
+     * @param   keep        The most idle buffers to keep
+     */
+    public synchronized void trim(int keep) {
+        while (idle.size() > keep) {
+            idle.pop();
+        }
+    }
+
+    /*
+     * Retrieves the Bytes of Idle Buffers That Taking Buffers of a Frame Size Would Not Reuse.
+     *
+     * @param   width       The frame width
+     * @param   height      The frame height
+     * @param   buffers     The number of buffers to be taken
+     * @return              The bytes the pool would go on holding besides those buffers
+     */
+    public synchronized long getSpareBytes(int width, int height, int buffers) {
+        int spare = (width == this.width && height == this.height) ? Math.max(0, idle.size() - buffers) : idle.size();
+        return (long) spare * this.width * this.height * 4;
+    }
+
+    /*
+     * Retrieves the Number of Buffers Handed Out and Not Yet Returned.
+     */
+    public synchronized int getInUseCount() {
+        return inUse;
+    }
+
+    /*
+     * Retrieves the Number of Buffers Waiting to Be Reused.
+     */
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    /*
+     * Retrieves the Number of Buffers the Pool Has Allocated.
+     */
+    public synchronized int getCreatedCount() {
+        return created;
+    }
+
+    /*
+     * Retrieves the Bytes Held by Buffers of the Current Frame Size, in Use or Idle.
+     */
+    public synchronized long getPooledBytes() {
+        return (long) (inUse + idle.size()) * width * height * 4;
+    }
+
+    /*
+     * Checks if New Buffers Are Allocated Outside the Java Heap.
+     */
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+}
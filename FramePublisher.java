@@ -0,0 +1,272 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * Publishes the Blended Frames of a Morph as a Reactive Stream.
+ *
+ * Subscribe every consumer, then call start(). One render pass feeds all of them
+ * in frame order. Each subscriber has a small buffer, and rendering waits whenever
+ * any subscriber's buffer is full, so a slow consumer such as an encoder throttles
+ * the renderer instead of frames piling up in memory. Rendering stops early once
+ * every subscriber has cancelled, or when stop() is called.
+ *
+ * The morph window plays its frames and writes them to files as two subscribers
+ * of one publisher.
+ */
+public class FramePublisher implements Flow.Publisher<MorphFrame> {
+
+    /*
+     * Blends One Frame into an Array of Packed Pixels. Called from the publishing thread.
+     */
+    public interface FrameSource {
+        void blend(int frameCount, int totalFrames, int pixels[]);
+    }
+
+    private final FrameSource source;
+    private final int totalFrames;
+    private final int width, height;
+
+    private final ExecutorService delivery = Executors.newCachedThreadPool(IntensityEngine.daemonThreads("frame-delivery"));
+    private final SubmissionPublisher<MorphFrame> publisher;
+
+    // Pixels Released by Every Subscriber, Ready for Another Frame
+    private final ArrayDeque<int[]> spare = new ArrayDeque<>();
+
+    // Subscriptions Not Yet Completed or Cancelled, and Whether Publishing Has Started and Ended, Guarded by this
+    private int activeSubscriptions = 0;
+    private boolean isStarted = false;
+    private boolean isProduced = false;
+
+    private volatile boolean isStopped = false;
+    private Thread producer;
+
+    /*
+     * Constructor for a Frame Publisher That Renders Every Frame.
+     *
+     * @param   renderer        The renderer for the morph
+     * @param   totalFrames     The total number of frames
+     * @param   bufferCapacity  The most frames each subscriber may have waiting
+     */
+    public FramePublisher(MorphRenderer renderer, int totalFrames, int bufferCapacity) {
+        this(rendering(renderer), renderer.getFrameWidth(), renderer.getFrameHeight(), totalFrames, bufferCapacity);
+    }
+
+    /*
+     * Constructor for a Frame Publisher with Its Own Source of Frames.
+     *
+     * @param   source          The source blending each frame
+     * @param   width           The frame width
+     * @param   height          The frame height
+     * @param   totalFrames     The total number of frames
+     * @param   bufferCapacity  The most frames each subscriber may have waiting
+     */
+    public FramePublisher(FrameSource source, int width, int height, int totalFrames, int bufferCapacity) {
+        this.source = source;
+        this.totalFrames = totalFrames;
+        this.width = width;
+        this.height = height;
+        publisher = new SubmissionPublisher<>(delivery, Math.max(1, bufferCapacity));
+    }
+
+    /*
+     * Creates a Source That Renders Both Warps of Each Frame and Blends Them.
+     */
+    private static FrameSource rendering(MorphRenderer renderer) {
+        FramePool pool = new FramePool(false);
+        int width = renderer.getFrameWidth(), height = renderer.getFrameHeight();
+        FrameBuffer startFrame = pool.acquire(width, height);
+        FrameBuffer endFrame = pool.acquire(width, height);
+
+        return (frameCount, totalFrames, pixels) -> {
+            renderer.renderFrame(frameCount, totalFrames, startFrame, endFrame);
+            BlendKernel.blend(startFrame.getPixels(), endFrame.getPixels(), pixels, frameCount, totalFrames);
+        };
+    }
+
+    /*
+     * Adds a Subscriber. Every subscriber must be added before start(), so each
+     * frame's release count covers every subscriber it is delivered to.
+     *
+     * @param   subscriber      The subscriber
+     */
+    public void subscribe(Flow.Subscriber<? super MorphFrame> subscriber) {
+        synchronized (this) {
+            if (isStarted) {
+                throw new IllegalStateException("Frame Publisher Already Started");
+            }
+            activeSubscriptions++;
+        }
+        publisher.subscribe(new Delivery(subscriber));
+    }
+
+    /*
+     * Starts Rendering on a Background Thread.
+     */
+    public synchronized void start() {
+        isStarted = true;
+        producer = IntensityEngine.daemonThreads("frame-publisher").newThread(this::produce);
+        producer.start();
+    }
+
+    /*
+     * Stops Rendering and Waits for the Frame Being Rendered.
+     * Frames already published are still delivered. Cancel any subscriber that is
+     * no longer requesting frames first, or this waits for it.
+     */
+    public void stop() {
+        isStopped = true;
+        Thread running;
+        synchronized (this) {
+            running = producer;
+        }
+        if (running == null || running == Thread.currentThread()) {
+            return;
+        }
+        try {
+            running.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * Renders and Publishes Every Frame, Then Completes the Stream.
+     */
+    private void produce() {
+        try {
+            for (int frame = 1; frame <= totalFrames && !isStopped; frame++) {
+                // No Subscriber Can Join After start(), so None is Missing from the Count
+                int subscribers = publisher.getNumberOfSubscribers();
+                if (subscribers == 0) {
+                    break;
+                }
+
+                int pixels[] = takeSpare();
+                source.blend(frame, totalFrames, pixels);
+
+                // Blocks While Any Subscriber's Buffer is Full
+                publisher.submit(new MorphFrame(this, frame, totalFrames, width, height, pixels, subscribers));
+            }
+            publisher.close();
+        } catch (RuntimeException e) {
+            publisher.closeExceptionally(e);
+        } finally {
+            synchronized (this) {
+                isProduced = true;
+                shutdownIfDone();
+            }
+        }
+    }
+
+    /*
+     * Records that a Subscription Completed, Failed or Was Cancelled.
+     */
+    private synchronized void subscriptionEnded() {
+        activeSubscriptions--;
+        shutdownIfDone();
+    }
+
+    /*
+     * Stops the Delivery Threads Once Nothing More Can Be Published or Requested.
+     */
+    private void shutdownIfDone() {
+        if (isProduced && activeSubscriptions == 0) {
+            delivery.shutdown();
+        }
+    }
+
+    /*
+     * Takes Released Pixels, or Allocates New Ones.
+     */
+    private synchronized int[] takeSpare() {
+        int pixels[] = spare.poll();
+        return (pixels != null) ? pixels : new int[width * height];
+    }
+
+    /*
+     * Takes Back the Pixels of a Frame Every Subscriber Released.
+     */
+    synchronized void recycle(int pixels[]) {
+        spare.push(pixels);
+    }
+
+    /*
+     * Retrieves the Number of Current Subscribers.
+     */
+    public int getSubscriberCount() {
+        return publisher.getNumberOfSubscribers();
+    }
+
+    /*
+     * Retrieves the Total Number of Frames.
+     */
+    public int getTotalFrames() {
+        return totalFrames;
+    }
+
+    /*
+     * Passes Frames to a Subscriber and Notes When Its Subscription Ends.
+     */
+    private class Delivery implements Flow.Subscriber<MorphFrame> {
+
+        private final Flow.Subscriber<? super MorphFrame> subscriber;
+        private final AtomicBoolean isEnded = new AtomicBoolean();
+
+        Delivery(Flow.Subscriber<? super MorphFrame> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        private void ended() {
+            if (isEnded.compareAndSet(false, true)) {
+                subscriptionEnded();
+            }
+        }
+
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                public void request(long n) {
+                    subscription.request(n);
+                }
+
+                public void cancel() {
+                    subscription.cancel();
+                    ended();
+                }
+            });
+        }
+
+        public void onNext(MorphFrame frame) {
+            subscriber.onNext(frame);
+        }
+
+        public void onError(Throwable throwable) {
+            try {
+                subscriber.onError(throwable);
+            } finally {
+                ended();
+            }
+        }
+
+        public void onComplete() {
+            try {
+                subscriber.onComplete();
+            } finally {
+                ended();
+            }
+        }
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/*
+ * Frame Store Backed by a Memory-Mapped Spool File.
+ *
+ * The file is a header followed by one fixed-size slot per frame, each holding the
+ * warped start image and then the warped end image. Frames are read and written
+ * straight through the mapping, so a long morph never sits on the Java heap and a
+ * finished spool can be opened again to replay or export without re-rendering.
+ * The header records the morph hash, so a spool is only reused for the morph it
+ * was rendered from.
+ *
+ * A single mapping cannot exceed 2 GB, so the slots are mapped in regions of as
+ * many whole slots as fit, each region mapped the first time it is touched.
+ */
+public class FrameSpool implements FrameStore {
+
+    // Header Layout
+    private static final int MAGIC = 0x4A4D5350;
+    private static final int VERSION = 2;
+    private static final int HASH_OFFSET = 24;
+    private static final int FLAGS_OFFSET = 32;
+    private static final int PAGE_SIZE = 4096;
+
+    private final File file;
+    private final boolean deleteOnClose;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+
+    private final int width, height, frameCount;
+    private final long morphHash;
+    private final long frameBytes, slotBytes, dataOffset;
+    private final int slotsPerRegion;
+
+    // Header Mapping and Lazily Mapped Slot Regions
+    private MappedByteBuffer header;
+    private MappedByteBuffer regions[];
+
+    /*
+     * Constructor for the Frame Spool.
+     */
+    private FrameSpool(File file, boolean deleteOnClose, RandomAccessFile raf, long morphHash,
+                       int width, int height, int frameCount) throws IOException {
+        this.file = file;
+        this.deleteOnClose = deleteOnClose;
+        this.raf = raf;
+        this.channel = raf.getChannel();
+
+        this.width = width;
+        this.height = height;
+        this.frameCount = frameCount;
+        this.morphHash = morphHash;
+
+        frameBytes = (long) width * height * 4;
+        slotBytes = 2 * frameBytes;
+        if (slotBytes > Integer.MAX_VALUE) {
+            throw new IOException("Frame Too Large to Spool");
+        }
+        dataOffset = headerSize(frameCount);
+        slotsPerRegion = (int) Math.max(1, Integer.MAX_VALUE / slotBytes);
+
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, dataOffset);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        regions = new MappedByteBuffer[(frameCount + slotsPerRegion - 1) / slotsPerRegion];
+    }
+
+    /*
+     * Creates a Spool File, Preallocating a Slot for Every Frame.
+     *
+     * @param   file            The spool file, replaced if it exists
+     * @param   morphHash       The hash of the morph the frames are rendered from
+     * @param   width           The frame width
+     * @param   height          The frame height
+     * @param   frameCount      The number of frames
+     * @param   deleteOnClose   Whether or not to delete the file when the spool is closed
+     * @return                  The spool
+     */
+    public static FrameSpool create(File file, long morphHash, int width, int height, int frameCount,
+                                    boolean deleteOnClose) throws IOException {
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            long length = headerSize(frameCount) + (long) frameCount * 2 * width * height * 4;
+            raf.setLength(0);
+            raf.setLength(length);
+
+            FrameSpool spool = new FrameSpool(file, deleteOnClose, raf, morphHash, width, height, frameCount);
+            spool.header.putInt(0, MAGIC);
+            spool.header.putInt(4, VERSION);
+            spool.header.putInt(8, width);
+            spool.header.putInt(12, height);
+            spool.header.putInt(16, frameCount);
+            spool.header.putLong(HASH_OFFSET, morphHash);
+            return spool;
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    /*
+     * Creates a Spool in a Temporary File Deleted When the Spool is Closed.
+     *
+     * @param   morphHash       The hash of the morph the frames are rendered from
+     * @param   width           The frame width
+     * @param   height          The frame height
+     * @param   frameCount      The number of frames
+     * @return                  The spool
+     */
+    public static FrameSpool createTemporary(long morphHash, int width, int height, int frameCount) throws IOException {
+        File file = File.createTempFile("jmorph", ".spool");
+        file.deleteOnExit();
+        return create(file, morphHash, width, height, frameCount, true);
+    }
+
+    /*
+     * Opens a Spool File if It Holds Frames of the Same Morph, or Creates It Again.
+     * Frames already marked written in a reused spool stay written.
+     *
+     * @param   file            The spool file
+     * @param   morphHash       The hash of the morph the frames are rendered from
+     * @param   width           The frame width
+     * @param   height          The frame height
+     * @param   frameCount      The number of frames
+     * @return                  The spool
+     */
+    public static FrameSpool openOrCreate(File file, long morphHash, int width, int height,
+                                          int frameCount) throws IOException {
+        if (file.isFile()) {
+            try {
+                FrameSpool spool = open(file);
+                if (spool.matches(morphHash, width, height, frameCount)) {
+                    return spool;
+                }
+                spool.close();
+            } catch (IOException e) {
+                // Not a Usable Spool, so Replace It
+            }
+        }
+        return create(file, morphHash, width, height, frameCount, false);
+    }
+
+    /*
+     * Opens an Existing Spool File.
+     *
+     * @param   file        The spool file
+     * @return              The spool
+     */
+    public static FrameSpool open(File file) throws IOException {
+        if (!file.isFile()) {
+            throw new IOException("No Frame Spool: " + file);
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            ByteBuffer fields = ByteBuffer.allocate(FLAGS_OFFSET).order(ByteOrder.LITTLE_ENDIAN);
+            raf.getChannel().read(fields, 0);
+
+            if (fields.getInt(0) != MAGIC || fields.getInt(4) != VERSION) {
+                throw new IOException("Not a Frame Spool: " + file);
+            }
+
+            int width = fields.getInt(8);
+            int height = fields.getInt(12);
+            int frameCount = fields.getInt(16);
+            long morphHash = fields.getLong(HASH_OFFSET);
+            if (raf.length() < headerSize(frameCount) + (long) frameCount * 2 * width * height * 4) {
+                throw new IOException("Frame Spool is Truncated: " + file);
+            }
+
+            return new FrameSpool(file, false, raf, morphHash, width, height, frameCount);
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    /*
+     * Checks if the Spool Holds Frames of a Morph.
+     *
+     * @param   morphHash       The hash of the morph
+     * @param   width           The frame width
+     * @param   height          The frame height
+     * @param   frameCount      The number of frames
+     * @return                  Whether or not the spool's frames belong to the morph
+     */
+    public boolean matches(long morphHash, int width, int height, int frameCount) {
+        return this.morphHash == morphHash && this.width == width && this.height == height
+                && this.frameCount == frameCount;
+    }
+
+    /*
+     * Finds the Header Size, Rounded Up so the Slots Start on a Page.
+     */
+    private static long headerSize(int frameCount) {
+        long size = FLAGS_OFFSET + frameCount;
+        return ((size + PAGE_SIZE - 1) / PAGE_SIZE) * PAGE_SIZE;
+    }
+
+    public FrameBuffer startFrame(int frame) {
+        return frameView(frame, 0);
+    }
+
+    public FrameBuffer endFrame(int frame) {
+        return frameView(frame, frameBytes);
+    }
+
+    /*
+     * Views One Image of a Slot Through the Mapping.
+     */
+    private FrameBuffer frameView(int frame, long offsetInSlot) {
+        if (frame < 0 || frame >= frameCount) {
+            throw new IndexOutOfBoundsException("Frame " + frame + " of " + frameCount);
+        }
+
+        ByteBuffer region = region(frame / slotsPerRegion).duplicate();
+        int start = (int) ((frame % slotsPerRegion) * slotBytes + offsetInSlot);
+        region.position(start);
+        region.limit(start + (int) frameBytes);
+
+        return new FrameBuffer(width, height, region.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer());
+    }
+
+    /*
+     * Maps a Region of Slots the First Time It is Needed.
+     */
+    private synchronized MappedByteBuffer region(int index) {
+        if (regions == null) {
+            throw new IllegalStateException("Frame Spool is Closed");
+        }
+
+        if (regions[index] == null) {
+            int slots = Math.min(slotsPerRegion, frameCount - index * slotsPerRegion);
+            try {
+                regions[index] = channel.map(FileChannel.MapMode.READ_WRITE,
+                        dataOffset + index * slotsPerRegion * slotBytes, slots * slotBytes);
+            } catch (IOException e) {
+                throw new IllegalStateException("Error Mapping Frame Spool", e);
+            }
+        }
+        return regions[index];
+    }
+
+    public synchronized void markWritten(int frame) {
+        header.put(FLAGS_OFFSET + frame, (byte) 1);
+    }
+
+    public synchronized boolean isWritten(int frame) {
+        return header.get(FLAGS_OFFSET + frame) != 0;
+    }
+
+    /*
+     * Counts the Frames Already Rendered into the Spool.
+     *
+     * @return      The number of complete frames
+     */
+    public synchronized int getWrittenCount() {
+        int count = 0;
+        for (int i = 0; i < frameCount; i++) {
+            if (header.get(FLAGS_OFFSET + i) != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /*
+     * Writes Every Changed Page Back to the File.
+     */
+    public synchronized void force() {
+        if (regions == null) {
+            return;
+        }
+        for (MappedByteBuffer region : regions) {
+            if (region != null) {
+                region.force();
+            }
+        }
+        header.force();
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /*
+     * Retrieves the Hash of the Morph the Frames Are Rendered From.
+     */
+    public long getMorphHash() {
+        return morphHash;
+    }
+
+    /*
+     * Retrieves the Spool File.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /*
+     * Closes the Spool, Deleting the File if It Was Temporary.
+     * The mappings are released once the garbage collector finds them unused.
+     */
+    public synchronized void close() {
+        if (regions == null) {
+            return;
+        }
+
+        if (!deleteOnClose) {
+            force();
+        }
+        regions = null;
+        header = null;
+
+        try {
+            raf.close();
+        } catch (IOException e) {
+            System.out.println("Error Closing Frame Spool");
+        }
+
+        if (deleteOnClose) {
+            file.delete();
+        }
+    }
+}
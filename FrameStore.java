@@ -0,0 +1,69 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+/*
+ * Storage for the Warped Start and End Frames of a Generated Morph.
+ *
+ * Frames are numbered from 0. The buffers handed out belong to the store and stay
+ * valid until it is closed.
+ */
+public interface FrameStore {
+
+    /*
+     * Retrieves the Warped Start Image of a Frame.
+     *
+     * @param   frame       The frame index
+     * @return              The frame buffer
+     */
+    FrameBuffer startFrame(int frame);
+
+    /*
+     * Retrieves the Warped End Image of a Frame.
+     *
+     * @param   frame       The frame index
+     * @return              The frame buffer
+     */
+    FrameBuffer endFrame(int frame);
+
+    /*
+     * Records that Both Images of a Frame Have Been Rendered.
+     *
+     * @param   frame       The frame index
+     */
+    void markWritten(int frame);
+
+    /*
+     * Checks if Both Images of a Frame Have Been Rendered.
+     *
+     * @param   frame       The frame index
+     * @return              Whether or not the frame is complete
+     */
+    boolean isWritten(int frame);
+
+    /*
+     * Retrieves the Number of Frames the Store Holds.
+     */
+    int getFrameCount();
+
+    /*
+     * Retrieves the Frame Width.
+     */
+    int getWidth();
+
+    /*
+     * Retrieves the Frame Height.
+     */
+    int getHeight();
+
+    /*
+     * Releases the Frames. The store must not be used afterwards.
+     */
+    void close();
+}
@@ -0,0 +1,400 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Regression Check of Rendered Morphs Against Stored Golden Frames.
+ *
+ * A fixed set of reference morphs, each with set images, meshes, intensities,
+ * frames per second and seconds, is rendered through every path the application
+ * has: the morph view's heap and off-heap frame stores, the spool file, and the
+ * multi-threaded export pipeline. Every frame is compared to the golden frame
+ * stored for it, and each path is timed, so one run shows whether a rewrite of the
+ * warp, blend or intensity code still gives the same pixels and how fast it is.
+ * Morphs with a brightness change also run it through the image view and its
+ * intensity engine, as the sliders do.
+ *
+ * Golden frames are lossless PNG files in golden/<morph>/Frame<n>.png. Running with
+ * --record renders them again with ReferenceMorph, the original Java2D warp and
+ * AlphaComposite blend, so they never come from the code being checked. Bicubic
+ * Java2D sampling and the renderer's bilinear sampling differ by a few levels,
+ * which the default tolerance allows for.
+ */
+public class GoldenFrames {
+
+    private static final String PATHS[] = {"heap", "offheap", "spool", "pipeline"};
+
+    // Largest Channel Difference Between Java2D and the Renderer's Sampling
+    private static final int DEFAULT_TOLERANCE = 16;
+
+    private final File directory;
+    private final int tolerance, threads;
+
+    /*
+     * Constructor for the Golden Frames Check.
+     *
+     * @param   directory   The folder holding a folder of golden frames per morph
+     * @param   tolerance   The largest difference allowed in any color channel
+     * @param   threads     The number of threads the pipeline path uses
+     */
+    public GoldenFrames(File directory, int tolerance, int threads) {
+        this.directory = directory;
+        this.tolerance = tolerance;
+        this.threads = threads;
+    }
+
+    /*
+     * Runs the Check from the Command Line.
+     * Usage: java JMorph --golden [--record] [--dir golden] [--tolerance n] [--threads n]
+     *
+     * @return      The exit status, 0 when every frame of every path matches
+     */
+    public static int run(String arg[]) {
+        System.setProperty("java.awt.headless", "true");
+
+        File directory = new File("golden");
+        int tolerance = DEFAULT_TOLERANCE;
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        boolean record = false;
+
+        try {
+            for (int i = 1; i < arg.length; i++) {
+                if (arg[i].equals("--record")) {
+                    record = true;
+                }
+                else if (arg[i].equals("--dir") && i + 1 < arg.length) {
+                    directory = new File(arg[++i]);
+                }
+                else if (arg[i].equals("--tolerance") && i + 1 < arg.length) {
+                    tolerance = Integer.parseInt(arg[++i]);
+                }
+                else if (arg[i].equals("--threads") && i + 1 < arg.length) {
+                    threads = Integer.parseInt(arg[++i]);
+                }
+                else {
+                    throw new IllegalArgumentException(arg[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("Usage: java JMorph --golden [--record] [--dir golden] [--tolerance n] [--threads n]");
+            return 2;
+        }
+
+        GoldenFrames golden = new GoldenFrames(directory, Math.max(0, tolerance), Math.max(1, threads));
+        try {
+            boolean passed = true;
+            for (Reference reference : references()) {
+                if (record) {
+                    golden.record(reference);
+                }
+                else {
+                    passed &= golden.check(reference);
+                }
+            }
+            if (!record) {
+                System.out.println(passed ? "All Frames Match" : "Frames Differ from the Golden Frames");
+            }
+            return passed ? 0 : 1;
+        } catch (IOException e) {
+            System.out.println("Error Checking Golden Frames: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /*
+     * Creates the Reference Morphs.
+     * Changing any of them means recording the golden frames again.
+     */
+    private static List<Reference> references() throws IOException {
+        List<Reference> references = new ArrayList<>();
+
+        BufferedImage barack = bundledImage("res/Barack.jpg");
+        BufferedImage michelle = bundledImage("res/Michelle.jpg");
+        references.add(new Reference("bundled", barack, michelle, 1.0f, 1.0f, 8, 8, 3, 1));
+
+        // Brightness Changes Go Through the Intensity Tables and Saturate
+        references.add(new Reference("intensity", SyntheticMorph.image(240, 180, 11),
+                SyntheticMorph.image(240, 180, 12), 1.6f, 0.4f, 4, 4, 4, 1));
+
+        // Many Small Triangles, Some Narrower than a Pixel
+        references.add(new Reference("dense", SyntheticMorph.image(320, 200, 21),
+                SyntheticMorph.image(320, 200, 22), 1.0f, 1.0f, 30, 25, 2, 2));
+
+        // Start and End Images of Different Sizes
+        references.add(new Reference("sizes", SyntheticMorph.image(300, 200, 31),
+                SyntheticMorph.image(200, 260, 32), 0.8f, 1.2f, 6, 5, 4, 1));
+
+        return references;
+    }
+
+    /*
+     * Reads One of the Bundled Images from the Class Path.
+     */
+    private static BufferedImage bundledImage(String name) throws IOException {
+        URL url = GoldenFrames.class.getResource(name);
+        if (url == null) {
+            throw new IOException("Bundled Image Not Found: " + name);
+        }
+        return ImageView.toIntRGB(ImageIO.read(url));
+    }
+
+    /*
+     * Renders the Golden Frames of a Reference Morph and Saves Them.
+     */
+    private void record(Reference reference) throws IOException {
+        File folder = new File(directory, reference.name);
+        folder.mkdirs();
+        if (!folder.isDirectory()) {
+            throw new IOException("Couldn't Create Folder: " + folder);
+        }
+
+        ReferenceMorph morph = reference.createReference();
+        long began = System.nanoTime();
+        for (int frame = 1; frame <= reference.totalFrames; frame++) {
+            ImageIO.write(morph.renderFrame(frame, reference.totalFrames), "png", goldenFile(reference, frame));
+        }
+        double frameMillis = (System.nanoTime() - began) / 1e6 / reference.totalFrames;
+
+        System.out.println(String.format("Recorded %-10s %3d frames %9.2f ms/frame",
+                reference.name, reference.totalFrames, frameMillis));
+    }
+
+    /*
+     * Renders a Reference Morph Through Every Path and Compares Each to the Golden Frames.
+     *
+     * @return      True if every frame of every path is within the tolerance
+     */
+    private boolean check(Reference reference) throws IOException {
+        int golden[][] = new int[reference.totalFrames][];
+        for (int i = 0; i < golden.length; i++) {
+            File file = goldenFile(reference, i + 1);
+            BufferedImage image = file.isFile() ? ImageIO.read(file) : null;
+            if (image == null) {
+                System.out.println(String.format("%-10s missing golden frame %s, run with --record",
+                        reference.name, file));
+                return false;
+            }
+            golden[i] = IntensityEngine.pixels(ImageView.toIntRGB(image));
+        }
+
+        MorphRenderer renderer = reference.createRenderer();
+        boolean passed = true;
+        for (String path : PATHS) {
+            long began = System.nanoTime();
+            int frames[][] = path.equals("pipeline") ? renderPipeline(renderer, reference.totalFrames)
+                    : renderStore(renderer, reference.totalFrames, path);
+            double frameMillis = (System.nanoTime() - began) / 1e6 / reference.totalFrames;
+
+            // Largest Channel Difference, and Pixels Beyond the Tolerance, over All Frames
+            Difference difference = new Difference();
+            for (int i = 0; i < frames.length; i++) {
+                if (frames[i] == null || frames[i].length != golden[i].length) {
+                    difference.addMissing(golden[i].length);
+                    continue;
+                }
+                for (int p = 0; p < golden[i].length; p++) {
+                    difference.add(frames[i][p], golden[i][p]);
+                }
+            }
+
+            passed &= report(reference, path, reference.totalFrames, "frames", frameMillis, difference);
+        }
+
+        if (reference.startIntensity != 1f || reference.endIntensity != 1f) {
+            passed &= checkIntensity(reference);
+        }
+        return passed;
+    }
+
+    /*
+     * Changes the Brightness of the Reference Images Through Image Views, as the
+     * Sliders Do, and Compares the Shown Region and the Full Size Image the Morph is
+     * Saved From to the Reference Brightness Change.
+     *
+     * @return      True if every pixel is within the tolerance
+     */
+    private boolean checkIntensity(Reference reference) throws IOException {
+        BufferedImage images[] = {reference.startImage, reference.endImage};
+        float intensities[] = {reference.startIntensity, reference.endIntensity};
+
+        Difference difference = new Difference();
+        long began = System.nanoTime();
+        for (int i = 0; i < images.length; i++) {
+            BufferedImage expected = ReferenceMorph.changeIntensity(images[i], intensities[i]);
+            ImageView view = new ImageView(images[i], 1, 1);
+            float intensity = intensities[i];
+
+            try {
+                // Applied Off the Event Thread, Then Swapped in on It
+                SwingUtilities.invokeAndWait(() -> view.changeIntensity(intensity));
+                view.awaitIntensity();
+            } catch (InterruptedException | InvocationTargetException e) {
+                throw new IOException("Couldn't Change Intensity: " + e);
+            }
+
+            BufferedImage shown = view.getImage();
+            BufferedImage adjusted = view.getAdjustedImage();
+            for (int y = 0; y < expected.getHeight(); y++) {
+                for (int x = 0; x < expected.getWidth(); x++) {
+                    if (x < shown.getWidth() && y < shown.getHeight()) {
+                        difference.add(shown.getRGB(x, y), expected.getRGB(x, y));
+                    }
+                    difference.add(adjusted.getRGB(x, y), expected.getRGB(x, y));
+                }
+            }
+        }
+        double imageMillis = (System.nanoTime() - began) / 1e6 / images.length;
+
+        return report(reference, "intensity", images.length, "images", imageMillis, difference);
+    }
+
+    /*
+     * Prints the Result of One Path.
+     *
+     * @return      True if no pixel is beyond the tolerance
+     */
+    private boolean report(Reference reference, String path, int count, String unit, double millis,
+                           Difference difference) {
+        boolean matches = difference.failedPixels == 0;
+        System.out.println(String.format("%-10s %-9s %3d %-6s %9.2f ms each  max diff %3d  %8d pixels over  %s",
+                reference.name, path, count, unit, millis, difference.maxDifference, difference.failedPixels,
+                matches ? "ok" : "FAILED"));
+        return matches;
+    }
+
+    /*
+     * Renders Every Frame into a Frame Store and Blends It as the Morph View Does.
+     *
+     * @param   path    heap, offheap or spool
+     */
+    private static int[][] renderStore(MorphRenderer renderer, int totalFrames, String path) throws IOException {
+        int width = renderer.getFrameWidth(), height = renderer.getFrameHeight();
+        FrameStore store = path.equals("spool") ? FrameSpool.createTemporary(renderer.getMorphHash(), width, height, totalFrames)
+                : new PooledFrameStore(new FramePool(path.equals("offheap")), width, height, totalFrames);
+
+        int frames[][] = new int[totalFrames][];
+        try {
+            for (int i = 0; i < totalFrames; i++) {
+                renderer.renderFrame(i + 1, totalFrames, store.startFrame(i), store.endFrame(i));
+                store.markWritten(i);
+            }
+            for (int i = 0; i < totalFrames; i++) {
+                frames[i] = new int[width * height];
+                BlendKernel.blend(store.startFrame(i).getPixels(), store.endFrame(i).getPixels(),
+                        frames[i], i + 1, totalFrames);
+            }
+        } finally {
+            store.close();
+        }
+        return frames;
+    }
+
+    /*
+     * Renders Every Frame Through the Multi-Threaded Export Pipeline.
+     */
+    private int[][] renderPipeline(MorphRenderer renderer, int totalFrames) throws IOException {
+        List<Integer> frameNumbers = new ArrayList<>();
+        for (int frame = 1; frame <= totalFrames; frame++) {
+            frameNumbers.add(frame);
+        }
+
+        int frames[][] = new int[totalFrames][];
+        RenderPipeline.forThreads(renderer, totalFrames, threads).run(frameNumbers, (frame, image) -> {
+            // The Pipeline Reuses the Image Once This Returns
+            frames[frame - 1] = IntensityEngine.pixels(image).clone();
+        });
+        return frames;
+    }
+
+    /*
+     * Largest Channel Difference, and Pixels Beyond the Tolerance, over Many Pixels.
+     */
+    private class Difference {
+
+        private int maxDifference = 0;
+        private long failedPixels = 0;
+
+        /*
+         * Compares a Rendered Pixel to its Golden Pixel in Each Color Channel.
+         */
+        void add(int a, int b) {
+            int red = Math.abs(((a >> 16) & 0xFF) - ((b >> 16) & 0xFF));
+            int green = Math.abs(((a >> 8) & 0xFF) - ((b >> 8) & 0xFF));
+            int blue = Math.abs((a & 0xFF) - (b & 0xFF));
+            int difference = Math.max(red, Math.max(green, blue));
+
+            maxDifference = Math.max(maxDifference, difference);
+            if (difference > tolerance) {
+                failedPixels++;
+            }
+        }
+
+        /*
+         * Counts Pixels That Were Never Rendered as Failed.
+         */
+        void addMissing(int count) {
+            maxDifference = 255;
+            failedPixels += count;
+        }
+    }
+
+    /*
+     * Retrieves the Golden Frame File for a Frame of a Reference Morph.
+     */
+    private File goldenFile(Reference reference, int frame) {
+        return new File(new File(directory, reference.name), "Frame" + frame + ".png");
+    }
+
+    /*
+     * A Reference Morph: Fixed Images, Meshes, Intensities and Length.
+     */
+    private static class Reference {
+
+        private final String name;
+        private final BufferedImage startImage, endImage;
+        private final float startIntensity, endIntensity;
+        private final MorphMesh startMesh, endMesh;
+        private final MorphJob job;
+        private final int totalFrames;
+
+        Reference(String name, BufferedImage startImage, BufferedImage endImage,
+                  float startIntensity, float endIntensity, int columns, int rows, int framesPerSecond, int seconds) {
+            this.name = name;
+            this.startImage = startImage;
+            this.endImage = endImage;
+            this.startIntensity = startIntensity;
+            this.endIntensity = endIntensity;
+
+            // Fixed Seeds, so the Meshes Never Change
+            startMesh = SyntheticMorph.mesh(startImage.getWidth(), startImage.getHeight(), columns, rows, 0.9, 1);
+            endMesh = SyntheticMorph.mesh(endImage.getWidth(), endImage.getHeight(), columns, rows, 0.9, 2);
+            job = new MorphJob(null, startIntensity, startMesh, null, endIntensity, endMesh,
+                    framesPerSecond, seconds, null, "png");
+            totalFrames = job.getTotalFrames();
+        }
+
+        MorphRenderer createRenderer() {
+            return job.createRenderer(startImage, endImage);
+        }
+
+        ReferenceMorph createReference() {
+            return new ReferenceMorph(startImage, startIntensity, startMesh, endImage, endIntensity, endMesh);
+        }
+    }
+}
@@ -8,7 +8,6 @@
  *
  */
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
@@ -23,9 +22,10 @@ import java.io.IOException;
 public class ImageView extends JLabel {
 
     // Constants
-    private final static int MAX_ROWS = 30;
-    private final static int MAX_COLUMNS = 50;
+    final static int MAX_ROWS = 30;
+    final static int MAX_COLUMNS = 50;
     private final static int IMAGE_WIDTH = 600;
+    private final static int DIRTY_PADDING = 6;
 
     private final static int BOUNDARY_POINT_X[] = {0, -1, -1, 0, 1, 1};
     private final static int BOUNDARY_POINT_Y[] = {-1, -1,  0, 1, 1, 0};
@@ -39,9 +39,18 @@ public class ImageView extends JLabel {
     // Instance Variables to Hold the Buffered Image and Control Points
     private BufferedImage bim = null;
     private BufferedImage originalBim = null;
+    private IntensityEngine intensityEngine = new IntensityEngine(this);
+    private float intensity = 1f;
     private ControlPoint controlPoints[][] = new ControlPoint[MAX_COLUMNS + 2][MAX_ROWS + 2];
     private int rows, columns;
 
+    // Scratch Space for the Neighbourhood Polygon
+    private int boundaryXCoordinates[] = new int[BOUNDARY_POINT_X_TOP_RIGHT.length];
+    private int boundaryYCoordinates[] = new int[BOUNDARY_POINT_X_TOP_RIGHT.length];
+
+    // Spatial Index Over the Movable Control Points
+    private ControlPointIndex controlPointIndex = new ControlPointIndex(IMAGE_WIDTH, MAX_COLUMNS, MAX_ROWS);
+
     // The Primary Color for the Control Points
     private static Color controlPointsColor = Color.BLACK;
 
@@ -50,6 +59,21 @@ public class ImageView extends JLabel {
     private boolean drawGroupMoveBox = false;
     private boolean drawControlPoints = true;
 
+    // Cached Grid Overlay Holding the Lines and Points That Are Not Moving
+    private BufferedImage gridLinesOverlay = null;
+    private BufferedImage controlPointsOverlay = null;
+    private boolean gridOverlayValid = false;
+
+    // Control Points Being Moved, Drawn Live Over the Cached Overlay
+    private ControlPoint activeControlPoints[] = new ControlPoint[0];
+    private boolean isActive[][] = new boolean[MAX_COLUMNS + 2][MAX_ROWS + 2];
+
+    // Region of the View Touched by the Last Move
+    private Rectangle dirtyRegion = new Rectangle();
+
+    // Playback Timing Drawn over the Image, or Null When Hidden
+    private PlaybackStats playbackStats = null;
+
     /*
      * The Constructor for the ImageView Class.
      *
@@ -64,8 +88,8 @@ public class ImageView extends JLabel {
         this.columns = columns;
 
         setPreferredSize(new Dimension(IMAGE_WIDTH, IMAGE_WIDTH));
-        bim = deepCopy(img);
-        originalBim = img;
+        originalBim = toIntRGB(img);
+        bim = originalBim;
 
         // Setup the Image View Control Points
         setupControlPoints();
@@ -76,6 +100,7 @@ public class ImageView extends JLabel {
 
     /*
      * The Constructor for the Morph ImageView Class.
+     * The view shows the image itself, without copying it.
      *
      * @param   img             The Image
      * @param   rows            The number of control point rows
@@ -89,7 +114,7 @@ public class ImageView extends JLabel {
         this.columns = columns;
 
         setPreferredSize(new Dimension(IMAGE_WIDTH, IMAGE_WIDTH));
-        bim = deepCopy(img);
+        bim = img;
         originalBim = img;
 
         for (int xi = 0; xi < columns + 2; xi++) {
@@ -97,6 +122,7 @@ public class ImageView extends JLabel {
                 this.controlPoints[xi][yi] = controlPoints[xi][yi].duplicate();
             }
         }
+        controlPointIndex.rebuild(this.controlPoints, columns, rows);
         drawControlPoints = false;
         this.repaint();
     }
@@ -119,6 +145,9 @@ public class ImageView extends JLabel {
                 controlPoints[xi][yi].changeColor(controlPointsColor);
             }
         }
+        controlPointIndex.rebuild(controlPoints, columns, rows);
+        clearActiveFlags();
+        invalidateGridOverlay();
 
         this.repaint();
     }
@@ -150,11 +179,31 @@ public class ImageView extends JLabel {
         // Error Checking
         if (img == null) return;
 
-        originalBim = img;
-        bim = deepCopy(img);
+        intensityEngine.cancel();
+        originalBim = toIntRGB(img);
+        bim = originalBim;
+
+        // Keep the Current Intensity for the New Image
+        changeIntensity(intensity);
+
+        // Repaint the View
+        this.repaint();
+    }
+
+    /*
+     * Replaces the Displayed Image Without Copying It.
+     *
+     * @param   img     The Image to Show
+     * @return          The previously shown image
+     */
+    BufferedImage swapImage(BufferedImage img) {
+        BufferedImage previous = bim;
+        bim = img;
 
         // Repaint the View
         this.repaint();
+
+        return previous;
     }
 
     /*
@@ -167,7 +216,7 @@ public class ImageView extends JLabel {
         if (returnVal == JFileChooser.APPROVE_OPTION) {
             File file = fc.getSelectedFile();
             try {
-                bim = ImageIO.read(file);
+                bim = RenderEvents.readImage(file);
             } catch (IOException e1) {
             }
 
@@ -198,14 +247,60 @@ public class ImageView extends JLabel {
      * @param   p       The point clicked in
      */
     public ControlPoint whichControlPoint(Point p) {
-        for (int xi = 1; xi < (columns + 1); xi++) {
-            for (int yi = 1; yi < (rows + 1); yi++) {
-                if (controlPoints[xi][yi].getControlPointSquare().contains(p)) {
-                    return controlPoints[xi][yi];
-                }
+        return controlPointIndex.pointAt(p);
+    }
+
+    /*
+     * Moves a Control Point and Keeps the Spatial Index in Step.
+     *
+     * @param   controlPoint        The control point to move
+     * @param   x                   The new x-coordinate
+     * @param   y                   The new y-coordinate
+     */
+    public void moveControlPoint(ControlPoint controlPoint, double x, double y) {
+        dirtyRegion.setBounds(controlPoint.getControlPointSquare().getBounds());
+        changeControlPoint(controlPoint, x, y);
+        repaintDirtyRegion();
+    }
+
+    /*
+     * Moves a Control Point and Adds its Neighbourhood to the Dirty Region.
+     *
+     * @param   controlPoint        The control point to move
+     * @param   x                   The new x-coordinate
+     * @param   y                   The new y-coordinate
+     */
+    private void changeControlPoint(ControlPoint controlPoint, double x, double y) {
+
+        // Cover the Old Location and the Surrounding Triangles
+        addNeighbourhoodToDirtyRegion(controlPoint);
+
+        controlPoint.changePoint(x, y);
+        controlPointIndex.update(controlPoint);
+
+        // Cover the New Location
+        addNeighbourhoodToDirtyRegion(controlPoint);
+
+        // Points Outside the Active Set Live in the Cached Overlay
+        if (!isActive[controlPoint.getX()][controlPoint.getY()]) {
+            invalidateGridOverlay();
+        }
+    }
+
+    /*
+     * Grows the Dirty Region to Cover a Control Point and its Eight Neighbours.
+     *
+     * @param   controlPoint        The control point
+     */
+    private void addNeighbourhoodToDirtyRegion(ControlPoint controlPoint) {
+        int x = controlPoint.getX();
+        int y = controlPoint.getY();
+
+        for (int xi = x - 1; xi <= x + 1; xi++) {
+            for (int yi = y - 1; yi <= y + 1; yi++) {
+                dirtyRegion.add((int) controlPoints[xi][yi].getXCoordinate(), (int) controlPoints[xi][yi].getYCoordinate());
             }
         }
-        return null;
     }
 
     /*
@@ -239,53 +334,70 @@ public class ImageView extends JLabel {
                 controlPoints[xi][yi].changeColor(color);
             }
         }
+        invalidateGridOverlay();
         repaint();
     }
 
     /*
      * Changes the intensity of the given image.
+     * The original image is left untouched; the change is applied to the visible
+     * region for display and to each source sample when a morph is rendered.
      *
      * @param   percentage      The percentage to change
      */
     public void changeIntensity(float percentage) {
 
+        intensity = percentage;
+
         if (originalBim == null) {
             return;
         }
 
-        int[] pixel = { 0, 0, 0, 0 };
-        float[] hsbvals = { 0, 0, 0 };
-
-        /*RescaleOp op = new RescaleOp(percentage, 0, null);
-        BufferedImage bufferedImage = op.filter(originalBim, originalBim); */
-
-        // https://stackoverflow.com/questions/46797579/how-can-i-control-the-brightness-of-an-image
-        for ( int i = 0; i < originalBim.getHeight(); i++ ) {
-            for ( int j = 0; j < originalBim.getWidth(); j++ ) {
-
-                // get the pixel data
-                originalBim.getRaster().getPixel( j, i, pixel );
-
-                // converts its data to hsb to change brightness
-                Color.RGBtoHSB( pixel[0], pixel[1], pixel[2], hsbvals );
-
-                // calculates the brightness component.
-                float newBrightness = hsbvals[2] * percentage;
-                if ( newBrightness > 1f ) {
-                    newBrightness = 1f;
-                }
+        if (intensity == 1f) {
+            intensityEngine.cancel();
+            swapImage(originalBim);
+        }
+        else {
+            // Adjusted Off the Event Thread, Shown Through swapImage
+            intensityEngine.submit(originalBim, intensity, IMAGE_WIDTH, IMAGE_WIDTH);
+        }
+    }
 
-                // create a new color with the new brightness
-                Color c = new Color( Color.HSBtoRGB( hsbvals[0], hsbvals[1], newBrightness ) );
+    /*
+     * Waits Until the Latest Intensity Change is Shown.
+     */
+    void awaitIntensity() throws InterruptedException {
+        intensityEngine.awaitIdle();
+    }
 
-                // set the new pixel
-                bim.getRaster().setPixel( j, i, new int[]{ c.getRed(), c.getGreen(), c.getBlue(), pixel[3] } );
+    /*
+     * Retrieves the Intensity Applied to the Original Image.
+     *
+     * @return      The brightness multiplier
+     */
+    public float getIntensity() {
+        return intensity;
+    }
 
-            }
+    /*
+     * Retrieves the Original Image Before Any Intensity Change.
+     *
+     * @return      The original image, of type TYPE_INT_RGB
+     */
+    public BufferedImage getOriginalImage() {
+        return originalBim;
+    }
 
+    /*
+     * Creates the Full Size Image with the Intensity Change Applied.
+     *
+     * @return      The adjusted image, or the original if there is no change
+     */
+    public BufferedImage getAdjustedImage() {
+        if (intensity == 1f) {
+            return originalBim;
         }
-
-        setImage(bim);
+        return IntensityEngine.adjustedCopy(originalBim, intensity);
     }
 
     /*
@@ -310,7 +422,7 @@ public class ImageView extends JLabel {
      */
     public Point constrainPoint(ControlPoint controlPoint, Point p) {
 
-        if (insideBounds(controlPoint, p)) {
+        if (insideBounds(controlPoint, p.getX(), p.getY())) {
             return p;
         }
 
@@ -318,90 +430,143 @@ public class ImageView extends JLabel {
     }
 
     /*
-     * Constrains a Given List of Points.
+     * Moves a Given List of Points if Every Point Stays Inside its Bounds.
      *
      * @param   controlPoints       The given control point list
      * @param   changeInX           The change in X location
      * @param   changeInY           The change in Y location
-     * @return                      The new list of control point locations
+     * @return                      Whether or not the points were moved
      */
-    public Point[] constrainPoints(ControlPoint controlPoints[], double changeInX, double changeInY) {
-
-        Point newPoints[] = new Point[controlPoints.length];
+    public boolean moveControlPoints(ControlPoint controlPoints[], double changeInX, double changeInY) {
 
+        // Check Every Point Against its Neighbours Before Moving Any
         int i = 0;
         while (i < controlPoints.length && controlPoints[i] != null) {
-            Point newPoint = new Point((int) (controlPoints[i].getXCoordinate() + changeInX), (int) (controlPoints[i].getYCoordinate() + changeInY));
-            newPoints[i] = newPoint;
+            double x = (int) (controlPoints[i].getXCoordinate() + changeInX);
+            double y = (int) (controlPoints[i].getYCoordinate() + changeInY);
 
-            if (!insideBounds(controlPoints[i], newPoint)) {
-                return null;
+            if (!insideBounds(controlPoints[i], x, y)) {
+                return false;
             }
             i++;
         }
 
-        return newPoints;
+        // Move the Points
+        if (controlPoints.length > 0 && controlPoints[0] != null) {
+            dirtyRegion.setBounds(controlPoints[0].getControlPointSquare().getBounds());
+        }
+
+        i = 0;
+        while (i < controlPoints.length && controlPoints[i] != null) {
+            double x = (int) (controlPoints[i].getXCoordinate() + changeInX);
+            double y = (int) (controlPoints[i].getYCoordinate() + changeInY);
+
+            changeControlPoint(controlPoints[i], x, y);
+            i++;
+        }
+
+        repaintDirtyRegion();
+
+        return true;
     }
 
     /*
      * Checks if a control point is inside its bounds
      *
      * @param   controlPoint        The given control point
-     * @param   p                   The point to check
+     * @param   px                  The x-coordinate to check
+     * @param   py                  The y-coordinate to check
      * @return                      Whether or not the point is inside its bounds
      */
-    private boolean insideBounds(ControlPoint controlPoint, Point p) {
+    private boolean insideBounds(ControlPoint controlPoint, double px, double py) {
 
         // Determine Where in Grid Control Point Is
         int x = controlPoint.getX();
         int y = controlPoint.getY();
 
-        // Create Polygon
-        int boundaryPointCount = BOUNDARY_POINT_X_TOP_RIGHT.length;
-        int xBoundaryPointCoordinates[] = new int[boundaryPointCount];
-        int yBoundaryPointCoordinates[] = new int[boundaryPointCount];
+        // Pick the Neighbour Offsets
+        int offsetX[] = BOUNDARY_POINT_X;
+        int offsetY[] = BOUNDARY_POINT_Y;
 
         // Check If Control Point is Top Right or Bottom Left
-        if (((x == columns) && (y == 1))
-                || ((x == 1) && (y == rows))) {
+        if ((x == columns) && (y == 1)) {
+            offsetX = BOUNDARY_POINT_X_TOP_RIGHT;
+            offsetY = BOUNDARY_POINT_Y_TOP_RIGHT;
+        }
+        else if ((x == 1) && (y == rows)) {
+            offsetX = BOUNDARY_POINT_X_BOTTOM_LEFT;
+            offsetY = BOUNDARY_POINT_Y_BOTTOM_LEFT;
+        }
 
-            if (x == columns) {
+        // Add the Boundary Points
+        for (int i = 0; i < offsetX.length; i++) {
+            ControlPoint neighbour = controlPoints[x + offsetX[i]][y + offsetY[i]];
+            boundaryXCoordinates[i] = (int) neighbour.getXCoordinate();
+            boundaryYCoordinates[i] = (int) neighbour.getYCoordinate();
+        }
 
-                // Add the Boundary Points for Top Right Control Point
-                for (int i = 0; i < BOUNDARY_POINT_X_TOP_RIGHT.length; i++) {
-                    int x1 = x + BOUNDARY_POINT_X_TOP_RIGHT[i];
-                    int y1 = y + BOUNDARY_POINT_Y_TOP_RIGHT[i];
-                    xBoundaryPointCoordinates[i] = (int) controlPoints[x1][y1].getXCoordinate();
-                    yBoundaryPointCoordinates[i] = (int) controlPoints[x1][y1].getYCoordinate();
-                }
+        return polygonContains(boundaryXCoordinates, boundaryYCoordinates, offsetX.length, px, py);
+    }
 
-            }
-            else {
-
-                // Add the Boundary Points for Bottom Left Control Point
-                for (int i = 0; i < BOUNDARY_POINT_X_BOTTOM_LEFT.length; i++) {
-                    int x1 = x + BOUNDARY_POINT_X_BOTTOM_LEFT[i];
-                    int y1 = y + BOUNDARY_POINT_Y_BOTTOM_LEFT[i];
-                    xBoundaryPointCoordinates[i] = (int) controlPoints[x1][y1].getXCoordinate();
-                    yBoundaryPointCoordinates[i] = (int) controlPoints[x1][y1].getYCoordinate();
+    /*
+     * Checks if a Point is Inside a Polygon Using the Even-Odd Rule.
+     * Follows the same crossing test as java.awt.Polygon.contains.
+     *
+     * @param   xPoints     The x-coordinates of the polygon
+     * @param   yPoints     The y-coordinates of the polygon
+     * @param   count       The number of polygon points
+     * @param   x           The x-coordinate to check
+     * @param   y           The y-coordinate to check
+     * @return              Whether or not the point is inside
+     */
+    private static boolean polygonContains(int xPoints[], int yPoints[], int count, double x, double y) {
+
+        int hits = 0;
+        int lastX = xPoints[count - 1];
+        int lastY = yPoints[count - 1];
+
+        for (int i = 0; i < count; i++) {
+            int curX = xPoints[i];
+            int curY = yPoints[i];
+
+            if (curY != lastY) {
+                int leftX;
+                boolean crossing = true;
+
+                if (curX < lastX) {
+                    crossing = x < lastX;
+                    leftX = curX;
                 }
-            }
-        }
-        else {
+                else {
+                    crossing = x < curX;
+                    leftX = lastX;
+                }
+
+                if (crossing) {
+                    double test1, test2;
 
-            boundaryPointCount = BOUNDARY_POINT_X.length;
+                    if (curY < lastY) {
+                        crossing = (y >= curY) && (y < lastY);
+                        test1 = x - curX;
+                        test2 = y - curY;
+                    }
+                    else {
+                        crossing = (y >= lastY) && (y < curY);
+                        test1 = x - lastX;
+                        test2 = y - lastY;
+                    }
 
-            // Add the Boundary Points
-            for (int i = 0; i < BOUNDARY_POINT_X.length; i++) {
-                int x1 = x + BOUNDARY_POINT_X[i];
-                int y1 = y + BOUNDARY_POINT_Y[i];
-                xBoundaryPointCoordinates[i] = (int) controlPoints[x1][y1].getXCoordinate();
-                yBoundaryPointCoordinates[i] = (int) controlPoints[x1][y1].getYCoordinate();
+                    if (crossing && ((x < leftX) || (test1 < (test2 / (lastY - curY) * (lastX - curX))))) {
+                        hits++;
+                    }
+                }
             }
+
+            lastX = curX;
+            lastY = curY;
         }
 
-        Polygon boundingBox = new Polygon(xBoundaryPointCoordinates, yBoundaryPointCoordinates, boundaryPointCount);
-        return boundingBox.contains(p);
+        return (hits & 1) != 0;
     }
 
     /*
@@ -425,7 +590,40 @@ public class ImageView extends JLabel {
                 controlPoints[xi][yi].resetDefaultLocation();
             }
         }
+        controlPointIndex.rebuild(controlPoints, columns, rows);
+        invalidateGridOverlay();
+
+        repaint();
+    }
+
+    /*
+     * Moves the Control Points Part of the Way to Another View's Points for a Preview.
+     *
+     * @param   endImageView    The view whose points to move toward
+     * @param   frameCount      The current frame count
+     * @param   totalFrames     The total number of frames
+     */
+    public void setPreviewFrame(ImageView endImageView, int frameCount, int totalFrames) {
+        ControlPoint endControlPoints[][] = endImageView.getControlPoints();
+
+        // Find the New Point Locations
+        for (int xi = 1; xi < (columns + 1); xi++) {
+            for (int yi = 1; yi < (rows + 1); yi++) {
+
+                // Get Coordinates
+                double x1 = controlPoints[xi][yi].getPreviewStartXCoordinate();
+                double y1 = controlPoints[xi][yi].getPreviewStartYCoordinate();
+                double x2 = endControlPoints[xi][yi].getXCoordinate();
+                double y2 = endControlPoints[xi][yi].getYCoordinate();
 
+                // Calculate Coordinate
+                double x = (frameCount * ((x2 - x1) / totalFrames)) + x1;
+                double y = (frameCount * ((y2 - y1) / totalFrames)) + y1;
+
+                controlPoints[xi][yi].changePreviewPoint(x, y);
+            }
+        }
+        invalidateGridOverlay();
         repaint();
     }
 
@@ -440,6 +638,8 @@ public class ImageView extends JLabel {
                 controlPoints[xi][yi].resetPreviewLocation();
             }
         }
+        controlPointIndex.rebuild(controlPoints, columns, rows);
+        invalidateGridOverlay();
 
         repaint();
     }
@@ -469,10 +669,17 @@ public class ImageView extends JLabel {
         int x[] = {x1, x1, x2, x2};
         int y[] = {y1, y2, y2, y1};
 
+        // Repaint Only Where the Old and New Box Outlines Lie
+        Rectangle changed = new Rectangle(Math.min(x1, x2), Math.min(y1, y2), Math.abs(x2 - x1), Math.abs(y2 - y1));
+        if (groupMoveBox != null && drawGroupMoveBox) {
+            changed.add(groupMoveBox.getBounds());
+        }
+
         groupMoveBox = new Polygon(x, y, x.length);
         drawGroupMoveBox = true;
 
-        repaint();
+        changed.grow(DIRTY_PADDING, DIRTY_PADDING);
+        repaint(changed);
     }
 
     /*
@@ -481,15 +688,12 @@ public class ImageView extends JLabel {
     public ControlPoint[] selectControlPointsInBox() {
 
         ControlPoint[] returnList = new ControlPoint[rows * columns];
-        int i = 0;
+        int count = controlPointIndex.pointsIn(groupMoveBox, returnList);
 
-        for (int xi = 1; xi < columns + 1; xi++) {
-            for (int yi = 1; yi < rows + 1; yi++) {
-                if (groupMoveBox.contains(controlPoints[xi][yi].getXCoordinate(), controlPoints[xi][yi].getYCoordinate())) {
-                    controlPoints[xi][yi].changeColor(Color.ORANGE);
-                    returnList[i] = controlPoints[xi][yi];
-                    i++;
-                }
+        for (int i = 0; i < count; i++) {
+            if (returnList[i].getColor() != Color.ORANGE) {
+                returnList[i].changeColor(Color.ORANGE);
+                invalidateGridOverlay();
             }
         }
 
@@ -502,14 +706,83 @@ public class ImageView extends JLabel {
      * @param   cp          The control points in the group move box
      */
     public void colorGroupControlPoints(ControlPoint cp[]) {
+        boolean changed = false;
+        int i = 0;
+        while (i < cp.length && cp[i] != null) {
+            ControlPoint controlPoint = controlPoints[cp[i].getX()][cp[i].getY()];
+            if (controlPoint.getColor() != Color.ORANGE) {
+                controlPoint.changeColor(Color.ORANGE);
+                changed = true;
+            }
+            i++;
+        }
+
+        if (changed) {
+            invalidateGridOverlay();
+            repaint();
+        }
+    }
+
+    /*
+     * Marks Control Points as Being Moved so They Are Drawn Live.
+     *
+     * @param   cp          The control points about to move
+     */
+    public void setActiveControlPoints(ControlPoint cp[]) {
+        clearActiveFlags();
+
+        activeControlPoints = cp;
         int i = 0;
         while (i < cp.length && cp[i] != null) {
-            controlPoints[cp[i].getX()][cp[i].getY()].changeColor(Color.ORANGE);
+            isActive[cp[i].getX()][cp[i].getY()] = true;
             i++;
         }
+
+        invalidateGridOverlay();
+        repaint();
+    }
+
+    /*
+     * Returns the Moving Control Points to the Cached Overlay.
+     */
+    public void clearActiveControlPoints() {
+        if (activeControlPoints.length == 0) {
+            return;
+        }
+
+        clearActiveFlags();
+        invalidateGridOverlay();
         repaint();
     }
 
+    /*
+     * Clears the Active Control Point Flags.
+     */
+    private void clearActiveFlags() {
+        int i = 0;
+        while (i < activeControlPoints.length && activeControlPoints[i] != null) {
+            isActive[activeControlPoints[i].getX()][activeControlPoints[i].getY()] = false;
+            i++;
+        }
+        activeControlPoints = new ControlPoint[0];
+    }
+
+    /*
+     * Marks the Cached Grid Overlay as Out of Date.
+     * Must be called whenever a control point outside the active set changes.
+     */
+    public void invalidateGridOverlay() {
+        gridOverlayValid = false;
+    }
+
+    /*
+     * Repaints the Region Touched Since the Dirty Region Was Last Reset.
+     */
+    private void repaintDirtyRegion() {
+        dirtyRegion.grow(DIRTY_PADDING, DIRTY_PADDING);
+        repaint(dirtyRegion);
+    }
+
     /*
      * Erases the Group Move Box.
      */
@@ -528,7 +801,7 @@ public class ImageView extends JLabel {
     }
 
     /*
-     * Draws the Grid Lines for the Image View.
+     * Draws the Grid Lines Between Control Points That Are Not Moving.
      *
      * @param       g       The Graphics
      */
@@ -537,48 +810,147 @@ public class ImageView extends JLabel {
         for (int xi = 0; xi < (columns + 2); xi++) {
 
             for (int yi = 0; yi < (rows + 2); yi++) {
-                int x = (int) controlPoints[xi][yi].getXCoordinate();
-                int y = (int) controlPoints[xi][yi].getYCoordinate();
 
                 // Draw Horizontal Connecting Lines
                 if (xi < (columns + 1)) {
-                    int xRight = (int) controlPoints[xi + 1][yi].getXCoordinate();
-                    int yRight = (int) controlPoints[xi + 1][yi].getYCoordinate();
-
-                    g.drawLine(x, y, xRight, yRight);
+                    drawStaticLine(g, xi, yi, xi + 1, yi);
                 }
 
                 // Draw Vertical Connecting Lines
                 if (yi < (rows  + 1)) {
-                    int xDown = (int) controlPoints[xi][yi + 1].getXCoordinate();
-                    int yDown = (int) controlPoints[xi][yi + 1].getYCoordinate();
-
-                    g.drawLine(x, y, xDown, yDown);
+                    drawStaticLine(g, xi, yi, xi, yi + 1);
                 }
 
                 // Draw Diagonal Connecting Lines
                 if ((xi < (columns + 1)) && (yi < (rows + 1))) {
 
-                    if (((xi == columns) && (yi == 0))
-                        || ((xi == 0) && (yi == rows))) {
-                        int x1 = (int) controlPoints[xi + 1][yi].getXCoordinate();
-                        int y1 = (int) controlPoints[xi + 1][yi].getYCoordinate();
+                    if (isFlippedCell(xi, yi)) {
+                        drawStaticLine(g, xi + 1, yi, xi, yi + 1);
+                    }
+                    else {
+                        drawStaticLine(g, xi, yi, xi + 1, yi + 1);
+                    }
+                }
+            }
+        }
+    }
 
-                        int x2 = (int) controlPoints[xi][yi + 1].getXCoordinate();
-                        int y2 = (int) controlPoints[xi][yi + 1].getYCoordinate();
+    /*
+     * Draws the Grid Lines Touching the Moving Control Points.
+     *
+     * @param       g       The Graphics
+     */
+    private void drawActiveConnectingLines(Graphics g) {
 
-                        g.drawLine(x1, y1, x2, y2);
+        int i = 0;
+        while (i < activeControlPoints.length && activeControlPoints[i] != null) {
+            int x = activeControlPoints[i].getX();
+            int y = activeControlPoints[i].getY();
+
+            // Horizontal and Vertical Lines, Drawn in the Same Direction as the Cached Lines
+            drawLine(g, x - 1, y, x, y);
+            drawLine(g, x, y, x + 1, y);
+            drawLine(g, x, y - 1, x, y);
+            drawLine(g, x, y, x, y + 1);
+
+            // Diagonal Lines of the Four Surrounding Cells
+            if (!isFlippedCell(x - 1, y - 1)) {
+                drawLine(g, x - 1, y - 1, x, y);
+            }
+            if (!isFlippedCell(x, y)) {
+                drawLine(g, x, y, x + 1, y + 1);
+            }
+            if (isFlippedCell(x - 1, y)) {
+                drawLine(g, x, y, x - 1, y + 1);
+            }
+            if (isFlippedCell(x, y - 1)) {
+                drawLine(g, x + 1, y - 1, x, y);
+            }
+            i++;
+        }
+    }
 
-                    }
-                    else {
-                        int xDiagonal = (int) controlPoints[xi + 1][yi + 1].getXCoordinate();
-                        int yDiagonal = (int) controlPoints[xi + 1][yi + 1].getYCoordinate();
+    /*
+     * Checks if a Grid Cell Uses the Opposite Diagonal.
+     *
+     * @param   xi      The x position of the cell's top left point
+     * @param   yi      The y position of the cell's top left point
+     * @return          Whether or not the diagonal is flipped
+     */
+    private boolean isFlippedCell(int xi, int yi) {
+        return ((xi == columns) && (yi == 0))
+                || ((xi == 0) && (yi == rows));
+    }
 
-                        g.drawLine(x, y, xDiagonal, yDiagonal);
-                    }
+    /*
+     * Draws a Grid Line Unless One of its Ends is Moving.
+     */
+    private void drawStaticLine(Graphics g, int xi1, int yi1, int xi2, int yi2) {
+        if (!isActive[xi1][yi1] && !isActive[xi2][yi2]) {
+            drawLine(g, xi1, yi1, xi2, yi2);
+        }
+    }
+
+    /*
+     * Draws a Grid Line Between Two Control Points.
+     */
+    private void drawLine(Graphics g, int xi1, int yi1, int xi2, int yi2) {
+        g.drawLine((int) controlPoints[xi1][yi1].getXCoordinate(), (int) controlPoints[xi1][yi1].getYCoordinate(),
+                (int) controlPoints[xi2][yi2].getXCoordinate(), (int) controlPoints[xi2][yi2].getYCoordinate());
+    }
+
+    /*
+     * Redraws the Cached Grid Overlay from the Control Points That Are Not Moving.
+     * Lines and points are cached separately so moving lines still pass under the points.
+     */
+    private void rebuildGridOverlay() {
+
+        if (gridLinesOverlay == null) {
+            gridLinesOverlay = createOverlayImage();
+            controlPointsOverlay = createOverlayImage();
+        }
+
+        // Draw the Grid Lines
+        Graphics2D g2d = clearOverlayImage(gridLinesOverlay);
+        g2d.setColor(controlPointsColor);
+        drawConnectingLines(g2d);
+        g2d.dispose();
+
+        // Draw the Control Points
+        g2d = clearOverlayImage(controlPointsOverlay);
+        for (int xi = 1; xi < (columns + 1); xi++) {
+            for (int yi = 1; yi < (rows + 1); yi++) {
+                if (!isActive[xi][yi]) {
+                    controlPoints[xi][yi].drawControlPoint(g2d);
                 }
             }
         }
+        g2d.dispose();
+
+        gridOverlayValid = true;
+    }
+
+    /*
+     * Creates a Transparent Overlay Image Covering the View.
+     *
+     * @return      The overlay image
+     */
+    private BufferedImage createOverlayImage() {
+        return new BufferedImage(IMAGE_WIDTH + DIRTY_PADDING, IMAGE_WIDTH + DIRTY_PADDING, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    /*
+     * Clears an Overlay Image for Redrawing.
+     *
+     * @param   overlay     The overlay image
+     * @return              The graphics to draw the overlay with
+     */
+    private Graphics2D clearOverlayImage(BufferedImage overlay) {
+        Graphics2D g2d = overlay.createGraphics();
+        g2d.setComposite(AlphaComposite.Clear);
+        g2d.fillRect(0, 0, overlay.getWidth(), overlay.getHeight());
+        g2d.setComposite(AlphaComposite.SrcOver);
+        return g2d;
     }
 
     /*
@@ -601,17 +973,41 @@ public class ImageView extends JLabel {
         }
 
         if (drawControlPoints) {
-            // Draw the Grid Lines
-            drawConnectingLines(g);
 
-            // Draw the Control Points
-            for (int xi = 1; xi < (columns + 1); xi++) {
-                for (int yi = 1; yi < (rows + 1); yi++) {
-                    controlPoints[xi][yi].drawControlPoint(g);
-                }
+            if (!gridOverlayValid) {
+                rebuildGridOverlay();
+            }
+
+            // Draw the Grid Lines, Cached Then Moving
+            g2d.drawImage(gridLinesOverlay, 0, 0, this);
+            g.setColor(controlPointsColor);
+            drawActiveConnectingLines(g);
+
+            // Draw the Control Points, Cached Then Moving
+            g2d.drawImage(controlPointsOverlay, 0, 0, this);
+            int i = 0;
+            while (i < activeControlPoints.length && activeControlPoints[i] != null) {
+                activeControlPoints[i].drawControlPoint(g);
+                i++;
             }
         }
 
+        // Draw the Playback Overlay Last, Once the Frame is on Screen
+        if (playbackStats != null) {
+            playbackStats.framePresented();
+            playbackStats.paintOverlay(g2d);
+        }
+
+    }
+
+    /*
+     * Shows or Hides the Playback Overlay.
+     *
+     * @param   stats       The playback timing to draw, or null to hide the overlay
+     */
+    public void setPlaybackStats(PlaybackStats stats) {
+        playbackStats = stats;
+        this.repaint();
     }
 
     /*
@@ -627,4 +1023,22 @@ public class ImageView extends JLabel {
         return new BufferedImage(cm, raster, isAlphaPremultiplied, null);
     }
 
+    /*
+     * Returns the Image as TYPE_INT_RGB, Converting Only if Needed.
+     *
+     * @param   bi      The BufferedImage to convert
+     * @return          The image backed by packed RGB pixels
+     */
+    static public BufferedImage toIntRGB(BufferedImage bi) {
+        if (bi.getType() == BufferedImage.TYPE_INT_RGB) {
+            return bi;
+        }
+
+        BufferedImage converted = new BufferedImage(bi.getWidth(), bi.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = converted.createGraphics();
+        g2d.drawImage(bi, 0, 0, null);
+        g2d.dispose();
+        return converted;
+    }
+
 }
@@ -0,0 +1,329 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Applies Brightness Changes to an Image Off the Event Thread.
+ *
+ * Scaling the HSB brightness of a pixel scales all three of its channels by the same
+ * factor, so the change reduces to a table lookup per channel. Unless the brightest
+ * channel would pass 255, every channel is multiplied by the percentage, which is one
+ * 256 entry table per request. Otherwise the brightest channel is pinned to 255 and
+ * the others follow, which depends only on the channel and the brightest channel and
+ * is precomputed once.
+ */
+public class IntensityEngine {
+
+    // Rows Handled by Each Parallel Band
+    private static final int BAND_HEIGHT = 64;
+
+    // Channel Values Scaled so the Brightest Channel Reaches 255, Indexed by (max << 8) | channel
+    private static final byte SATURATED[] = new byte[256 * 256];
+
+    // Shared Worker Pool for the Row Bands
+    private static final ExecutorService BAND_POOL = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), daemonThreads("intensity-band"));
+
+    static {
+        for (int max = 1; max < 256; max++) {
+            for (int c = 0; c <= max; c++) {
+                SATURATED[(max << 8) | c] = (byte) Math.round(c * 255f / max);
+            }
+        }
+    }
+
+    private final ImageView imageView;
+
+    // Runs One Adjustment at a Time and Picks Up the Latest Request When Done
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(daemonThreads("intensity"));
+
+    // Bumped by Every Request so Stale Work Can Stop Early
+    private final AtomicInteger generation = new AtomicInteger();
+
+    // Latest Request, Guarded by this
+    private BufferedImage pendingSource;
+    private float pendingPercentage;
+    private int pendingWidth, pendingHeight;
+    private boolean isScheduled = false;
+
+    // Buffer the Next Result is Written Into
+    private BufferedImage workImage;
+
+    /*
+     * Constructor for the Intensity Engine.
+     *
+     * @param   imageView       The image view that displays the results
+     */
+    public IntensityEngine(ImageView imageView) {
+        this.imageView = imageView;
+    }
+
+    /*
+     * Requests a Brightness Change of the Top Left Region of an Image. Requests
+     * arriving while one is being applied replace each other, so only the latest
+     * one is applied next.
+     *
+     * @param   source          The unadjusted image, of type TYPE_INT_RGB
+     * @param   percentage      The brightness multiplier
+     * @param   width           The width of the region to adjust
+     * @param   height          The height of the region to adjust
+     */
+    public synchronized void submit(BufferedImage source, float percentage, int width, int height) {
+        generation.incrementAndGet();
+
+        pendingSource = source;
+        pendingPercentage = percentage;
+        pendingWidth = Math.min(width, source.getWidth());
+        pendingHeight = Math.min(height, source.getHeight());
+
+        if (!isScheduled) {
+            isScheduled = true;
+            coordinator.execute(this::drainRequests);
+        }
+    }
+
+    /*
+     * Cancels Any Pending or Running Brightness Change.
+     */
+    public synchronized void cancel() {
+        generation.incrementAndGet();
+        pendingSource = null;
+    }
+
+    /*
+     * Waits Until Every Request Made So Far Has Been Shown or Replaced.
+     * The coordinator runs one task at a time, so a task queued now runs only after
+     * the requests already scheduled have been drained.
+     */
+    void awaitIdle() throws InterruptedException {
+        try {
+            coordinator.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            // An Empty Task Cannot Fail
+        }
+    }
+
+    /*
+     * Applies Requests Until No Newer One is Waiting.
+     */
+    private void drainRequests() {
+        while (true) {
+            BufferedImage source;
+            float percentage;
+            int width, height;
+            int myGeneration;
+
+            synchronized (this) {
+                if (pendingSource == null) {
+                    isScheduled = false;
+                    return;
+                }
+                source = pendingSource;
+                percentage = pendingPercentage;
+                width = pendingWidth;
+                height = pendingHeight;
+                myGeneration = generation.get();
+                pendingSource = null;
+            }
+
+            if (workImage == null || workImage.getWidth() != width
+                    || workImage.getHeight() != height) {
+                workImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            }
+
+            if (adjust(source, workImage, percentage, myGeneration)) {
+                showResult(source, myGeneration);
+            }
+        }
+    }
+
+    /*
+     * Adjusts the Image in Parallel Row Bands.
+     *
+     * @return      Whether or not the adjustment finished without being replaced
+     */
+    private boolean adjust(BufferedImage source, BufferedImage target, float percentage, int myGeneration) {
+        int src[] = pixels(source);
+        int dst[] = pixels(target);
+        int srcWidth = source.getWidth();
+        int width = target.getWidth();
+        int height = target.getHeight();
+        int scaled[] = scaledTable(percentage);
+        int limit = saturationLimit(percentage);
+
+        RenderEvents.IntensityAdjustment event = new RenderEvents.IntensityAdjustment();
+        event.start();
+
+        List<Future<?>> bands = new ArrayList<>();
+        for (int top = 0; top < height; top += BAND_HEIGHT) {
+            final int from = top;
+            final int to = Math.min(height, top + BAND_HEIGHT);
+            bands.add(BAND_POOL.submit(() -> {
+                for (int y = from; y < to && generation.get() == myGeneration; y++) {
+                    apply(src, y * srcWidth, dst, y * width, width, scaled, limit);
+                }
+            }));
+        }
+
+        try {
+            for (Future<?> band : bands) {
+                band.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            System.out.println("Error Changing Image Intensity");
+            return false;
+        }
+
+        event.finish(0, 0, (long) width * height, 0);
+        return generation.get() == myGeneration;
+    }
+
+    /*
+     * Swaps the Finished Image into the View and Keeps the Old One for Reuse.
+     */
+    private void showResult(BufferedImage source, int myGeneration) {
+        try {
+            SwingUtilities.invokeAndWait(() -> {
+                if (generation.get() == myGeneration) {
+                    BufferedImage previous = imageView.swapImage(workImage);
+
+                    // Never Write Into the Unadjusted Image
+                    workImage = (previous == source) ? null : previous;
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (InvocationTargetException e) {
+            System.out.println("Error Showing Image Intensity");
+        }
+    }
+
+    /*
+     * Applies a Brightness Change to a Run of Packed RGB Pixels.
+     *
+     * @param   src         The source pixels
+     * @param   srcOffset   The index of the first source pixel
+     * @param   dst         The destination pixels
+     * @param   dstOffset   The index of the first destination pixel
+     * @param   count       The number of pixels
+     * @param   scaled      The table from scaledTable for the percentage
+     * @param   limit       The value from saturationLimit for the percentage
+     */
+    public static void apply(int src[], int srcOffset, int dst[], int dstOffset, int count, int scaled[], int limit) {
+        for (int i = 0; i < count; i++) {
+            dst[dstOffset + i] = adjustPixel(src[srcOffset + i], scaled, limit);
+        }
+    }
+
+    /*
+     * Creates a Full Size Adjusted Copy of an Image.
+     *
+     * @param   source          The unadjusted image, of type TYPE_INT_RGB
+     * @param   percentage      The brightness multiplier
+     * @return                  The adjusted copy
+     */
+    public static BufferedImage adjustedCopy(BufferedImage source, float percentage) {
+        BufferedImage copy = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        int count = source.getWidth() * source.getHeight();
+
+        RenderEvents.IntensityAdjustment event = new RenderEvents.IntensityAdjustment();
+        event.start();
+        apply(pixels(source), 0, pixels(copy), 0, count, scaledTable(percentage), saturationLimit(percentage));
+        event.finish(0, 0, count, 0);
+        return copy;
+    }
+
+    /*
+     * Applies a Brightness Change to One Packed RGB Pixel.
+     *
+     * @param   rgb         The packed pixel
+     * @param   scaled      The table from scaledTable for the percentage
+     * @param   limit       The value from saturationLimit for the percentage
+     * @return              The adjusted packed pixel
+     */
+    public static int adjustPixel(int rgb, int scaled[], int limit) {
+        int r = (rgb >> 16) & 0xFF;
+        int g = (rgb >> 8) & 0xFF;
+        int b = rgb & 0xFF;
+        int max = Math.max(r, Math.max(g, b));
+
+        if (max <= limit) {
+            return (rgb & 0xFF000000) | (scaled[r] << 16) | (scaled[g] << 8) | scaled[b];
+        }
+
+        int row = max << 8;
+        return (rgb & 0xFF000000) | ((SATURATED[row | r] & 0xFF) << 16)
+                | ((SATURATED[row | g] & 0xFF) << 8) | (SATURATED[row | b] & 0xFF);
+    }
+
+    /*
+     * Builds the Channel Table for a Brightness Multiplier.
+     *
+     * @param   percentage      The brightness multiplier
+     * @return                  The scaled value of every channel value
+     */
+    public static int[] scaledTable(float percentage) {
+        int table[] = new int[256];
+        for (int c = 0; c < 256; c++) {
+            table[c] = Math.min(255, Math.round(c * percentage));
+        }
+        return table;
+    }
+
+    /*
+     * Finds the Brightest Channel Value That Does Not Saturate.
+     *
+     * @param   percentage      The brightness multiplier
+     * @return                  The largest channel value still scaled by the table
+     */
+    public static int saturationLimit(float percentage) {
+        int limit = 255;
+        while (limit > 0 && (limit / 255f) * percentage > 1f) {
+            limit--;
+        }
+        return limit;
+    }
+
+    /*
+     * Retrieves the Packed Pixels Backing a TYPE_INT_RGB Image.
+     *
+     * @param   image       The image
+     * @return              The backing pixel array
+     */
+    public static int[] pixels(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    /*
+     * Creates a Thread Factory for Daemon Worker Threads.
+     *
+     * @param   name        The thread name prefix
+     * @return              The thread factory
+     */
+    static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -10,6 +10,8 @@
 
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
 
 /*
  * The JMorph Class.
@@ -20,11 +22,37 @@ public class JMorph {
     private static Controller controller;
     private static View view;
 
+    // Time Between Progress Reports of --render
+    private static final long PROGRESS_MILLIS = 5000;
+
     /*
-     * Creates the JMorph UI.
+     * Creates the JMorph UI, or Renders a Saved Job When Run With --render.
      */
     public static void main(String arg[]) {
 
+        if (arg.length > 0 && arg[0].equals("--render")) {
+            System.exit(render(arg));
+        }
+        if (arg.length > 0 && arg[0].equals("--golden")) {
+            System.exit(GoldenFrames.run(arg));
+        }
+        if (arg.length > 0 && arg[0].equals("--benchmark")) {
+            System.exit(MorphBenchmark.run(arg));
+        }
+        if (arg.length > 0 && arg[0].equals("--editor-benchmark")) {
+            System.exit(EditorBenchmark.run(arg));
+        }
+        if (arg.length > 0 && arg[0].equals("--serve")) {
+            int status = serve(arg);
+            if (status != 0) {
+                System.exit(status);
+            }
+            return;
+        }
+
+        // Watch for Event Handlers That Freeze the Window
+        EdtWatchdog.install();
+
         // Initialize the Controller and View
         controller = new Controller();
         view = new View(controller);
@@ -40,6 +68,220 @@ public class JMorph {
 
     }
 
+    /*
+     * Runs the Render Server Until the Process is Stopped.
+     * Usage: java JMorph --serve [--port n] [--workers n] [--queue n] [--root dir]
+     *
+     * Jobs may only read and write under the root, by default the working directory.
+     *
+     * Java 17 has no virtual threads, so requests are served by a small fixed pool
+     * and rendering by the workers; each job also spreads its frames over the cores.
+     *
+     * @return      0 once the server is running, otherwise the exit status
+     */
+    private static int serve(String arg[]) {
+        System.setProperty("java.awt.headless", "true");
+
+        int port = 7878, workers = 1, queue = 64;
+        File root = new File(".");
+        for (int i = 1; i < arg.length; i++) {
+            if (i + 1 >= arg.length || !arg[i].matches("--(port|workers|queue|root)")) {
+                System.out.println("Usage: java JMorph --serve [--port n] [--workers n] [--queue n] [--root dir]");
+                return 2;
+            }
+
+            String option = arg[i], value = arg[++i];
+            if (option.equals("--root")) {
+                root = new File(value);
+                continue;
+            }
+
+            int number;
+            try {
+                number = Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                number = -1;
+            }
+            if (option.equals("--port")) {
+                if (number < 0 || number > 65535) {
+                    System.out.println("Invalid Port: " + value);
+                    return 2;
+                }
+                port = number;
+            }
+            else if (option.equals("--workers")) {
+                if (number < 1) {
+                    System.out.println("Invalid Worker Count: " + value);
+                    return 2;
+                }
+                workers = number;
+            }
+            else {
+                if (number < 1) {
+                    System.out.println("Invalid Queue Size: " + value);
+                    return 2;
+                }
+                queue = number;
+            }
+        }
+
+        try {
+            RenderServer server = new RenderServer(port, workers, queue, root);
+            server.start();
+            System.out.println("Render Server Listening on 127.0.0.1:" + server.getPort()
+                    + ", Serving " + root.getCanonicalPath());
+        } catch (IOException e) {
+            System.out.println("Error Starting Render Server: " + e.getMessage());
+            return 1;
+        }
+        return 0;
+    }
+
+    /*
+     * Renders a Morph Job Without the User Interface.
+     * Usage: java JMorph --render job.properties [--threads n] [--frames a-b | --shard i/n] [--merge]
+     *        [--spool file]
+     *
+     * --frames and --shard render part of the job, so several processes can share
+     * one output directory. --merge renders nothing and combines their manifests.
+     * --spool reads the warped frames of a spool the morph window kept.
+     *
+     * @return      The exit status
+     */
+    private static int render(String arg[]) {
+        System.setProperty("java.awt.headless", "true");
+
+        File jobFile = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String frames = null, shard = null;
+        File spoolFile = null;
+        boolean merge = false;
 
+        for (int i = 1; i < arg.length; i++) {
+            if (arg[i].equals("--threads") && i + 1 < arg.length) {
+                String value = arg[++i];
+                try {
+                    threads = Integer.parseInt(value);
+                } catch (NumberFormatException e) {
+                    threads = 0;
+                }
+                if (threads < 1) {
+                    System.out.println("Invalid Thread Count: " + value);
+                    return 2;
+                }
+            }
+            else if (arg[i].equals("--frames") && i + 1 < arg.length) {
+                frames = arg[++i];
+            }
+            else if (arg[i].equals("--shard") && i + 1 < arg.length) {
+                shard = arg[++i];
+            }
+            else if (arg[i].equals("--spool") && i + 1 < arg.length) {
+                spoolFile = new File(arg[++i]);
+            }
+            else if (arg[i].equals("--merge")) {
+                merge = true;
+            }
+            else {
+                jobFile = new File(arg[i]);
+            }
+        }
+
+        if (jobFile == null || (frames != null && shard != null)) {
+            System.out.println("Usage: java JMorph --render job.properties [--threads n]"
+                    + " [--frames a-b | --shard i/n] [--merge] [--spool file]");
+            return 2;
+        }
+
+        try {
+            MorphJob job = MorphJob.load(jobFile);
+
+            MorphExport export;
+            if (frames != null) {
+                try {
+                    int dash = frames.indexOf('-');
+                    int first = Integer.parseInt(dash < 0 ? frames : frames.substring(0, dash));
+                    int last = (dash < 0) ? first : Integer.parseInt(frames.substring(dash + 1));
+                    export = new MorphExport(job, threads, first, last);
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Invalid Frame Range: " + frames);
+                    return 2;
+                }
+            }
+            else if (shard != null) {
+                int slash = shard.indexOf('/');
+                try {
+                    if (slash < 0) {
+                        throw new IllegalArgumentException(shard);
+                    }
+                    export = MorphExport.forShard(job, threads,
+                            Integer.parseInt(shard.substring(0, slash)), Integer.parseInt(shard.substring(slash + 1)));
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Invalid Shard: " + shard);
+                    return 2;
+                }
+            }
+            else {
+                export = new MorphExport(job, threads);
+            }
+            export.setSpoolFile(spoolFile);
+
+            if (merge) {
+                int missing = export.merge();
+                System.out.println((missing == 0) ? "Merged " + job.getTotalFrames() + " Frames"
+                        : missing + " Frames Still Missing");
+                return (missing == 0) ? 0 : 1;
+            }
+
+            // Report the Estimate, Then the Time Left Every Few Seconds
+            Thread reporter = new Thread(() -> reportProgress(export), "render-progress");
+            reporter.setDaemon(true);
+            reporter.start();
+            try {
+                export.run();
+            } finally {
+                reporter.interrupt();
+            }
+            System.out.println("Rendered " + export.getRenderedCount() + " Frames, "
+                    + export.getSkippedCount() + " Already Finished");
+            if (export.getRenderedCount() > 0) {
+                RenderEstimator.Progress progress = export.getProgress();
+                System.out.println("Took " + RenderEstimator.seconds(progress.getElapsedSeconds()) + " and Wrote "
+                        + RenderEstimator.megabytes(progress.getBytesWritten()) + ", Estimated "
+                        + RenderEstimator.seconds(progress.getEstimate().getSeconds()) + " and "
+                        + RenderEstimator.megabytes(progress.getEstimate().getBytes()));
+                System.out.println(export.getPipelineReport());
+                System.out.println("Allocated " + (RenderMetrics.get().getAllocatedBytesPerFrame() >> 10)
+                        + " KB per Frame");
+            }
+            return 0;
+        } catch (IOException e) {
+            System.out.println("Error Rendering Morph: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /*
+     * Prints the Estimate of an Export Once Known, Then its Progress Every Few Seconds Until Interrupted.
+     */
+    private static void reportProgress(MorphExport export) {
+        try {
+            RenderEstimator.Progress progress;
+            while ((progress = export.getProgress()) == null) {
+                Thread.sleep(50);
+            }
+            if (progress.getEstimate().getFrames() == 0) {
+                return;
+            }
+            System.out.println("Rendering " + progress.getEstimate().describe());
+
+            while (true) {
+                Thread.sleep(PROGRESS_MILLIS);
+                System.out.println(progress.describe());
+            }
+        } catch (InterruptedException e) {
+            // The Export Finished
+        }
+    }
 
 }
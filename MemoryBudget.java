@@ -0,0 +1,142 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/*
+ * Estimates of the Memory a Morph Needs, Checked Against a Budget.
+ *
+ * Estimates count the frame sized buffers each way of rendering holds at once,
+ * which is nearly all of its memory. Holding every frame in memory grows with the
+ * frame count; spooling to disk and the export pipeline only hold a fixed number
+ * of frames, so they are the fallbacks when a morph does not fit.
+ *
+ * The budget is jmorph.memoryBudgetMB, or three quarters of the largest heap
+ * when it is not set.
+ */
+public class MemoryBudget {
+
+    // Source Images and Blended Frames Any Morph Holds Besides Its Frame Store
+    private static final int WORKING_FRAMES = 4;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final long budget;
+
+    /*
+     * Constructor for the Memory Budget.
+     *
+     * @param   budget      The most bytes a morph may need
+     */
+    public MemoryBudget(long budget) {
+        this.budget = budget;
+    }
+
+    /*
+     * Creates a Budget Configured by System Properties.
+     *
+     * @return      The memory budget
+     */
+    public static MemoryBudget fromProperties() {
+        long defaultMB = (Runtime.getRuntime().maxMemory() / 4 * 3) >> 20;
+        return new MemoryBudget(Long.getLong("jmorph.memoryBudgetMB", defaultMB) << 20);
+    }
+
+    /*
+     * Retrieves the Bytes One Frame Takes.
+     */
+    public static long frameBytes(int width, int height) {
+        return (long) width * height * 4;
+    }
+
+    /*
+     * Estimates a Morph Whose Warped Frames Are All Held in Memory.
+     *
+     * @param   width           The frame width
+     * @param   height          The frame height
+     * @param   frameCount      The number of frames
+     * @return                  The estimated bytes
+     */
+    public static long inMemoryBytes(int width, int height, int frameCount) {
+        return (2L * frameCount + WORKING_FRAMES) * frameBytes(width, height);
+    }
+
+    /*
+     * Estimates a Morph Whose Warped Frames Are Spooled to Disk.
+     * The spool is mapped outside the heap; only the working frames and one
+     * frame's rendering scratch stay in memory.
+     *
+     * @param   width           The frame width
+     * @param   height          The frame height
+     * @return                  The estimated bytes
+     */
+    public static long spooledBytes(int width, int height) {
+        return (WORKING_FRAMES + 2) * frameBytes(width, height);
+    }
+
+    /*
+     * Estimates an Export Through a Render Pipeline.
+     * Each warp buffer is a pair of frames; each image waits for or is being
+     * encoded, and each encoder also holds roughly a frame of compressed output.
+     *
+     * @param   width           The frame width
+     * @param   height          The frame height
+     * @param   warpThreads     The threads warping frames
+     * @param   blendThreads    The threads blending frames
+     * @param   encodeThreads   The threads encoding frames
+     * @param   queueCapacity   The most frames waiting between two stages
+     * @return                  The estimated bytes
+     */
+    public static long pipelineBytes(int width, int height,
+                                     int warpThreads, int blendThreads, int encodeThreads, int queueCapacity) {
+        long warpBuffers = 2L * (queueCapacity + warpThreads + blendThreads);
+        long images = queueCapacity + blendThreads + encodeThreads;
+        return (warpBuffers + images + encodeThreads + 2) * frameBytes(width, height);
+    }
+
+    /*
+     * Checks if an Estimate Fits the Budget.
+     */
+    public boolean fits(long bytes) {
+        return bytes <= budget;
+    }
+
+    /*
+     * Retrieves the Budget in Bytes.
+     */
+    public long getBudget() {
+        return budget;
+    }
+
+    /*
+     * Describes an Estimate That Does Not Fit, for Messages to the User.
+     */
+    public String describe(long bytes) {
+        return "Needs About " + (bytes >> 20) + " MB, Over the " + (budget >> 20) + " MB Memory Budget";
+    }
+
+    /*
+     * Retrieves the Bytes the Current Thread Has Allocated So Far.
+     * Differences between two calls on one thread give the bytes allocated in
+     * between.
+     *
+     * @return      The allocated bytes, or -1 if the JVM does not count them
+     */
+    public static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getCurrentThreadAllocatedBytes();
+            }
+        }
+        return -1;
+    }
+}
@@ -23,7 +23,9 @@ public class MenuBar extends JMenuBar {
     private final static String OPTIONS = "Options";
     private final static String PROJECT = "Project";
     private final static String SAVE_IMAGES = "Save Images";
+    private final static String SAVE_MORPH_JOB = "Save Morph Job";
     private final static String RESET_CONTROL_POINTS = "Reset Control Points";
+    private final static String SHOW_PLAYBACK_STATS = "Show Playback Stats";
 
     private final static String HELP = "Help";
     private final static String HELP_TEXT = "************ HOW TO USE ************"
@@ -53,9 +55,12 @@ public class MenuBar extends JMenuBar {
             + "\n" + "- To preview the morph, select the \"Start Preview\" button."
             + "\n" + "- When you are ready to view the morph, select the \"Generate Morph\" button."
             + "\n" + "- The resulting images will be saved in your current working directory."
+            + "\n" + "- To see the frame rate playback achieves, select Options > Show Playback Stats."
             + "\n\n"
             + "** Save Images **"
-            + "\n" + "- To save the images you are working with, select Project > Save Images.";
+            + "\n" + "- To save the images you are working with, select Project > Save Images."
+            + "\n" + "- To render the morph later without the window, select Project > Save Morph Job"
+            + "\n" + "    and run: java JMorph --render <folder>/job.properties";
 
     /*
      * Constructor for the MenuBar Class.
@@ -74,6 +79,11 @@ public class MenuBar extends JMenuBar {
         saveProjectMenuItem.addActionListener(AL);
         projectMenu.add(saveProjectMenuItem);
 
+        // Add Save Morph Job Menu Item
+        JMenuItem saveMorphJobMenuItem = new JMenuItem(SAVE_MORPH_JOB);
+        saveMorphJobMenuItem.addActionListener(AL);
+        projectMenu.add(saveMorphJobMenuItem);
+
         // Add Separator
         projectMenu.addSeparator();
 
@@ -97,6 +107,11 @@ public class MenuBar extends JMenuBar {
         resetControlPointsMenuItem.addActionListener(AL);
         optionsMenu.add(resetControlPointsMenuItem);
 
+        // Add Show Playback Stats Menu Item
+        JCheckBoxMenuItem showPlaybackStatsMenuItem = new JCheckBoxMenuItem(SHOW_PLAYBACK_STATS);
+        showPlaybackStatsMenuItem.addActionListener(AL);
+        optionsMenu.add(showPlaybackStatsMenuItem);
+
         JMenuItem helpMenuItem = new JMenuItem(HELP);
         helpMenuItem.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent e) {
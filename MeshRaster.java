@@ -0,0 +1,232 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import java.util.Arrays;
+
+/*
+ * Span Table Covering a Triangle Mesh.
+ *
+ * Each row of the image is described by runs of pixels, sorted left to right, that
+ * belong to a single triangle. A pixel belongs to the triangle its center lies in,
+ * so neighbouring triangles share their edges without gaps or overlap. The arrays
+ * are kept between calls and only grow, so rasterizing a frame does not allocate.
+ */
+public class MeshRaster {
+
+    private int width, height;
+
+    // First Span of Each Row, with rowStart[height] Marking the End
+    private int rowStart[] = new int[1];
+
+    // Spans in Row Order
+    private int spanX0[] = new int[0];
+    private int spanX1[] = new int[0];
+    private int spanTriangle[] = new int[0];
+    private int spanCount;
+
+    // Spans in Triangle Order Before Sorting by Row
+    private int rawRow[] = new int[0];
+    private int rawX0[] = new int[0];
+    private int rawX1[] = new int[0];
+    private int rawTriangle[] = new int[0];
+
+    /*
+     * Rasterizes the Triangles of a Mesh.
+     *
+     * @param   x           The x-coordinates of the mesh points
+     * @param   y           The y-coordinates of the mesh points
+     * @param   triangles   The triangle point indices, three per triangle
+     * @param   width       The width of the image
+     * @param   height      The height of the image
+     */
+    public void rasterize(double x[], double y[], int triangles[], int width, int height) {
+        this.width = width;
+        this.height = height;
+
+        if (rowStart.length < height + 1) {
+            rowStart = new int[height + 1];
+        }
+        for (int i = 0; i <= height; i++) {
+            rowStart[i] = 0;
+        }
+
+        // Find Every Span, Counting Them per Row
+        int raw = 0;
+        for (int t = 0; t < triangles.length / 3; t++) {
+            double x0 = x[triangles[3 * t]], y0 = y[triangles[3 * t]];
+            double x1 = x[triangles[3 * t + 1]], y1 = y[triangles[3 * t + 1]];
+            double x2 = x[triangles[3 * t + 2]], y2 = y[triangles[3 * t + 2]];
+
+            int yStart = Math.max(0, (int) Math.ceil(Math.min(y0, Math.min(y1, y2)) - 0.5));
+            int yEnd = Math.min(height, (int) Math.ceil(Math.max(y0, Math.max(y1, y2)) - 0.5));
+
+            for (int row = yStart; row < yEnd; row++) {
+                double yc = row + 0.5;
+                double left = Double.POSITIVE_INFINITY;
+                double right = Double.NEGATIVE_INFINITY;
+
+                double crossing = WarpKernel.edgeCrossing(x0, y0, x1, y1, yc);
+                if (!Double.isNaN(crossing)) {
+                    left = Math.min(left, crossing);
+                    right = Math.max(right, crossing);
+                }
+                crossing = WarpKernel.edgeCrossing(x1, y1, x2, y2, yc);
+                if (!Double.isNaN(crossing)) {
+                    left = Math.min(left, crossing);
+                    right = Math.max(right, crossing);
+                }
+                crossing = WarpKernel.edgeCrossing(x2, y2, x0, y0, yc);
+                if (!Double.isNaN(crossing)) {
+                    left = Math.min(left, crossing);
+                    right = Math.max(right, crossing);
+                }
+
+                int xStart = Math.max(0, (int) Math.ceil(left - 0.5));
+                int xEnd = Math.min(width, (int) Math.ceil(right - 0.5));
+                if (xStart >= xEnd) {
+                    continue;
+                }
+
+                if (raw == rawRow.length) {
+                    growRaw();
+                }
+                rawRow[raw] = row;
+                rawX0[raw] = xStart;
+                rawX1[raw] = xEnd;
+                rawTriangle[raw] = t;
+                raw++;
+
+                rowStart[row + 1]++;
+            }
+        }
+
+        // Sort the Spans into Rows
+        for (int row = 0; row < height; row++) {
+            rowStart[row + 1] += rowStart[row];
+        }
+        if (spanX0.length < raw) {
+            spanX0 = new int[raw];
+            spanX1 = new int[raw];
+            spanTriangle = new int[raw];
+        }
+        for (int i = 0; i < raw; i++) {
+            int slot = rowStart[rawRow[i]]++;
+            spanX0[slot] = rawX0[i];
+            spanX1[slot] = rawX1[i];
+            spanTriangle[slot] = rawTriangle[i];
+        }
+
+        // Shift the Row Starts Back After Filling
+        for (int row = height; row > 0; row--) {
+            rowStart[row] = rowStart[row - 1];
+        }
+        rowStart[0] = 0;
+        spanCount = raw;
+
+        // Order Each Row Left to Right
+        for (int row = 0; row < height; row++) {
+            sortRow(rowStart[row], rowStart[row + 1]);
+        }
+    }
+
+    /*
+     * Insertion Sorts the Spans of One Row by Their Start.
+     */
+    private void sortRow(int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            int x0 = spanX0[i], x1 = spanX1[i], t = spanTriangle[i];
+            int j = i - 1;
+            while (j >= from && spanX0[j] > x0) {
+                spanX0[j + 1] = spanX0[j];
+                spanX1[j + 1] = spanX1[j];
+                spanTriangle[j + 1] = spanTriangle[j];
+                j--;
+            }
+            spanX0[j + 1] = x0;
+            spanX1[j + 1] = x1;
+            spanTriangle[j + 1] = t;
+        }
+    }
+
+    /*
+     * Doubles the Unsorted Span Storage.
+     */
+    private void growRaw() {
+        int size = Math.max(1024, rawRow.length * 2);
+        rawRow = Arrays.copyOf(rawRow, size);
+        rawX0 = Arrays.copyOf(rawX0, size);
+        rawX1 = Arrays.copyOf(rawX1, size);
+        rawTriangle = Arrays.copyOf(rawTriangle, size);
+    }
+
+    /*
+     * Retrieves the Index of the First Span in a Row.
+     *
+     * @param   row     The row
+     * @return          The span index
+     */
+    public int rowStart(int row) {
+        return rowStart[row];
+    }
+
+    /*
+     * Retrieves the Index Just Past the Last Span in a Row.
+     *
+     * @param   row     The row
+     * @return          The span index
+     */
+    public int rowEnd(int row) {
+        return rowStart[row + 1];
+    }
+
+    /*
+     * Retrieves the First Column of a Span.
+     */
+    public int spanStart(int span) {
+        return spanX0[span];
+    }
+
+    /*
+     * Retrieves the Column Just Past the End of a Span.
+     */
+    public int spanEnd(int span) {
+        return spanX1[span];
+    }
+
+    /*
+     * Retrieves the Triangle a Span Belongs To.
+     */
+    public int spanTriangle(int span) {
+        return spanTriangle[span];
+    }
+
+    /*
+     * Retrieves the Total Number of Spans.
+     *
+     * @return      The span count
+     */
+    public int getSpanCount() {
+        return spanCount;
+    }
+
+    /*
+     * Retrieves the Width of the Rasterized Image.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /*
+     * Retrieves the Height of the Rasterized Image.
+     */
+    public int getHeight() {
+        return height;
+    }
+}
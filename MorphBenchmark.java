@@ -0,0 +1,288 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * End-to-End Throughput Benchmark of Headless Morph Export.
+ *
+ * Each configuration runs the whole path a saved job takes: intensity adjustment,
+ * mesh interpolation, warp, blend, encode and disk write, into a temporary folder
+ * that is deleted afterwards. The inputs are the bundled photographs and generated
+ * image pairs from 600px to 8K, each with randomly moved meshes of several
+ * densities. For every configuration it reports the frames per second, the time
+ * to the first finished frame, the peak heap and the heap allocated per frame, so
+ * results show how throughput and memory scale with resolution and mesh density.
+ *
+ * A configuration that runs out of memory is reported as such and the rest still
+ * run, which shows the largest morph a given heap can export.
+ */
+public class MorphBenchmark {
+
+    private static final String DEFAULT_SIZES = "600,1920x1080,3840x2160,7680x4320";
+    private static final String DEFAULT_DENSITIES = "5,10,20";
+
+    // How Far Mesh Points Move, as a Fraction of the Most That Keeps Them Valid
+    private static final double MESH_JITTER = 0.8;
+
+    private final int frames, threads;
+    private final String format;
+
+    /*
+     * Constructor for the Morph Benchmark.
+     *
+     * @param   frames      The number of frames each configuration exports
+     * @param   threads     The number of threads each export uses
+     * @param   format      The image format of the frames
+     */
+    public MorphBenchmark(int frames, int threads, String format) {
+        this.frames = frames;
+        this.threads = threads;
+        this.format = format;
+    }
+
+    /*
+     * Runs the Benchmark from the Command Line.
+     * Usage: java JMorph --benchmark [--sizes 600,1920x1080,...] [--densities 5,10,20]
+     *        [--frames n] [--threads n] [--format jpg] [--warmup n]
+     *
+     * @return      The exit status
+     */
+    public static int run(String arg[]) {
+        System.setProperty("java.awt.headless", "true");
+
+        String sizes = DEFAULT_SIZES, densities = DEFAULT_DENSITIES, format = "jpg";
+        int frames = 30, warmup = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        try {
+            for (int i = 1; i < arg.length; i++) {
+                if (arg[i].equals("--sizes") && i + 1 < arg.length) {
+                    sizes = arg[++i];
+                }
+                else if (arg[i].equals("--densities") && i + 1 < arg.length) {
+                    densities = arg[++i];
+                }
+                else if (arg[i].equals("--frames") && i + 1 < arg.length) {
+                    frames = Integer.parseInt(arg[++i]);
+                }
+                else if (arg[i].equals("--threads") && i + 1 < arg.length) {
+                    threads = Integer.parseInt(arg[++i]);
+                }
+                else if (arg[i].equals("--format") && i + 1 < arg.length) {
+                    format = arg[++i];
+                }
+                else if (arg[i].equals("--warmup") && i + 1 < arg.length) {
+                    warmup = Integer.parseInt(arg[++i]);
+                }
+                else {
+                    throw new IllegalArgumentException(arg[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("Usage: java JMorph --benchmark [--sizes 600,1920x1080,...] [--densities 5,10,20]"
+                    + " [--frames n] [--threads n] [--format jpg] [--warmup n]");
+            return 2;
+        }
+
+        MorphBenchmark benchmark = new MorphBenchmark(Math.max(1, frames), Math.max(1, threads), format);
+        try {
+            List<int[]> sizeList = parseSizes(sizes, 2);
+            int densityList[] = parseDensities(densities);
+
+            // Compile the Render Path Before Anything is Measured
+            for (int i = 0; i < warmup; i++) {
+                benchmark.measure("warmup", SyntheticMorph.image(600, 600, 1), SyntheticMorph.image(600, 600, 2), 10);
+            }
+
+            System.out.println(header());
+            BufferedImage bundled[] = bundledImages();
+            if (bundled != null) {
+                for (int density : densityList) {
+                    System.out.println(benchmark.measure("bundled", bundled[0], bundled[1], density));
+                }
+            }
+            for (int size[] : sizeList) {
+                BufferedImage start = SyntheticMorph.image(size[0], size[1], 1);
+                BufferedImage end = SyntheticMorph.image(size[0], size[1], 2);
+                for (int density : densityList) {
+                    System.out.println(benchmark.measure("synthetic", start, end, density));
+                }
+            }
+            return 0;
+        } catch (IOException e) {
+            System.out.println("Error Running Benchmark: " + e.getMessage());
+            return 1;
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid Benchmark Setting: " + e.getMessage());
+            return 2;
+        } catch (OutOfMemoryError e) {
+            System.out.println("Error Running Benchmark: Out of Memory Generating Images");
+            return 1;
+        }
+    }
+
+    /*
+     * Exports One Morph and Measures It.
+     *
+     * @param   name        The name of the input, for the report
+     * @param   start       The start image, of type TYPE_INT_RGB
+     * @param   end         The end image, of type TYPE_INT_RGB
+     * @param   density     The number of control point rows and columns
+     * @return              The report line
+     */
+    public String measure(String name, BufferedImage start, BufferedImage end, int density) throws IOException {
+        MorphMesh startMesh = SyntheticMorph.mesh(start.getWidth(), start.getHeight(), density, density, MESH_JITTER, 3);
+        MorphMesh endMesh = SyntheticMorph.mesh(end.getWidth(), end.getHeight(), density, density, MESH_JITTER, 4);
+
+        File directory = Files.createTempDirectory("jmorph-benchmark").toFile();
+        MorphJob job = new MorphJob(null, 1.1f, startMesh, null, 0.9f, endMesh,
+                frames, 1, directory, format);
+        MorphExport export = new MorphExport(job, threads);
+
+        String configuration = String.format("%-10s %5dx%-5d %3dx%-3d", name,
+                start.getWidth(), start.getHeight(), density, density);
+
+        System.gc();
+        RenderMetrics.get().reset();
+        List<MemoryPoolMXBean> heapPools = heapPools();
+        for (MemoryPoolMXBean pool : heapPools) {
+            pool.resetPeakUsage();
+        }
+
+        try {
+            long began = System.nanoTime();
+            MorphRenderer renderer = job.createRenderer(start, end);
+            export.run(renderer);
+            long finished = System.nanoTime();
+
+            double seconds = (finished - began) / 1e9;
+            double firstFrame = (export.getFirstFrameTime() - began) / 1e6;
+            return String.format("%s %9d %7d %9.2f %9.1f %9.2f %9d %9d", configuration,
+                    renderer.getTriangleCount(), export.getRenderedCount(), seconds, firstFrame,
+                    export.getRenderedCount() / seconds, peakHeap(heapPools) >> 20,
+                    RenderMetrics.get().getAllocatedBytesPerFrame() >> 10);
+        } catch (OutOfMemoryError e) {
+            return String.format("%s %9s %7s %9s %9s %9s %9d %9s  out of memory", configuration,
+                    "-", "-", "-", "-", "-", peakHeap(heapPools) >> 20, "-");
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /*
+     * Retrieves the Column Headings Matching the Report Lines.
+     */
+    private static String header() {
+        return String.format("%-10s %11s %7s %9s %7s %9s %9s %9s %9s %9s", "input", "size", "mesh",
+                "triangles", "frames", "total s", "first ms", "fps", "heap MB", "alloc KB");
+    }
+
+    /*
+     * Reads the Bundled Start and End Photographs.
+     *
+     * @return      The two images, or null if they are not on the class path
+     */
+    private static BufferedImage[] bundledImages() throws IOException {
+        URL startUrl = MorphBenchmark.class.getResource("res/Barack.jpg");
+        URL endUrl = MorphBenchmark.class.getResource("res/Michelle.jpg");
+        if (startUrl == null || endUrl == null) {
+            System.out.println("Bundled Images Not Found, Skipping Them");
+            return null;
+        }
+        return new BufferedImage[] {
+                ImageView.toIntRGB(ImageIO.read(startUrl)), ImageView.toIntRGB(ImageIO.read(endUrl))};
+    }
+
+    /*
+     * Reads a List of Sizes Such as 600,1920x1080. A Single Number Means a Square.
+     * The editor benchmark reads its image sizes and mesh densities with it too.
+     *
+     * @param   text        The list
+     * @param   least       The smallest width or height allowed
+     * @return              The width and height pairs
+     */
+    static List<int[]> parseSizes(String text, int least) {
+        List<int[]> sizes = new ArrayList<>();
+        for (String size : text.split(",")) {
+            int x = size.indexOf('x');
+            int width = Integer.parseInt((x < 0) ? size.trim() : size.substring(0, x).trim());
+            int height = (x < 0) ? width : Integer.parseInt(size.substring(x + 1).trim());
+            if (width < least || height < least) {
+                throw new IllegalArgumentException("Too Small: " + size);
+            }
+            sizes.add(new int[] {width, height});
+        }
+        return sizes;
+    }
+
+    /*
+     * Reads a List of Mesh Densities Such as 5,10,20.
+     */
+    private static int[] parseDensities(String text) {
+        String parts[] = text.split(",");
+        int densities[] = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            densities[i] = Integer.parseInt(parts[i].trim());
+            if (densities[i] < 1) {
+                throw new IllegalArgumentException("Density Must Be at Least 1: " + parts[i]);
+            }
+        }
+        return densities;
+    }
+
+    /*
+     * Retrieves the Memory Pools That Make Up the Heap.
+     */
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pools.add(pool);
+            }
+        }
+        return pools;
+    }
+
+    /*
+     * Adds Up the Peak Usage of Each Heap Pool Since It Was Last Reset.
+     * The pools may not all peak at once, so this is an upper bound.
+     */
+    private static long peakHeap(List<MemoryPoolMXBean> pools) {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+    /*
+     * Deletes a Folder of Frames.
+     */
+    private static void deleteDirectory(File directory) {
+        File files[] = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Renders the Frames of a Morph Job to Files, Resuming Earlier Runs.
+ *
+ * Frames run through a RenderPipeline, so warping, blending and encoding overlap.
+ * Each frame is written to a temporary file, forced to disk and renamed into place
+ * before the manifest records it, so a frame listed as finished is always whole,
+ * even after a power loss. The manifest itself is saved in batches and once at the
+ * end. Running the same job again skips the finished frames; if the images,
+ * meshes, intensities or frame count changed since, the manifest no longer
+ * matches and every frame is rendered again.
+ *
+ * An export can be limited to a range of frames so several processes, on one
+ * machine or on machines sharing the output directory, each render part of one
+ * morph. Each range keeps its own manifest, and merge() combines them once every
+ * worker is done.
+ *
+ * A frame spool the morph window left behind can stand in for the warp stage: its
+ * frames are blended and encoded without being rendered again.
+ */
+public class MorphExport {
+
+    private final MorphJob job;
+    private final int threads;
+    private final int firstFrame, lastFrame;
+    private File spoolFile;
+
+    // Frames Rendered by the Last Run
+    private int renderedCount = 0;
+    private int skippedCount = 0;
+    private long firstFrameTime = 0;
+    private RenderPipeline pipeline;
+
+    // Predicted and Actual Progress of the Current or Last Run
+    private volatile RenderEstimator.Progress progress;
+
+    /*
+     * Constructor for a Morph Export of Every Frame.
+     *
+     * @param   job         The job to render
+     * @param   threads     The number of frames to render at once
+     */
+    public MorphExport(MorphJob job, int threads) {
+        this(job, threads, 1, job.getTotalFrames());
+    }
+
+    /*
+     * Constructor for a Morph Export of a Range of Frames.
+     *
+     * @param   job             The job to render
+     * @param   threads         The number of frames to render at once
+     * @param   firstFrame      The first frame to render, from 1
+     * @param   lastFrame       The last frame to render
+     */
+    public MorphExport(MorphJob job, int threads, int firstFrame, int lastFrame) {
+        if (firstFrame < 1 || lastFrame > job.getTotalFrames() || firstFrame > lastFrame) {
+            throw new IllegalArgumentException("Frames " + firstFrame + "-" + lastFrame
+                    + " Outside 1-" + job.getTotalFrames());
+        }
+
+        this.job = job;
+        this.threads = Math.max(1, threads);
+        this.firstFrame = firstFrame;
+        this.lastFrame = lastFrame;
+    }
+
+    /*
+     * Creates the Export of One Shard of a Job.
+     * The frames are split into count contiguous ranges as even as possible.
+     *
+     * @param   job         The job to render
+     * @param   threads     The number of frames to render at once
+     * @param   shard       The shard to render, from 1
+     * @param   count       The number of shards
+     * @return              The export
+     */
+    public static MorphExport forShard(MorphJob job, int threads, int shard, int count) {
+        if (shard < 1 || shard > count || count > job.getTotalFrames()) {
+            throw new IllegalArgumentException("Shard " + shard + "/" + count
+                    + " Invalid for " + job.getTotalFrames() + " Frames");
+        }
+
+        long total = job.getTotalFrames();
+        int first = (int) ((shard - 1) * total / count) + 1;
+        int last = (int) (shard * total / count);
+        return new MorphExport(job, threads, first, last);
+    }
+
+    /*
+     * Reads Warped Frames from a Spool Instead of Rendering Them.
+     * The spool is used only if it holds frames of the job's morph and frame
+     * count; its frames that were never written are still rendered.
+     *
+     * @param   spoolFile   The spool file, or null to render every frame
+     */
+    public void setSpoolFile(File spoolFile) {
+        this.spoolFile = spoolFile;
+    }
+
+    /*
+     * Renders Every Frame in the Range the Output Directory Does Not Already Hold.
+     */
+    public void run() throws IOException {
+        run(job.createRenderer());
+    }
+
+    /*
+     * Renders the Frames Still Missing with a Renderer Made from the Job.
+     *
+     * @param   renderer    The renderer for the job
+     */
+    public void run(MorphRenderer renderer) throws IOException {
+        File directory = job.getOutputDirectory();
+        // Another Worker May Be Creating It at the Same Time
+        directory.mkdirs();
+        if (!directory.isDirectory()) {
+            throw new IOException("Couldn't Create Output Directory: " + directory);
+        }
+
+        int totalFrames = job.getTotalFrames();
+        ExportManifest manifest = openManifest(directory, renderer.getMorphHash(), totalFrames);
+
+        // Find the Frames Still to Render
+        List<Integer> pending = new ArrayList<>();
+        for (int frame = firstFrame; frame <= lastFrame; frame++) {
+            if (manifest.isCompleted(frame) && frameFile(frame).exists()) {
+                skippedCount++;
+            }
+            else {
+                manifest.clearCompleted(frame);
+                pending.add(frame);
+            }
+        }
+
+        // Predict the Render and Refine It as Frames Finish
+        RenderEstimator estimator = RenderEstimator.get();
+        progress = estimator.estimate(renderer.getFrameWidth(), renderer.getFrameHeight(),
+                renderer.getTriangleCount(), pending.size(), job.getFormat(), threads).start();
+
+        FrameSpool spool = openSpool(renderer, totalFrames);
+        try {
+            renderFrames(renderer, spool, manifest, pending);
+        } finally {
+            if (spool != null) {
+                spool.close();
+            }
+        }
+        estimator.record(progress);
+    }
+
+    /*
+     * Opens the Spool File if It Holds Frames of This Morph.
+     *
+     * @return      The spool, or null if there is none to use
+     */
+    private FrameSpool openSpool(MorphRenderer renderer, int totalFrames) throws IOException {
+        if (spoolFile == null) {
+            return null;
+        }
+
+        FrameSpool spool = FrameSpool.open(spoolFile);
+        if (!spool.matches(renderer.getMorphHash(), renderer.getFrameWidth(), renderer.getFrameHeight(), totalFrames)) {
+            spool.close();
+            System.out.println("Spool Holds Another Morph, Rendering Every Frame: " + spoolFile);
+            return null;
+        }
+        System.out.println("Reading " + spool.getWrittenCount() + " of " + totalFrames + " Frames from " + spoolFile);
+        return spool;
+    }
+
+    /*
+     * Loads the Manifest of an Earlier Run, or Starts a New One if It Does Not Match.
+     */
+    private ExportManifest openManifest(File directory, long morphHash, int totalFrames) throws IOException {
+        File file = ExportManifest.file(directory, firstFrame, lastFrame, totalFrames);
+        ExportManifest manifest = ExportManifest.load(file);
+        if (manifest == null || !manifest.matches(morphHash, totalFrames, job.getFormat())) {
+            manifest = new ExportManifest(file, morphHash, totalFrames, job.getFormat());
+            manifest.save();
+        }
+        return manifest;
+    }
+
+    /*
+     * Combines the Manifests Every Worker Left into the Manifest of the Whole Morph.
+     * Manifests of another morph are ignored. Once every frame is present, a
+     * frames.txt listing the sequence in order, with each frame's duration, is
+     * written for encoders such as ffmpeg's concat demuxer.
+     *
+     * @return      The number of frames still missing
+     */
+    public int merge() throws IOException {
+        File directory = job.getOutputDirectory();
+        int totalFrames = job.getTotalFrames();
+        long morphHash = job.createRenderer().getMorphHash();
+
+        ExportManifest merged = new ExportManifest(new File(directory, ExportManifest.FILE_NAME),
+                morphHash, totalFrames, job.getFormat());
+        for (File file : ExportManifest.list(directory)) {
+            ExportManifest part = ExportManifest.load(file);
+            if (part != null && part.matches(morphHash, totalFrames, job.getFormat())) {
+                merged.addCompleted(part);
+            }
+        }
+
+        int missing = 0;
+        for (int frame = 1; frame <= totalFrames; frame++) {
+            if (!merged.isCompleted(frame) || !frameFile(frame).exists()) {
+                merged.clearCompleted(frame);
+                missing++;
+            }
+        }
+        merged.save();
+
+        if (missing == 0) {
+            writeSequence(directory, totalFrames);
+        }
+        return missing;
+    }
+
+    /*
+     * Writes the Ordered Frame List of a Finished Morph.
+     */
+    private void writeSequence(File directory, int totalFrames) throws IOException {
+        double duration = 1.0 / job.getFramesPerSecond();
+        try (PrintWriter out = new PrintWriter(new FileWriter(new File(directory, "frames.txt")))) {
+            out.println("ffconcat version 1.0");
+            for (int frame = 1; frame <= totalFrames; frame++) {
+                out.println("file '" + frameFile(frame).getName() + "'");
+                out.println("duration " + duration);
+            }
+        }
+    }
+
+    /*
+     * Renders a List of Frames Through the Warp, Blend and Encode Pipeline.
+     */
+    private void renderFrames(MorphRenderer renderer, FrameSpool spool, ExportManifest manifest,
+                              List<Integer> frames) throws IOException {
+        pipeline = RenderPipeline.forBudget(renderer, job.getTotalFrames(), threads, MemoryBudget.fromProperties());
+        pipeline.setSpool(spool);
+        try {
+            pipeline.run(frames, (frame, image) -> {
+                long bytes = writeFrame(frame, image);
+                manifest.markCompleted(frame);
+                manifest.saveIfDue();
+                progress.frameFinished(bytes);
+                synchronized (this) {
+                    if (renderedCount++ == 0) {
+                        firstFrameTime = System.nanoTime();
+                    }
+                }
+            });
+        } finally {
+            // Record the Last Batch, Even if a Frame Failed
+            manifest.save();
+        }
+    }
+
+    /*
+     * Writes One Blended Frame.
+     *
+     * @return      The bytes written
+     */
+    private long writeFrame(int frame, BufferedImage image) throws IOException {
+
+        // Write Beside the Final Name and Move into Place Once Whole
+        File file = frameFile(frame);
+        File temporary = new File(file.getPath() + ".part");
+        RenderEvents.writeImage(image, job.getFormat(), temporary, frame);
+        ExportManifest.replace(temporary, file);
+        return file.length();
+    }
+
+    /*
+     * Retrieves the File for a Frame.
+     *
+     * @param   frame       The frame number, from 1
+     * @return              The frame file
+     */
+    public File frameFile(int frame) {
+        return new File(job.getOutputDirectory(), "Frame" + frame + "." + job.getFormat());
+    }
+
+    /*
+     * Describes the Throughput of Each Pipeline Stage in the Last Run.
+     *
+     * @return      The stage report, or an empty string before a run
+     */
+    public String getPipelineReport() {
+        return (pipeline == null) ? "" : pipeline.report();
+    }
+
+    /*
+     * Retrieves the Number of Frames the Last Run Rendered.
+     */
+    public synchronized int getRenderedCount() {
+        return renderedCount;
+    }
+
+    /*
+     * Retrieves When the Last Run Finished Writing Its First Frame.
+     *
+     * @return      The System.nanoTime() of the first frame, or 0 if none was rendered
+     */
+    public synchronized long getFirstFrameTime() {
+        return firstFrameTime;
+    }
+
+    /*
+     * Retrieves the Progress of the Current or Last Run.
+     *
+     * @return      The progress, or null before a run has found its frames
+     */
+    public RenderEstimator.Progress getProgress() {
+        return progress;
+    }
+
+    /*
+     * Retrieves the Number of Frames the Last Run Found Already Finished.
+     */
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import java.awt.image.BufferedImage;
+import java.nio.IntBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * One Blended Frame Handed to the Subscribers of a FramePublisher.
+ *
+ * Every subscriber sees the same pixels, so they must be treated as read only.
+ * Each subscriber calls release() once it is done with the frame; when the last
+ * one has, the pixels go back to the publisher for a later frame. A frame that is
+ * never released is simply left to the garbage collector.
+ */
+public class MorphFrame {
+
+    private final FramePublisher owner;
+    private final int frameCount, totalFrames;
+    private final int width, height;
+    private final int pixels[];
+    private final AtomicInteger references;
+
+    /*
+     * Constructor for the Morph Frame.
+     *
+     * @param   owner           The publisher the pixels return to
+     * @param   frameCount      The frame number, from 1
+     * @param   totalFrames     The total number of frames
+     * @param   width           The frame width
+     * @param   height          The frame height
+     * @param   pixels          The blended packed RGB pixels
+     * @param   references      The number of subscribers that will release the frame
+     */
+    MorphFrame(FramePublisher owner, int frameCount, int totalFrames, int width, int height,
+               int pixels[], int references) {
+        this.owner = owner;
+        this.frameCount = frameCount;
+        this.totalFrames = totalFrames;
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+        this.references = new AtomicInteger(references);
+    }
+
+    /*
+     * Marks the Frame as No Longer Needed by One Subscriber.
+     */
+    public void release() {
+        if (references.decrementAndGet() == 0) {
+            owner.recycle(pixels);
+        }
+    }
+
+    /*
+     * Views the Frame as a BufferedImage Sharing Its Pixels.
+     * The image is only valid until the frame is released.
+     *
+     * @return      The image
+     */
+    public BufferedImage asImage() {
+        return new FrameBuffer(width, height, IntBuffer.wrap(pixels)).asImage();
+    }
+
+    /*
+     * Retrieves the Blended Pixels.
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /*
+     * Retrieves the Frame Number, from 1.
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /*
+     * Retrieves the Total Number of Frames.
+     */
+    public int getTotalFrames() {
+        return totalFrames;
+    }
+
+    /*
+     * Retrieves the Frame Width.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /*
+     * Retrieves the Frame Height.
+     */
+    public int getHeight() {
+        return height;
+    }
+}
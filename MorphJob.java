@@ -0,0 +1,243 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Properties;
+
+/*
+ * Everything Needed to Render a Morph Without the User Interface.
+ *
+ * A job is saved as a properties file. Image and output paths in the file are
+ * resolved against the directory the file is in, so a job folder can be moved
+ * as a whole.
+ */
+public class MorphJob {
+
+    private final File startImageFile, endImageFile;
+    private final float startIntensity, endIntensity;
+    private final MorphMesh startMesh, endMesh;
+    private final int framesPerSecond, seconds;
+    private final File outputDirectory;
+    private final String format;
+
+    /*
+     * Constructor for the Morph Job.
+     *
+     * @param   startImageFile      The start image
+     * @param   startIntensity      The brightness multiplier of the start image
+     * @param   startMesh           The start image mesh
+     * @param   endImageFile        The end image
+     * @param   endIntensity        The brightness multiplier of the end image
+     * @param   endMesh             The end image mesh
+     * @param   framesPerSecond     The frames per second
+     * @param   seconds             The length of the morph in seconds
+     * @param   outputDirectory     The directory for the frames
+     * @param   format              The image format of the frames, such as jpg or png
+     */
+    public MorphJob(File startImageFile, float startIntensity, MorphMesh startMesh,
+                    File endImageFile, float endIntensity, MorphMesh endMesh,
+                    int framesPerSecond, int seconds, File outputDirectory, String format) {
+
+        this.startImageFile = startImageFile;
+        this.startIntensity = startIntensity;
+        this.startMesh = startMesh;
+        this.endImageFile = endImageFile;
+        this.endIntensity = endIntensity;
+        this.endMesh = endMesh;
+        this.framesPerSecond = framesPerSecond;
+        this.seconds = seconds;
+        this.outputDirectory = outputDirectory;
+        this.format = format;
+    }
+
+    /*
+     * Loads a Job from Its Properties File.
+     *
+     * @param   file        The job file
+     * @return              The job
+     */
+    public static MorphJob load(File file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = new FileReader(file)) {
+            properties.load(reader);
+        }
+        return fromProperties(properties, file.getAbsoluteFile().getParentFile());
+    }
+
+    /*
+     * Builds a Job from Properties, Resolving Paths Against a Directory.
+     *
+     * @param   properties  The job settings
+     * @param   directory   The directory relative paths start from
+     * @return              The job
+     */
+    public static MorphJob fromProperties(Properties properties, File directory) throws IOException {
+        try {
+            int columns = Integer.parseInt(required(properties, "columns"));
+            int rows = Integer.parseInt(required(properties, "rows"));
+
+            return new MorphJob(
+                    resolve(directory, required(properties, "startImage")),
+                    Float.parseFloat(properties.getProperty("startIntensity", "1")),
+                    MorphMesh.parse(columns, rows, required(properties, "startMesh")),
+                    resolve(directory, required(properties, "endImage")),
+                    Float.parseFloat(properties.getProperty("endIntensity", "1")),
+                    MorphMesh.parse(columns, rows, required(properties, "endMesh")),
+                    Integer.parseInt(required(properties, "framesPerSecond")),
+                    Integer.parseInt(required(properties, "seconds")),
+                    resolve(directory, properties.getProperty("output", "frames")),
+                    properties.getProperty("format", "jpg"));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid Morph Job: " + e.getMessage(), e);
+        }
+    }
+
+    /*
+     * Retrieves a Setting That Must Be Present.
+     */
+    private static String required(Properties properties, String name) {
+        String value = properties.getProperty(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + name);
+        }
+        return value;
+    }
+
+    /*
+     * Resolves a Path Against a Directory Unless It is Absolute.
+     */
+    private static File resolve(File directory, String path) {
+        File file = new File(path);
+        return (file.isAbsolute() || directory == null) ? file : new File(directory, path);
+    }
+
+    /*
+     * Saves the Job as a Properties File.
+     * Paths inside the job file's directory are written relative to it.
+     *
+     * @param   file        The job file
+     */
+    public void save(File file) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+
+        Properties properties = new Properties();
+        properties.setProperty("startImage", relativize(directory, startImageFile));
+        properties.setProperty("startIntensity", Float.toString(startIntensity));
+        properties.setProperty("endImage", relativize(directory, endImageFile));
+        properties.setProperty("endIntensity", Float.toString(endIntensity));
+        properties.setProperty("columns", Integer.toString(startMesh.getColumns()));
+        properties.setProperty("rows", Integer.toString(startMesh.getRows()));
+        properties.setProperty("startMesh", startMesh.format());
+        properties.setProperty("endMesh", endMesh.format());
+        properties.setProperty("framesPerSecond", Integer.toString(framesPerSecond));
+        properties.setProperty("seconds", Integer.toString(seconds));
+        properties.setProperty("output", relativize(directory, outputDirectory));
+        properties.setProperty("format", format);
+
+        try (Writer writer = new FileWriter(file)) {
+            properties.store(writer, "JMorph Job");
+        }
+    }
+
+    /*
+     * Writes a Path Relative to a Directory When It Lies Inside It.
+     */
+    private static String relativize(File directory, File file) {
+        String base = directory.getAbsolutePath() + File.separator;
+        String path = file.getAbsolutePath();
+        return path.startsWith(base) ? path.substring(base.length()) : path;
+    }
+
+    /*
+     * Reads Both Images and Creates the Renderer for the Job.
+     *
+     * @return      The morph renderer
+     */
+    public MorphRenderer createRenderer() throws IOException {
+        return createRenderer(readImage(startImageFile), readImage(endImageFile));
+    }
+
+    /*
+     * Creates the Renderer for the Job from Images Already Read.
+     *
+     * @param   startImage  The start image, of type TYPE_INT_RGB
+     * @param   endImage    The end image, of type TYPE_INT_RGB
+     * @return              The morph renderer
+     */
+    public MorphRenderer createRenderer(BufferedImage startImage, BufferedImage endImage) {
+        return new MorphRenderer(startImage, startIntensity, startMesh, endImage, endIntensity, endMesh);
+    }
+
+    /*
+     * Reads an Image as TYPE_INT_RGB.
+     */
+    private static BufferedImage readImage(File file) throws IOException {
+        BufferedImage image = RenderEvents.readImage(file);
+        if (image == null) {
+            throw new IOException("Unreadable Image: " + file);
+        }
+        return ImageView.toIntRGB(image);
+    }
+
+    /*
+     * Retrieves the Start Image File.
+     */
+    public File getStartImageFile() {
+        return startImageFile;
+    }
+
+    /*
+     * Retrieves the End Image File.
+     */
+    public File getEndImageFile() {
+        return endImageFile;
+    }
+
+    /*
+     * Retrieves the Total Number of Frames.
+     */
+    public int getTotalFrames() {
+        return framesPerSecond * seconds;
+    }
+
+    /*
+     * Retrieves the Number of Mesh Triangles Each Frame Warps.
+     */
+    public int getTriangleCount() {
+        return startMesh.triangles().length / 3;
+    }
+
+    /*
+     * Retrieves the Frames per Second.
+     */
+    public int getFramesPerSecond() {
+        return framesPerSecond;
+    }
+
+    /*
+     * Retrieves the Directory for the Frames.
+     */
+    public File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    /*
+     * Retrieves the Image Format of the Frames.
+     */
+    public String getFormat() {
+        return format;
+    }
+}
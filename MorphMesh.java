@@ -0,0 +1,222 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+/*
+ * Snapshot of a Control Point Grid, Border Points Included.
+ *
+ * Point (xi, yi) of the grid is stored at index (xi * (rows + 2)) + yi.
+ */
+public class MorphMesh {
+
+    private final int columns, rows;
+    private final double x[], y[];
+
+    /*
+     * Constructor for the Morph Mesh.
+     *
+     * @param   columns     The number of control point columns
+     * @param   rows        The number of control point rows
+     * @param   x           The x-coordinates of every grid point
+     * @param   y           The y-coordinates of every grid point
+     */
+    public MorphMesh(int columns, int rows, double x[], double y[]) {
+        this.columns = columns;
+        this.rows = rows;
+        this.x = x;
+        this.y = y;
+    }
+
+    /*
+     * Creates a Mesh from the Control Points as They Were Before Any Preview.
+     *
+     * @param   controlPoints   The control point grid
+     * @param   columns         The number of control point columns
+     * @param   rows            The number of control point rows
+     * @return                  The mesh
+     */
+    public static MorphMesh fromControlPoints(ControlPoint controlPoints[][], int columns, int rows) {
+        int count = (columns + 2) * (rows + 2);
+        double x[] = new double[count];
+        double y[] = new double[count];
+
+        for (int xi = 0; xi < (columns + 2); xi++) {
+            for (int yi = 0; yi < (rows + 2); yi++) {
+                int i = (xi * (rows + 2)) + yi;
+                x[i] = controlPoints[xi][yi].getPreviewStartXCoordinate();
+                y[i] = controlPoints[xi][yi].getPreviewStartYCoordinate();
+            }
+        }
+
+        return new MorphMesh(columns, rows, x, y);
+    }
+
+    /*
+     * Reads a Mesh Written by format().
+     *
+     * @param   columns     The number of control point columns
+     * @param   rows        The number of control point rows
+     * @param   text        The points as space separated x,y pairs in index order
+     * @return              The mesh
+     */
+    public static MorphMesh parse(int columns, int rows, String text) {
+        int count = (columns + 2) * (rows + 2);
+        String pairs[] = text.trim().split("\\s+");
+        if (pairs.length != count) {
+            throw new IllegalArgumentException("Expected " + count + " mesh points but found " + pairs.length);
+        }
+
+        double x[] = new double[count];
+        double y[] = new double[count];
+        for (int i = 0; i < count; i++) {
+            int comma = pairs[i].indexOf(',');
+            if (comma < 0) {
+                throw new IllegalArgumentException("Mesh point is not an x,y pair: " + pairs[i]);
+            }
+            x[i] = Double.parseDouble(pairs[i].substring(0, comma));
+            y[i] = Double.parseDouble(pairs[i].substring(comma + 1));
+        }
+
+        return new MorphMesh(columns, rows, x, y);
+    }
+
+    /*
+     * Writes the Mesh Points as Space Separated x,y Pairs in Index Order.
+     *
+     * @return      The text form of the points
+     */
+    public String format() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < x.length; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(x[i]).append(',').append(y[i]);
+        }
+        return text.toString();
+    }
+
+    /*
+     * Finds the Point Locations Part of the Way to Another Mesh.
+     *
+     * @param   end             The mesh to move toward
+     * @param   frameCount      The current frame count
+     * @param   totalFrames     The total number of frames
+     * @param   outX            The array to hold the x-coordinates
+     * @param   outY            The array to hold the y-coordinates
+     */
+    public void interpolate(MorphMesh end, int frameCount, int totalFrames, double outX[], double outY[]) {
+        for (int i = 0; i < x.length; i++) {
+            outX[i] = (frameCount * ((end.x[i] - x[i]) / totalFrames)) + x[i];
+            outY[i] = (frameCount * ((end.y[i] - y[i]) / totalFrames)) + y[i];
+        }
+    }
+
+    /*
+     * Lists the Mesh Triangles as Point Indices, Three per Triangle.
+     * Each grid cell is split along its diagonal, except the cells at the top right
+     * and bottom left which are split along the other diagonal.
+     *
+     * @return      The triangle point indices
+     */
+    public int[] triangles() {
+        int triangles[] = new int[(columns + 1) * (rows + 1) * 6];
+        int t = 0;
+
+        for (int xi = 0; xi < (columns + 1); xi++) {
+            for (int yi = 0; yi < (rows + 1); yi++) {
+                int p1 = index(xi, yi);
+                int p2 = index(xi + 1, yi);
+                int p3 = index(xi + 1, yi + 1);
+                int p4 = index(xi, yi + 1);
+
+                // Check for the Top Right and Bottom Left
+                if (((xi == columns) && (yi == 1))
+                        || ((xi == 1) && (yi == rows))) {
+                    t = addTriangle(triangles, t, p1, p2, p4);
+                    t = addTriangle(triangles, t, p2, p3, p4);
+                }
+                else {
+                    t = addTriangle(triangles, t, p1, p2, p3);
+                    t = addTriangle(triangles, t, p3, p4, p1);
+                }
+            }
+        }
+
+        return triangles;
+    }
+
+    /*
+     * Stores One Triangle.
+     */
+    private static int addTriangle(int triangles[], int t, int a, int b, int c) {
+        triangles[t] = a;
+        triangles[t + 1] = b;
+        triangles[t + 2] = c;
+        return t + 3;
+    }
+
+    /*
+     * Retrieves the Index of a Grid Point.
+     *
+     * @param   xi      The x position in the grid
+     * @param   yi      The y position in the grid
+     * @return          The index into the coordinate arrays
+     */
+    public int index(int xi, int yi) {
+        return (xi * (rows + 2)) + yi;
+    }
+
+    /*
+     * Retrieves the Number of Grid Points.
+     *
+     * @return      The number of points, border included
+     */
+    public int pointCount() {
+        return x.length;
+    }
+
+    /*
+     * Retrieves the Number of Control Point Columns.
+     *
+     * @return      The number of columns
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /*
+     * Retrieves the Number of Control Point Rows.
+     *
+     * @return      The number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /*
+     * Retrieves the X-Coordinate of a Grid Point.
+     *
+     * @param   i       The point index
+     * @return          The x-coordinate
+     */
+    public double getX(int i) {
+        return x[i];
+    }
+
+    /*
+     * Retrieves the Y-Coordinate of a Grid Point.
+     *
+     * @param   i       The point index
+     * @return          The y-coordinate
+     */
+    public double getY(int i) {
+        return y[i];
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import java.awt.image.BufferedImage;
+
+/*
+ * Renders the Warped Start and End Images for Each Frame of a Morph.
+ *
+ * For every frame the intermediate mesh is rasterized once into a span table, and
+ * both source images are sampled through that one table. The start and end warps of
+ * a frame therefore cover exactly the same pixels with the same triangles. Frames
+ * may be rendered from several threads at once; each thread keeps its own scratch.
+ */
+public class MorphRenderer {
+
+    // Source Images and Their Meshes
+    private final int startPixels[], endPixels[];
+    private final int startWidth, startHeight, endWidth, endHeight;
+    private final MorphMesh startMesh, endMesh;
+    private final int triangles[];
+
+    // Brightness Tables, Null When the Intensity is Unchanged
+    private final int startScaled[], endScaled[];
+    private final int startLimit, endLimit;
+
+    // Identity of the Morph, Found the First Time It is Asked For
+    private final float startIntensity, endIntensity;
+    private long morphHash;
+    private boolean isHashed = false;
+
+    // Per Thread Raster and Mesh Scratch
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /*
+     * Constructor for the Morph Renderer.
+     *
+     * @param   startImage          The start image, of type TYPE_INT_RGB
+     * @param   startIntensity      The brightness multiplier of the start image
+     * @param   startMesh           The start image mesh
+     * @param   endImage            The end image, of type TYPE_INT_RGB
+     * @param   endIntensity        The brightness multiplier of the end image
+     * @param   endMesh             The end image mesh
+     */
+    public MorphRenderer(BufferedImage startImage, float startIntensity, MorphMesh startMesh,
+                         BufferedImage endImage, float endIntensity, MorphMesh endMesh) {
+
+        startPixels = IntensityEngine.pixels(startImage);
+        startWidth = startImage.getWidth();
+        startHeight = startImage.getHeight();
+        endPixels = IntensityEngine.pixels(endImage);
+        endWidth = endImage.getWidth();
+        endHeight = endImage.getHeight();
+
+        this.startMesh = startMesh;
+        this.endMesh = endMesh;
+        triangles = startMesh.triangles();
+
+        startScaled = (startIntensity == 1f) ? null : IntensityEngine.scaledTable(startIntensity);
+        startLimit = IntensityEngine.saturationLimit(startIntensity);
+        endScaled = (endIntensity == 1f) ? null : IntensityEngine.scaledTable(endIntensity);
+        endLimit = IntensityEngine.saturationLimit(endIntensity);
+
+        this.startIntensity = startIntensity;
+        this.endIntensity = endIntensity;
+    }
+
+    /*
+     * Hashes Everything that Decides How the Frames Look.
+     * Two renderers with the same hash produce the same frames, so the hash can key
+     * frames cached from an earlier morph.
+     *
+     * @return      The 64-bit morph hash
+     */
+    public synchronized long getMorphHash() {
+        if (!isHashed) {
+            long h = 0xCBF29CE484222325L;
+            h = mix(h, startWidth);
+            h = mix(h, startHeight);
+            h = mix(h, endWidth);
+            h = mix(h, endHeight);
+            h = mix(h, Float.floatToIntBits(startIntensity));
+            h = mix(h, Float.floatToIntBits(endIntensity));
+
+            for (int pixel : startPixels) {
+                h = mix(h, pixel);
+            }
+            for (int pixel : endPixels) {
+                h = mix(h, pixel);
+            }
+            for (int i = 0; i < startMesh.pointCount(); i++) {
+                h = mix(h, Double.doubleToLongBits(startMesh.getX(i)));
+                h = mix(h, Double.doubleToLongBits(startMesh.getY(i)));
+                h = mix(h, Double.doubleToLongBits(endMesh.getX(i)));
+                h = mix(h, Double.doubleToLongBits(endMesh.getY(i)));
+            }
+
+            morphHash = h;
+            isHashed = true;
+        }
+        return morphHash;
+    }
+
+    /*
+     * Folds a Value into a Running Hash.
+     */
+    private static long mix(long h, long value) {
+        h ^= value;
+        h *= 0x100000001B3L;
+        return h ^ (h >>> 29);
+    }
+
+    /*
+     * Renders the Warped Start and End Images of a Frame into Frame Buffers.
+     * Off heap buffers are rendered through per thread scratch and copied in once.
+     *
+     * @param   frameCount      The current frame count
+     * @param   totalFrames     The total number of frames
+     * @param   startOut        The frame to hold the warped start image
+     * @param   endOut          The frame to hold the warped end image
+     */
+    public void renderFrame(int frameCount, int totalFrames, FrameBuffer startOut, FrameBuffer endOut) {
+        if (startOut.hasArray() && endOut.hasArray()) {
+            renderFrame(frameCount, totalFrames, startOut.array(), endOut.array());
+            return;
+        }
+
+        Scratch s = scratch.get();
+        s.ensurePixels(startWidth * startHeight);
+        renderFrame(frameCount, totalFrames, s.startPixels, s.endPixels);
+        startOut.write(s.startPixels);
+        endOut.write(s.endPixels);
+    }
+
+    /*
+     * Renders the Warped Start and End Images of a Frame.
+     * Frame 0 is the start mesh and frame totalFrames is the end mesh.
+     *
+     * @param   frameCount      The current frame count
+     * @param   totalFrames     The total number of frames
+     * @param   startOut        The pixels to hold the warped start image
+     * @param   endOut          The pixels to hold the warped end image
+     */
+    public void renderFrame(int frameCount, int totalFrames, int startOut[], int endOut[]) {
+        Scratch s = scratch.get();
+        s.ensureCapacity(startMesh.pointCount(), triangles.length / 3);
+
+        // Find the New Point Locations and Rasterize Them Once
+        RenderEvents.MeshInterpolation interpolation = new RenderEvents.MeshInterpolation();
+        interpolation.start();
+        startMesh.interpolate(endMesh, frameCount, totalFrames, s.x, s.y);
+        interpolation.finish(frameCount, triangles.length / 3, 0, 0);
+
+        RenderEvents.Warp warp = new RenderEvents.Warp();
+        warp.start();
+        s.raster.rasterize(s.x, s.y, triangles, startWidth, startHeight);
+
+        // Map Each Intermediate Triangle Back into Both Sources
+        for (int t = 0; t < triangles.length / 3; t++) {
+            inverseMap(s.x, s.y, startMesh, t, s.startMap);
+            inverseMap(s.x, s.y, endMesh, t, s.endMap);
+        }
+
+        MeshRaster raster = s.raster;
+        for (int y = 0; y < startHeight; y++) {
+            int rowOffset = y * startWidth;
+            double yc = y + 0.5;
+            int x = 0;
+
+            for (int span = raster.rowStart(y); span < raster.rowEnd(y); span++) {
+                int x0 = Math.max(x, raster.spanStart(span));
+                int x1 = raster.spanEnd(span);
+
+                // Pixels No Triangle Covers Keep Their Own Location
+                fillUncovered(rowOffset, x, x0, y, startOut, endOut);
+
+                int m = 6 * raster.spanTriangle(span);
+                double xc = x0 + 0.5;
+                double[] sm = s.startMap, em = s.endMap;
+
+                WarpKernel.warpSpan(startPixels, startWidth, startHeight, startOut, rowOffset, x0, x1,
+                        sm[m] + sm[m + 1] * xc + sm[m + 2] * yc, sm[m + 3] + sm[m + 4] * xc + sm[m + 5] * yc,
+                        sm[m + 1], sm[m + 4], startScaled, startLimit);
+                WarpKernel.warpSpan(endPixels, endWidth, endHeight, endOut, rowOffset, x0, x1,
+                        em[m] + em[m + 1] * xc + em[m + 2] * yc, em[m + 3] + em[m + 4] * xc + em[m + 5] * yc,
+                        em[m + 1], em[m + 4], endScaled, endLimit);
+
+                x = Math.max(x, x1);
+            }
+
+            fillUncovered(rowOffset, x, startWidth, y, startOut, endOut);
+        }
+        warp.finish(frameCount, triangles.length / 3, (long) startWidth * startHeight, 0);
+    }
+
+    /*
+     * Copies the Source Pixels at Their Own Location Where No Triangle Covers.
+     */
+    private void fillUncovered(int rowOffset, int from, int to, int y, int startOut[], int endOut[]) {
+        for (int x = from; x < to; x++) {
+            startOut[rowOffset + x] = WarpKernel.sample(startPixels, startWidth, startHeight, x, y, startScaled, startLimit);
+            endOut[rowOffset + x] = WarpKernel.sample(endPixels, endWidth, endHeight, x, y, endScaled, endLimit);
+        }
+    }
+
+    /*
+     * Solves the Affine Map from an Intermediate Triangle Back to a Source Triangle.
+     * Stores u = c0 + c1 x + c2 y and v = c3 + c4 x + c5 y, already shifted so that
+     * pixel centers line up.
+     */
+    private void inverseMap(double x[], double y[], MorphMesh source, int t, double map[]) {
+        int a = triangles[3 * t], b = triangles[3 * t + 1], c = triangles[3 * t + 2];
+        int m = 6 * t;
+
+        double det = (x[b] - x[a]) * (y[c] - y[a]) - (x[c] - x[a]) * (y[b] - y[a]);
+        if (det == 0) {
+            map[m] = -0.5; map[m + 1] = 1; map[m + 2] = 0;
+            map[m + 3] = -0.5; map[m + 4] = 0; map[m + 5] = 1;
+            return;
+        }
+
+        double ix = (y[c] - y[a]) / det, iy = -(x[c] - x[a]) / det;
+        double jx = -(y[b] - y[a]) / det, jy = (x[b] - x[a]) / det;
+
+        double ux1 = source.getX(b) - source.getX(a), ux2 = source.getX(c) - source.getX(a);
+        double uy1 = source.getY(b) - source.getY(a), uy2 = source.getY(c) - source.getY(a);
+
+        double ax = ux1 * ix + ux2 * jx, ay = ux1 * iy + ux2 * jy;
+        double bx = uy1 * ix + uy2 * jx, by = uy1 * iy + uy2 * jy;
+
+        map[m] = source.getX(a) - ax * x[a] - ay * y[a] - 0.5;
+        map[m + 1] = ax;
+        map[m + 2] = ay;
+        map[m + 3] = source.getY(a) - bx * x[a] - by * y[a] - 0.5;
+        map[m + 4] = bx;
+        map[m + 5] = by;
+    }
+
+    /*
+     * Creates an Image the Size of a Rendered Frame.
+     *
+     * @return      A new TYPE_INT_RGB image
+     */
+    public BufferedImage createFrameImage() {
+        return new BufferedImage(startWidth, startHeight, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /*
+     * Retrieves the Width of a Rendered Frame.
+     */
+    public int getFrameWidth() {
+        return startWidth;
+    }
+
+    /*
+     * Retrieves the Height of a Rendered Frame.
+     */
+    public int getFrameHeight() {
+        return startHeight;
+    }
+
+    /*
+     * Retrieves the Number of Triangles in the Mesh.
+     */
+    public int getTriangleCount() {
+        return triangles.length / 3;
+    }
+
+    /*
+     * Per Thread Working Space.
+     */
+    private static class Scratch {
+        MeshRaster raster = new MeshRaster();
+        double x[] = new double[0], y[] = new double[0];
+        double startMap[] = new double[0], endMap[] = new double[0];
+        int startPixels[] = new int[0], endPixels[] = new int[0];
+
+        void ensurePixels(int count) {
+            if (startPixels.length < count) {
+                startPixels = new int[count];
+                endPixels = new int[count];
+            }
+        }
+
+        void ensureCapacity(int points, int triangleCount) {
+            if (x.length < points) {
+                x = new double[points];
+                y = new double[points];
+            }
+            if (startMap.length < 6 * triangleCount) {
+                startMap = new double[6 * triangleCount];
+                endMap = new double[6 * triangleCount];
+            }
+        }
+    }
+}
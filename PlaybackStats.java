@@ -0,0 +1,182 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import java.awt.*;
+
+/*
+ * Frame Timing of Preview or Morph Playback, Drawn as an Overlay.
+ *
+ * The controller reports how long each frame took to render and the image view
+ * reports when it painted it. From these come the achieved frame rate, a histogram
+ * of the time between painted frames, the frames dropped, and how long frames took
+ * to render and then to reach the screen. A frame is dropped when a newer frame
+ * replaces it before it is painted, or when a gap between painted frames is long
+ * enough to have shown another frame at the target rate.
+ *
+ * Used only on the event dispatch thread.
+ */
+public class PlaybackStats {
+
+    // Frames the Rolling Figures Cover
+    private static final int WINDOW = 120;
+
+    // Histogram Buckets, Each a Quarter of the Target Frame Time, the Last Open Ended
+    private static final int BUCKETS = 12;
+    private static final int BUCKETS_PER_FRAME = 4;
+
+    private static final Color BACKGROUND = new Color(0, 0, 0, 160);
+    private static final Color ON_TARGET = new Color(120, 220, 120);
+    private static final Color LATE = new Color(240, 110, 90);
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+
+    // Rolling Timings in Nanoseconds, Indexed by Frame Modulo WINDOW
+    private final long intervals[] = new long[WINDOW];
+    private final long renderTimes[] = new long[WINDOW];
+    private final long presentTimes[] = new long[WINDOW];
+    private int presentedCount = 0;
+
+    private int targetFps = 1;
+    private int droppedCount = 0;
+
+    // The Frame Rendered but Not Yet Painted
+    private boolean isPending = false;
+    private long pendingRenderTime, pendingReadyAt;
+    private long lastPresentedAt = 0;
+
+    /*
+     * Clears Every Figure, for a New Preview or Morph.
+     */
+    public void reset() {
+        presentedCount = 0;
+        droppedCount = 0;
+        isPending = false;
+        lastPresentedAt = 0;
+    }
+
+    /*
+     * Records a Frame Rendered and Waiting to Be Painted.
+     *
+     * @param   renderNanos     How long the frame took to render
+     * @param   targetFps       The frame rate playback is aiming for
+     */
+    public void frameRendered(long renderNanos, int targetFps) {
+        this.targetFps = Math.max(1, targetFps);
+
+        // The Previous Frame Was Never Painted
+        if (isPending) {
+            droppedCount++;
+        }
+        isPending = true;
+        pendingRenderTime = renderNanos;
+        pendingReadyAt = System.nanoTime();
+    }
+
+    /*
+     * Records That the View Painted, Completing the Pending Frame if There is One.
+     */
+    public void framePresented() {
+        if (!isPending) {
+            return;
+        }
+        isPending = false;
+
+        long now = System.nanoTime();
+        int slot = presentedCount % WINDOW;
+        renderTimes[slot] = pendingRenderTime;
+        presentTimes[slot] = now - pendingReadyAt;
+        intervals[slot] = (lastPresentedAt == 0) ? 0 : now - lastPresentedAt;
+
+        // Gaps Long Enough for More Frames Count the Frames Missed
+        if (lastPresentedAt != 0) {
+            long target = targetNanos();
+            droppedCount += Math.max(0, (int) ((intervals[slot] + target / 2) / target) - 1);
+        }
+
+        lastPresentedAt = now;
+        presentedCount++;
+    }
+
+    /*
+     * Retrieves the Frames per Second Achieved over the Rolling Window.
+     */
+    public double getAchievedFps() {
+        long total = 0;
+        int count = 0;
+        for (int i = 0; i < Math.min(presentedCount, WINDOW); i++) {
+            if (intervals[i] > 0) {
+                total += intervals[i];
+                count++;
+            }
+        }
+        return (total == 0) ? 0 : count * 1e9 / total;
+    }
+
+    /*
+     * Retrieves the Number of Frames Dropped Since the Last Reset.
+     */
+    public int getDroppedCount() {
+        return droppedCount;
+    }
+
+    /*
+     * Retrieves the Time One Frame Should Take at the Target Rate.
+     */
+    private long targetNanos() {
+        return 1000000000L / targetFps;
+    }
+
+    /*
+     * Averages a Rolling Timing, in Milliseconds.
+     */
+    private double averageMillis(long times[]) {
+        int count = Math.min(presentedCount, WINDOW);
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += times[i];
+        }
+        return (count == 0) ? 0 : total / 1e6 / count;
+    }
+
+    /*
+     * Draws the Figures in the Top Left Corner of a View.
+     *
+     * @param   g2d     The graphics of the view
+     */
+    public void paintOverlay(Graphics2D g2d) {
+        int x = 6, y = 6, width = 190, height = 94;
+        g2d.setColor(BACKGROUND);
+        g2d.fillRect(x, y, width, height);
+
+        g2d.setFont(FONT);
+        g2d.setColor(Color.WHITE);
+        g2d.drawString(String.format("fps %5.1f / %d", getAchievedFps(), targetFps), x + 6, y + 14);
+        g2d.drawString("dropped " + droppedCount, x + 6, y + 28);
+        g2d.drawString(String.format("render %5.1f ms", averageMillis(renderTimes)), x + 6, y + 42);
+        g2d.drawString(String.format("present %4.1f ms", averageMillis(presentTimes)), x + 6, y + 56);
+
+        // Frame Time Histogram, Green Up to the Target Frame Time and Red Past It
+        int counts[] = new int[BUCKETS];
+        int most = 1;
+        long bucketNanos = targetNanos() / BUCKETS_PER_FRAME;
+        for (int i = 0; i < Math.min(presentedCount, WINDOW); i++) {
+            if (intervals[i] > 0) {
+                int bucket = (int) Math.min(BUCKETS - 1, intervals[i] / Math.max(1, bucketNanos));
+                most = Math.max(most, ++counts[bucket]);
+            }
+        }
+
+        int barWidth = (width - 12) / BUCKETS, barTop = y + 62, barHeight = 26;
+        for (int b = 0; b < BUCKETS; b++) {
+            int h = counts[b] * barHeight / most;
+            g2d.setColor((b < BUCKETS_PER_FRAME + 1) ? ON_TARGET : LATE);
+            g2d.fillRect(x + 6 + b * barWidth, barTop + barHeight - h, barWidth - 1, h);
+        }
+    }
+}
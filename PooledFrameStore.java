@@ -0,0 +1,78 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+/*
+ * Frame Store Holding Every Frame in Memory.
+ *
+ * The buffers come from a FramePool and go back to it when the store is closed,
+ * so the next morph of the same size allocates nothing.
+ */
+public class PooledFrameStore implements FrameStore {
+
+    private final FramePool pool;
+    private final int width, height;
+    private final FrameBuffer startFrames[], endFrames[];
+    private final boolean written[];
+
+    /*
+     * Constructor for the Pooled Frame Store.
+     *
+     * @param   pool            The pool to take buffers from
+     * @param   width           The frame width
+     * @param   height          The frame height
+     * @param   frameCount      The number of frames
+     */
+    public PooledFrameStore(FramePool pool, int width, int height, int frameCount) {
+        this.pool = pool;
+        this.width = width;
+        this.height = height;
+
+        startFrames = new FrameBuffer[frameCount];
+        endFrames = new FrameBuffer[frameCount];
+        written = new boolean[frameCount];
+        for (int i = 0; i < frameCount; i++) {
+            startFrames[i] = pool.acquire(width, height);
+            endFrames[i] = pool.acquire(width, height);
+        }
+    }
+
+    public FrameBuffer startFrame(int frame) {
+        return startFrames[frame];
+    }
+
+    public FrameBuffer endFrame(int frame) {
+        return endFrames[frame];
+    }
+
+    public void markWritten(int frame) {
+        written[frame] = true;
+    }
+
+    public boolean isWritten(int frame) {
+        return written[frame];
+    }
+
+    public int getFrameCount() {
+        return startFrames.length;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public void close() {
+        pool.releaseAll(startFrames);
+        pool.releaseAll(endFrames);
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.image.BufferedImage;
+
+/*
+ * Slow Reference Renderer Drawing Morph Frames the Way the Original View Did.
+ *
+ * Brightness is changed pixel by pixel through HSB, as ImageView.changeIntensity
+ * first did. Each triangle is drawn by Java2D through an affine transform, clipped
+ * to the destination triangle with antialiasing and bicubic interpolation, as
+ * View.setWarpFrame did, and the two warps are blended with AlphaComposite, as
+ * View.showMorphFrame did. Golden frames are recorded from it, so they do not
+ * depend on the renderer they check.
+ *
+ * The mesh and frame positions follow MorphRenderer: frame n is the mesh n/total
+ * of the way from start to end, and both warps are drawn onto a copy of their
+ * source at its own location, clamped at the source edges. The original view
+ * also drew each frame over the previous one, and paired start frame n - 1 with
+ * end frame total - n; those slips are not kept.
+ */
+public class ReferenceMorph {
+
+    private final BufferedImage startImage, endImage;
+    private final MorphMesh startMesh, endMesh;
+    private final int triangles[];
+
+    /*
+     * Constructor for the Reference Morph.
+     *
+     * @param   startImage          The start image
+     * @param   startIntensity      The brightness multiplier of the start image
+     * @param   startMesh           The start image mesh
+     * @param   endImage            The end image
+     * @param   endIntensity        The brightness multiplier of the end image
+     * @param   endMesh             The end image mesh
+     */
+    public ReferenceMorph(BufferedImage startImage, float startIntensity, MorphMesh startMesh,
+                          BufferedImage endImage, float endIntensity, MorphMesh endMesh) {
+        this.startImage = changeIntensity(startImage, startIntensity);
+        this.endImage = changeIntensity(endImage, endIntensity);
+        this.startMesh = startMesh;
+        this.endMesh = endMesh;
+        triangles = startMesh.triangles();
+    }
+
+    /*
+     * Changes the Brightness of Every Pixel Through HSB.
+     *
+     * @param   image           The image
+     * @param   percentage      The brightness multiplier
+     * @return                  A new TYPE_INT_RGB image
+     */
+    public static BufferedImage changeIntensity(BufferedImage image, float percentage) {
+        BufferedImage adjusted = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        float hsbvals[] = {0, 0, 0};
+
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int rgb = image.getRGB(x, y);
+                Color.RGBtoHSB((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF, hsbvals);
+
+                float newBrightness = Math.min(1f, hsbvals[2] * percentage);
+                adjusted.setRGB(x, y, Color.HSBtoRGB(hsbvals[0], hsbvals[1], newBrightness));
+            }
+        }
+        return adjusted;
+    }
+
+    /*
+     * Renders One Blended Frame.
+     *
+     * @param   frameCount      The current frame count
+     * @param   totalFrames     The total number of frames
+     * @return                  A new TYPE_INT_RGB image the size of the start image
+     */
+    public BufferedImage renderFrame(int frameCount, int totalFrames) {
+        int width = startImage.getWidth(), height = startImage.getHeight();
+        double x[] = new double[startMesh.pointCount()], y[] = new double[startMesh.pointCount()];
+        startMesh.interpolate(endMesh, frameCount, totalFrames, x, y);
+
+        BufferedImage startFrame = warp(startImage, startMesh, x, y, width, height);
+        BufferedImage endFrame = warp(endImage, endMesh, x, y, width, height);
+
+        BufferedImage combinedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = combinedImage.createGraphics();
+
+        g2d.setComposite(AlphaComposite.SrcOver.derive(1 - ((float) frameCount / totalFrames)));
+        g2d.drawImage(startFrame, 0, 0, null);
+
+        g2d.setComposite(AlphaComposite.SrcOver.derive((float) frameCount / totalFrames));
+        g2d.drawImage(endFrame, 0, 0, null);
+        g2d.dispose();
+
+        return combinedImage;
+    }
+
+    /*
+     * Warps Every Source Triangle onto the Intermediate Mesh.
+     */
+    private BufferedImage warp(BufferedImage src, MorphMesh source, double x[], double y[], int width, int height) {
+        BufferedImage dest = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+
+        // Pixels No Triangle Covers Keep Their Own Location, Clamped to the Source
+        for (int j = 0; j < height; j++) {
+            for (int i = 0; i < width; i++) {
+                dest.setRGB(i, j, src.getRGB(Math.min(i, src.getWidth() - 1), Math.min(j, src.getHeight() - 1)));
+            }
+        }
+
+        for (int t = 0; t < triangles.length; t += 3) {
+            int a = triangles[t], b = triangles[t + 1], c = triangles[t + 2];
+            Triangle S = new Triangle(source.getX(a), source.getY(a), source.getX(b), source.getY(b),
+                    source.getX(c), source.getY(c));
+            Triangle D = new Triangle(x[a], y[a], x[b], y[b], x[c], y[c]);
+            setWarpFrame(src, dest, S, D);
+        }
+        return dest;
+    }
+
+    /*
+     * Draws One Source Triangle onto a Destination Triangle.
+     */
+    private static void setWarpFrame(BufferedImage src, BufferedImage dest, Triangle S, Triangle D) {
+        AffineTransform af;
+        try {
+            // The Map Taking the Source Corners to the Destination Corners
+            af = corners(D);
+            af.concatenate(corners(S).createInverse());
+        } catch (NoninvertibleTransformException e) {
+            return;
+        }
+
+        GeneralPath destPath = new GeneralPath(GeneralPath.WIND_EVEN_ODD);
+        destPath.moveTo((float) D.getX(0), (float) D.getY(0));
+        destPath.lineTo((float) D.getX(1), (float) D.getY(1));
+        destPath.lineTo((float) D.getX(2), (float) D.getY(2));
+        destPath.lineTo((float) D.getX(0), (float) D.getY(0));
+
+        Graphics2D g2 = dest.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g2.clip(destPath);
+        g2.setTransform(af);
+        g2.drawImage(src, 0, 0, null);
+        g2.dispose();
+    }
+
+    /*
+     * Creates the Transform Taking (0, 0), (1, 0) and (0, 1) to the Corners of a Triangle.
+     */
+    private static AffineTransform corners(Triangle T) {
+        return new AffineTransform(T.getX(1) - T.getX(0), T.getY(1) - T.getY(0),
+                T.getX(2) - T.getX(0), T.getY(2) - T.getY(0), T.getX(0), T.getY(0));
+    }
+}
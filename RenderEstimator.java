@@ -0,0 +1,530 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/*
+ * Predicts How Long a Render Will Take and How Much Output It Will Write.
+ *
+ * Rendering cost grows with the pixels of each frame plus a small cost per mesh
+ * triangle, and shrinks with the threads that share it, up to the cores there are.
+ * Every finished render is added to a history file, and estimates use the cost
+ * per pixel and the bytes per pixel of the earlier runs most like the new one: the
+ * same format, with the nearest frame size and thread count. Until there are
+ * runs of a format, built-in figures from a typical machine stand in.
+ *
+ * An estimate is refined as its frames finish, moving from the prediction toward
+ * the rate actually seen.
+ *
+ * The history is jmorph.renderHistory, by default .jmorph/render-history.txt in
+ * the home directory; set it empty to keep no history.
+ */
+public class RenderEstimator {
+
+    // Format of In-Memory Morphs, Warped but Not Encoded
+    public static final String IN_MEMORY = "memory";
+
+    // Work of Setting Up One Triangle, in Pixels
+    private static final int TRIANGLE_PIXELS = 20;
+
+    // Single-Thread Nanoseconds and Output Bytes per Pixel Before There is History
+    private static final String DEFAULT_FORMATS[] = {"jpg", "png", "bmp", IN_MEMORY};
+    private static final double DEFAULT_NANOS[] = {120, 220, 100, 50};
+    private static final double DEFAULT_BYTES[] = {0.2, 2.0, 3.0, 8.0};
+    private static final double OTHER_NANOS = 150, OTHER_BYTES = 2.0;
+
+    // Earlier Runs an Estimate Draws On, and the Most Runs Kept
+    private static final int NEAREST_RUNS = 8;
+    private static final int MAX_HISTORY = 500;
+
+    // Finished Frames at Which the Observed Rate Counts as Much as the Prediction
+    private static final int PRIOR_FRAMES = 5;
+
+    private static RenderEstimator instance;
+
+    private final File historyFile;
+    private final int cores = Runtime.getRuntime().availableProcessors();
+
+    // Earlier Runs, Oldest First, Guarded by this
+    private final List<Run> history = new ArrayList<>();
+
+    /*
+     * Constructor for the Render Estimator.
+     *
+     * @param   historyFile     The file of earlier runs, or null to keep none
+     */
+    public RenderEstimator(File historyFile) {
+        this.historyFile = historyFile;
+        if (historyFile != null && historyFile.isFile()) {
+            loadHistory();
+        }
+    }
+
+    /*
+     * Retrieves the Estimator Configured by System Properties, Loading Its History on First Use.
+     *
+     * @return      The render estimator
+     */
+    public static synchronized RenderEstimator get() {
+        if (instance == null) {
+            String path = System.getProperty("jmorph.renderHistory",
+                    new File(new File(System.getProperty("user.home"), ".jmorph"), "render-history.txt").getPath());
+            instance = new RenderEstimator(path.isEmpty() ? null : new File(path));
+        }
+        return instance;
+    }
+
+    /*
+     * Estimates a Render.
+     *
+     * @param   width       The frame width
+     * @param   height      The frame height
+     * @param   triangles   The number of mesh triangles
+     * @param   frames      The number of frames to render
+     * @param   format      The image format of the frames, or IN_MEMORY
+     * @param   threads     The threads rendering frames
+     * @return              The estimate
+     */
+    public Estimate estimate(int width, int height, int triangles, int frames, String format, int threads) {
+        Run wanted = new Run(format.toLowerCase(Locale.ROOT), width, height, triangles, frames, threads, cores, 0, 0);
+
+        // The Earlier Runs of This Format Nearest in Size and Threads
+        List<Run> similar = new ArrayList<>();
+        synchronized (this) {
+            for (Run run : history) {
+                if (run.format.equals(wanted.format)) {
+                    similar.add(run);
+                }
+            }
+        }
+        similar.sort((a, b) -> Double.compare(wanted.distance(a), wanted.distance(b)));
+        similar = similar.subList(0, Math.min(NEAREST_RUNS, similar.size()));
+
+        double nanosPerUnit, bytesPerPixel;
+        if (similar.isEmpty()) {
+            int i = Arrays.asList(DEFAULT_FORMATS).indexOf(wanted.format);
+            nanosPerUnit = (i < 0) ? OTHER_NANOS : DEFAULT_NANOS[i];
+            bytesPerPixel = (i < 0) ? OTHER_BYTES : DEFAULT_BYTES[i];
+        }
+        else {
+            double costs[] = new double[similar.size()];
+            double sizes[] = new double[similar.size()];
+            for (int i = 0; i < costs.length; i++) {
+                costs[i] = similar.get(i).nanosPerUnit();
+                sizes[i] = similar.get(i).bytesPerPixel();
+            }
+            nanosPerUnit = median(costs);
+            bytesPerPixel = median(sizes);
+        }
+
+        double seconds = wanted.units() * nanosPerUnit / wanted.parallelism() / 1e9;
+        long bytes = (long) (bytesPerPixel * width * height * frames);
+        return new Estimate(wanted, seconds, bytes, similar.size());
+    }
+
+    /*
+     * Estimates an Export of a Saved Job, Reading Only the Size of Its Start Image.
+     *
+     * @param   job         The job
+     * @param   threads     The threads rendering frames
+     * @return              The estimate
+     */
+    public Estimate estimate(MorphJob job, int threads) throws IOException {
+        int size[] = imageSize(job.getStartImageFile());
+        return estimate(size[0], size[1], job.getTriangleCount(), job.getTotalFrames(),
+                job.getFormat(), threads);
+    }
+
+    /*
+     * Reads the Width and Height of an Image Without Decoding It.
+     */
+    private static int[] imageSize(File file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file)) {
+            Iterator<ImageReader> readers = (in == null) ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unreadable Image: " + file);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in);
+                return new int[] {reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /*
+     * Adds a Finished Render to the History.
+     * Renders that finished no frames are not recorded.
+     *
+     * @param   progress    The progress of the render, now finished
+     */
+    public void record(Progress progress) {
+        Run run = progress.finishedRun();
+        if (run == null) {
+            return;
+        }
+
+        boolean isTrimmed;
+        synchronized (this) {
+            history.add(run);
+            isTrimmed = history.size() > MAX_HISTORY;
+            if (isTrimmed) {
+                history.subList(0, history.size() - MAX_HISTORY).clear();
+            }
+            if (historyFile != null) {
+                saveHistory(isTrimmed ? history : List.of(run), !isTrimmed);
+            }
+        }
+    }
+
+    /*
+     * Reads the Earlier Runs, Skipping Lines It Does Not Understand.
+     */
+    private void loadHistory() {
+        try (BufferedReader reader = Files.newBufferedReader(historyFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Run run = Run.parse(line);
+                if (run != null) {
+                    history.add(run);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error Reading Render History: " + e.getMessage());
+        }
+        if (history.size() > MAX_HISTORY) {
+            history.subList(0, history.size() - MAX_HISTORY).clear();
+        }
+    }
+
+    /*
+     * Writes Runs to the History File, Appending or Replacing It.
+     */
+    private void saveHistory(List<Run> runs, boolean isAppend) {
+        historyFile.getAbsoluteFile().getParentFile().mkdirs();
+        StandardOpenOption mode = isAppend ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(historyFile.toPath(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode))) {
+            for (Run run : runs) {
+                out.println(run.format());
+            }
+        } catch (IOException e) {
+            System.out.println("Error Saving Render History: " + e.getMessage());
+        }
+    }
+
+    /*
+     * Retrieves the Number of Earlier Runs Known.
+     */
+    public synchronized int getHistorySize() {
+        return history.size();
+    }
+
+    /*
+     * Finds the Median of Some Values.
+     */
+    private static double median(double values[]) {
+        double sorted[] = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return (sorted.length % 2 == 1) ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    /*
+     * One Render, Estimated or Finished.
+     */
+    private static class Run {
+
+        final String format;
+        final int width, height, triangles, frames, threads, cores;
+        final long nanos, bytes;
+
+        Run(String format, int width, int height, int triangles, int frames, int threads, int cores,
+            long nanos, long bytes) {
+            this.format = format;
+            this.width = width;
+            this.height = height;
+            this.triangles = triangles;
+            this.frames = frames;
+            this.threads = threads;
+            this.cores = cores;
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+
+        /*
+         * Reads a Run from a Line of the History File.
+         *
+         * @return      The run, or null if the line is not one
+         */
+        static Run parse(String line) {
+            String fields[] = line.trim().split(" ");
+            if (fields.length != 9 || line.startsWith("#")) {
+                return null;
+            }
+            try {
+                Run run = new Run(fields[0], Integer.parseInt(fields[1]), Integer.parseInt(fields[2]),
+                        Integer.parseInt(fields[3]), Integer.parseInt(fields[4]), Integer.parseInt(fields[5]),
+                        Integer.parseInt(fields[6]), Long.parseLong(fields[7]), Long.parseLong(fields[8]));
+                return (run.frames > 0 && run.nanos > 0 && run.units() > 0) ? run : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        /*
+         * Formats the Run as a Line of the History File:
+         * format width height triangles frames threads cores nanoseconds bytes.
+         */
+        String format() {
+            return format + " " + width + " " + height + " " + triangles + " " + frames + " " + threads
+                    + " " + cores + " " + nanos + " " + bytes;
+        }
+
+        /*
+         * Retrieves the Work of the Run, in Pixels.
+         */
+        double units() {
+            return (double) frames * ((double) width * height + (double) TRIANGLE_PIXELS * triangles);
+        }
+
+        /*
+         * Retrieves the Threads That Could Run at Once.
+         */
+        int parallelism() {
+            return Math.max(1, Math.min(threads, cores));
+        }
+
+        double nanosPerUnit() {
+            return nanos * parallelism() / units();
+        }
+
+        double bytesPerPixel() {
+            return (double) bytes / ((double) width * height * frames);
+        }
+
+        /*
+         * Measures How Unlike Another Run This One Is, by Frame Size and Parallelism.
+         */
+        double distance(Run other) {
+            double size = Math.log(((double) width * height) / ((double) other.width * other.height));
+            double parallel = Math.log((double) parallelism() / other.parallelism());
+            return Math.abs(size) + Math.abs(parallel);
+        }
+    }
+
+    /*
+     * A Predicted Render Time and Output Size.
+     */
+    public static class Estimate {
+
+        private final Run run;
+        private final double seconds;
+        private final long bytes;
+        private final int basedOn;
+
+        Estimate(Run run, double seconds, long bytes, int basedOn) {
+            this.run = run;
+            this.seconds = seconds;
+            this.bytes = bytes;
+            this.basedOn = basedOn;
+        }
+
+        /*
+         * Retrieves the Predicted Seconds for Every Frame.
+         */
+        public double getSeconds() {
+            return seconds;
+        }
+
+        /*
+         * Retrieves the Predicted Bytes of Every Frame Written.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /*
+         * Retrieves the Number of Frames Estimated.
+         */
+        public int getFrames() {
+            return run.frames;
+        }
+
+        /*
+         * Retrieves the Number of Earlier Runs the Estimate Came From, 0 for Built-in Figures.
+         */
+        public int getBasedOn() {
+            return basedOn;
+        }
+
+        /*
+         * Starts Following the Render, Timed from Now.
+         *
+         * @return      The progress of the render
+         */
+        public Progress start() {
+            return new Progress(this);
+        }
+
+        /*
+         * Describes the Estimate for Messages to the User.
+         */
+        public String describe() {
+            String output = run.format.equals(IN_MEMORY) ? "" : " and " + megabytes(bytes);
+            String source = (basedOn == 0) ? "No Earlier Runs" : basedOn + " Earlier Runs";
+            return run.frames + " Frames, About " + seconds(seconds) + output + " (From " + source + ")";
+        }
+    }
+
+    /*
+     * A Render Under Way, Refining its Estimate as Frames Finish.
+     * Frames may finish on any thread.
+     */
+    public static class Progress {
+
+        private final Estimate estimate;
+        private final long started = System.nanoTime();
+        private int finished = 0;
+        private long bytesWritten = 0;
+        private long lastFinished = 0;
+
+        Progress(Estimate estimate) {
+            this.estimate = estimate;
+        }
+
+        /*
+         * Records a Frame That Finished.
+         *
+         * @param   bytes       The bytes written for the frame
+         */
+        public synchronized void frameFinished(long bytes) {
+            finished++;
+            bytesWritten += bytes;
+            lastFinished = System.nanoTime();
+        }
+
+        /*
+         * Retrieves the Estimate the Render Started With.
+         */
+        public Estimate getEstimate() {
+            return estimate;
+        }
+
+        public synchronized int getFinished() {
+            return finished;
+        }
+
+        public synchronized long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        /*
+         * Retrieves the Seconds Since the Render Started, or Until its Last Frame Once Finished.
+         */
+        public synchronized double getElapsedSeconds() {
+            long end = (finished >= estimate.getFrames()) ? lastFinished : System.nanoTime();
+            return (end - started) / 1e9;
+        }
+
+        /*
+         * Predicts the Seconds Left, Weighing the Rate Seen So Far Against the Estimate
+         * More Heavily as Frames Finish.
+         */
+        public synchronized double getRemainingSeconds() {
+            int frames = estimate.getFrames();
+            if (finished >= frames) {
+                return 0;
+            }
+
+            double elapsed = (System.nanoTime() - started) / 1e9;
+            double predicted = estimate.getSeconds() / Math.max(1, frames);
+            if (finished == 0) {
+                return Math.max(predicted * frames - elapsed, predicted);
+            }
+
+            double observed = elapsed / finished;
+            double weight = (double) finished / (finished + PRIOR_FRAMES);
+            return (weight * observed + (1 - weight) * predicted) * (frames - finished);
+        }
+
+        /*
+         * Predicts the Bytes Written Once Every Frame Finishes.
+         */
+        public synchronized long getExpectedBytes() {
+            int frames = estimate.getFrames();
+            if (finished == 0) {
+                return estimate.getBytes();
+            }
+
+            double predicted = (double) estimate.getBytes() / Math.max(1, frames);
+            double observed = (double) bytesWritten / finished;
+            double weight = (double) finished / (finished + PRIOR_FRAMES);
+            return bytesWritten + (long) ((weight * observed + (1 - weight) * predicted) * (frames - finished));
+        }
+
+        /*
+         * Describes the Progress for Messages to the User.
+         */
+        public String describe() {
+            return "Frame " + getFinished() + "/" + estimate.getFrames() + ", About "
+                    + seconds(getRemainingSeconds()) + " Left";
+        }
+
+        /*
+         * Retrieves the Run This Render Was, for the History.
+         *
+         * @return      The run, or null if no frame finished
+         */
+        synchronized Run finishedRun() {
+            if (finished == 0) {
+                return null;
+            }
+            Run run = estimate.run;
+            return new Run(run.format, run.width, run.height, run.triangles, finished, run.threads, run.cores,
+                    lastFinished - started, bytesWritten);
+        }
+    }
+
+    /*
+     * Formats a Duration for Messages to the User.
+     */
+    static String seconds(double seconds) {
+        if (seconds < 60) {
+            return String.format("%.1f s", seconds);
+        }
+        long whole = Math.round(seconds);
+        return (whole < 3600) ? String.format("%d min %d s", whole / 60, whole % 60)
+                : String.format("%d h %d min", whole / 3600, whole % 3600 / 60);
+    }
+
+    /*
+     * Formats a Size for Messages to the User.
+     */
+    static String megabytes(long bytes) {
+        return String.format("%.1f MB", bytes / 1048576.0);
+    }
+}
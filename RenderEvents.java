@@ -0,0 +1,225 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/*
+ * Java Flight Recorder Events for Each Stage of Rendering a Morph.
+ *
+ * A recording of any run, such as one started with
+ *   java -XX:StartFlightRecording=filename=morph.jfr JMorph ...
+ * shows how long each stage took for each frame. Every event carries the same
+ * fields; those that do not apply to a stage are left at 0. While no recording
+ * is running the events cost next to nothing.
+ *
+ * Each event is also timed for RenderMetrics whether or not JFR is recording,
+ * along with the bytes its thread allocated.
+ */
+public final class RenderEvents {
+
+    private RenderEvents() {
+    }
+
+    /*
+     * Fields Shared by Every Render Event.
+     */
+    @Category({"JMorph", "Rendering"})
+    public abstract static class RenderEvent extends Event {
+
+        @Label("Frame")
+        @Description("The frame number, from 1, or 0 when not rendering a frame")
+        int frame;
+
+        @Label("Triangles")
+        int triangles;
+
+        @Label("Pixels")
+        long pixels;
+
+        @Label("Bytes Written")
+        @DataAmount
+        long bytesWritten;
+
+        @Label("Bytes Allocated")
+        @Description("The heap the stage allocated on its thread, or -1 if the JVM does not count it")
+        @DataAmount
+        long bytesAllocated;
+
+        // Not Recorded; Measure the Stage for RenderMetrics
+        private transient long startTime, startAllocated;
+        private transient boolean isStarted = false;
+
+        /*
+         * Retrieves the RenderMetrics Stage the Event Times.
+         */
+        abstract int stage();
+
+        /*
+         * Starts Timing the Event. Use this rather than Event.begin(), which is final
+         * and would leave the stage untimed.
+         */
+        void start() {
+            startAllocated = MemoryBudget.allocatedBytes();
+            startTime = System.nanoTime();
+            isStarted = true;
+            begin();
+        }
+
+        /*
+         * Ends the Event and Commits It with Its Fields if It is Being Recorded.
+         */
+        void finish(int frame, int triangles, long pixels, long bytesWritten) {
+            if (!isStarted) {
+                throw new IllegalStateException("Render Event Finished Without start()");
+            }
+            end();
+            long nanos = System.nanoTime() - startTime;
+            long allocated = (startAllocated < 0) ? -1 : MemoryBudget.allocatedBytes() - startAllocated;
+            RenderMetrics.get().recordStage(stage(), nanos, bytesWritten, allocated);
+            if (shouldCommit()) {
+                this.frame = frame;
+                this.triangles = triangles;
+                this.pixels = pixels;
+                this.bytesWritten = bytesWritten;
+                this.bytesAllocated = allocated;
+                commit();
+            }
+        }
+    }
+
+    @Name("jmorph.MeshInterpolation")
+    @Label("Mesh Interpolation")
+    @Description("Moving the control points to their place in a frame")
+    public static class MeshInterpolation extends RenderEvent {
+
+        int stage() {
+            return RenderMetrics.MESH_INTERPOLATION;
+        }
+    }
+
+    @Name("jmorph.Warp")
+    @Label("Warp")
+    @Description("Rasterizing the frame mesh and warping both images into it")
+    public static class Warp extends RenderEvent {
+
+        int stage() {
+            return RenderMetrics.WARP;
+        }
+    }
+
+    @Name("jmorph.Blend")
+    @Label("Blend")
+    @Description("Cross-dissolving the warped start and end images of a frame")
+    public static class Blend extends RenderEvent {
+
+        int stage() {
+            return RenderMetrics.BLEND;
+        }
+    }
+
+    @Name("jmorph.Encode")
+    @Label("Encode")
+    @Description("Compressing a frame into an image format")
+    public static class Encode extends RenderEvent {
+
+        int stage() {
+            return RenderMetrics.ENCODE;
+        }
+    }
+
+    @Name("jmorph.DiskWrite")
+    @Label("Disk Write")
+    @Description("Writing an encoded frame to its file")
+    public static class DiskWrite extends RenderEvent {
+
+        int stage() {
+            return RenderMetrics.DISK_WRITE;
+        }
+    }
+
+    @Name("jmorph.ImageLoad")
+    @Label("Image Load")
+    @Description("Reading and decoding a source image")
+    public static class ImageLoad extends RenderEvent {
+
+        @Label("Path")
+        String path;
+
+        int stage() {
+            return RenderMetrics.IMAGE_LOAD;
+        }
+    }
+
+    @Name("jmorph.IntensityAdjustment")
+    @Label("Intensity Adjustment")
+    @Description("Changing the brightness of an image")
+    public static class IntensityAdjustment extends RenderEvent {
+
+        int stage() {
+            return RenderMetrics.INTENSITY_ADJUSTMENT;
+        }
+    }
+
+    /*
+     * Encodes a Frame and Writes It to a File, Recording Both Stages.
+     *
+     * @param   image       The frame
+     * @param   format      The image format, such as jpg or png
+     * @param   file        The file to write
+     * @param   frame       The frame number, for the events
+     * @return              The number of bytes written
+     */
+    public static long writeImage(BufferedImage image, String format, File file, int frame) throws IOException {
+        long pixels = (long) image.getWidth() * image.getHeight();
+
+        Encode encode = new Encode();
+        encode.start();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, format, bytes)) {
+            throw new IOException("No Writer for Format: " + format);
+        }
+        encode.finish(frame, 0, pixels, bytes.size());
+
+        DiskWrite write = new DiskWrite();
+        write.start();
+        Files.write(file.toPath(), bytes.toByteArray());
+        write.finish(frame, 0, pixels, bytes.size());
+
+        return bytes.size();
+    }
+
+    /*
+     * Reads a Source Image, Recording the Load.
+     *
+     * @param   file        The image file
+     * @return              The image, or null if no reader understands the file
+     */
+    public static BufferedImage readImage(File file) throws IOException {
+        ImageLoad load = new ImageLoad();
+        load.start();
+        BufferedImage image = ImageIO.read(file);
+
+        load.path = file.getPath();
+        load.finish(0, 0, (image == null) ? 0 : (long) image.getWidth() * image.getHeight(), 0);
+        return image;
+    }
+}
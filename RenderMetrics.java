@@ -0,0 +1,373 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/*
+ * Process-Wide Render Metrics, Readable over JMX.
+ *
+ * Stage timings arrive from RenderEvents, so every stage that emits a Flight
+ * Recorder event is also measured here, recording or not. Frame pools, frame
+ * caches and render servers register themselves when created and are read when
+ * the metrics are; they are held weakly, so a discarded pool or cache drops out.
+ *
+ * Connect with jconsole, VisualVM or any JMX client and open jmorph:type=RenderMetrics.
+ */
+public class RenderMetrics implements RenderMetricsMXBean {
+
+    public static final String OBJECT_NAME = "jmorph:type=RenderMetrics";
+
+    // Stages, in the Order of the Names Below
+    public static final int MESH_INTERPOLATION = 0;
+    public static final int WARP = 1;
+    public static final int BLEND = 2;
+    public static final int ENCODE = 3;
+    public static final int DISK_WRITE = 4;
+    public static final int IMAGE_LOAD = 5;
+    public static final int INTENSITY_ADJUSTMENT = 6;
+    private static final String STAGE_NAMES[] = {"MeshInterpolation", "Warp", "Blend", "Encode",
+            "DiskWrite", "ImageLoad", "IntensityAdjustment"};
+
+    // Latest Timings Kept per Stage for Percentiles
+    private static final int SAMPLE_COUNT = 1024;
+
+    // Seconds the Frame Rate is Averaged Over
+    private static final int RATE_WINDOW = 10;
+
+    private static final RenderMetrics INSTANCE = register(new RenderMetrics());
+
+    // Stage Timings, Each Guarded by Its Own Samples Array
+    private final long samples[][] = new long[STAGE_NAMES.length][SAMPLE_COUNT];
+    private final long stageCounts[] = new long[STAGE_NAMES.length];
+    private final long stageMax[] = new long[STAGE_NAMES.length];
+    private final long stageAllocated[] = new long[STAGE_NAMES.length];
+
+    // Frames Rendered in Each of the Last Few Seconds, Guarded by this
+    private final long rateSecond[] = new long[RATE_WINDOW];
+    private final int rateFrames[] = new int[RATE_WINDOW];
+    private long framesRendered = 0;
+    private long bytesWritten = 0;
+
+    // Registered Sources, Guarded by Each Set
+    private final Set<FramePool> pools = Collections.newSetFromMap(new WeakHashMap<>());
+    private final Set<FrameCache> caches = Collections.newSetFromMap(new WeakHashMap<>());
+    private final Set<RenderServer> servers = Collections.newSetFromMap(new WeakHashMap<>());
+
+    private RenderMetrics() {
+    }
+
+    /*
+     * Retrieves the Metrics, Registered with the Platform MBean Server on First Use.
+     *
+     * @return      The render metrics
+     */
+    public static RenderMetrics get() {
+        return INSTANCE;
+    }
+
+    /*
+     * Publishes the Metrics over JMX.
+     */
+    private static RenderMetrics register(RenderMetrics metrics) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            System.out.println("Error Registering Render Metrics: " + e.getMessage());
+        }
+        return metrics;
+    }
+
+    /*
+     * Records One Run of a Stage.
+     *
+     * @param   stage           The stage, such as WARP
+     * @param   nanos           How long it took
+     * @param   bytesWritten    The bytes it wrote to disk, counted only for DISK_WRITE
+     * @param   bytesAllocated  The heap it allocated, or -1 if unknown
+     */
+    public void recordStage(int stage, long nanos, long bytesWritten, long bytesAllocated) {
+        long stageSamples[] = samples[stage];
+        synchronized (stageSamples) {
+            stageSamples[(int) (stageCounts[stage] % SAMPLE_COUNT)] = nanos;
+            stageCounts[stage]++;
+            stageMax[stage] = Math.max(stageMax[stage], nanos);
+            stageAllocated[stage] += Math.max(0, bytesAllocated);
+        }
+
+        if (stage == WARP) {
+            recordFrame();
+        }
+        if (stage == DISK_WRITE) {
+            synchronized (this) {
+                this.bytesWritten += bytesWritten;
+            }
+        }
+    }
+
+    /*
+     * Counts a Rendered Frame Toward the Total and the Frame Rate.
+     */
+    private synchronized void recordFrame() {
+        long second = System.nanoTime() / 1000000000L;
+        int slot = (int) (second % RATE_WINDOW);
+        if (rateSecond[slot] != second) {
+            rateSecond[slot] = second;
+            rateFrames[slot] = 0;
+        }
+        rateFrames[slot]++;
+        framesRendered++;
+    }
+
+    /*
+     * Adds a Frame Pool to the Pooled Buffer Totals.
+     */
+    public void register(FramePool pool) {
+        synchronized (pools) {
+            pools.add(pool);
+        }
+    }
+
+    /*
+     * Adds a Frame Cache to the Cache Totals.
+     */
+    public void register(FrameCache cache) {
+        synchronized (caches) {
+            caches.add(cache);
+        }
+    }
+
+    /*
+     * Adds a Render Server to the Job Totals.
+     */
+    public void register(RenderServer server) {
+        synchronized (servers) {
+            servers.add(server);
+        }
+    }
+
+    public synchronized long getFramesRendered() {
+        return framesRendered;
+    }
+
+    /*
+     * Retrieves the Frames Rendered per Second, Averaged over the Last Ten Seconds.
+     */
+    public synchronized double getFramesPerSecond() {
+        long now = System.nanoTime() / 1000000000L;
+        int frames = 0;
+        for (int i = 0; i < RATE_WINDOW; i++) {
+            if (now - rateSecond[i] < RATE_WINDOW) {
+                frames += rateFrames[i];
+            }
+        }
+        return (double) frames / RATE_WINDOW;
+    }
+
+    public synchronized long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public StageLatency[] getStageLatencies() {
+        StageLatency latencies[] = new StageLatency[STAGE_NAMES.length];
+        for (int stage = 0; stage < STAGE_NAMES.length; stage++) {
+            long stageSamples[] = samples[stage];
+            long sorted[];
+            long count, max, allocated;
+            synchronized (stageSamples) {
+                count = stageCounts[stage];
+                max = stageMax[stage];
+                allocated = stageAllocated[stage];
+                sorted = Arrays.copyOf(stageSamples, (int) Math.min(count, SAMPLE_COUNT));
+            }
+            Arrays.sort(sorted);
+            latencies[stage] = new StageLatency(STAGE_NAMES[stage], count,
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99), max / 1e6,
+                    (count == 0) ? 0 : allocated / count);
+        }
+        return latencies;
+    }
+
+    /*
+     * Retrieves the Heap Allocated per Rendered Frame by the Frame Stages.
+     * Image loads and intensity changes happen once per morph and are left out.
+     */
+    public long getAllocatedBytesPerFrame() {
+        long allocated = 0;
+        for (int stage = MESH_INTERPOLATION; stage <= DISK_WRITE; stage++) {
+            synchronized (samples[stage]) {
+                allocated += stageAllocated[stage];
+            }
+        }
+        long frames = getFramesRendered();
+        return (frames == 0) ? 0 : allocated / frames;
+    }
+
+    /*
+     * Reads a Percentile from Sorted Nanosecond Timings, in Milliseconds.
+     * Shared with the benchmarks, so every report ranks samples the same way.
+     */
+    static double percentile(long sorted[], double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+
+    public int getPendingJobs() {
+        int pending = 0;
+        for (RenderServer server : snapshot(servers)) {
+            pending += server.getPendingCount();
+        }
+        return pending;
+    }
+
+    public int getRunningJobs() {
+        int running = 0;
+        for (RenderServer server : snapshot(servers)) {
+            running += server.getRunningCount();
+        }
+        return running;
+    }
+
+    public long getCacheHits() {
+        long hits = 0;
+        for (FrameCache cache : snapshot(caches)) {
+            hits += cache.getMemoryHits() + cache.getDiskHits();
+        }
+        return hits;
+    }
+
+    public long getCacheMisses() {
+        long misses = 0;
+        for (FrameCache cache : snapshot(caches)) {
+            misses += cache.getMisses();
+        }
+        return misses;
+    }
+
+    /*
+     * Retrieves the Share of Cache Lookups That Hit, from 0 to 1.
+     */
+    public double getCacheHitRate() {
+        long hits = getCacheHits();
+        long lookups = hits + getCacheMisses();
+        return (lookups == 0) ? 0 : (double) hits / lookups;
+    }
+
+    public int getPooledBuffersInUse() {
+        int inUse = 0;
+        for (FramePool pool : snapshot(pools)) {
+            inUse += pool.getInUseCount();
+        }
+        return inUse;
+    }
+
+    public int getPooledBuffersIdle() {
+        int idle = 0;
+        for (FramePool pool : snapshot(pools)) {
+            idle += pool.getIdleCount();
+        }
+        return idle;
+    }
+
+    public long getPooledBytes() {
+        long bytes = 0;
+        for (FramePool pool : snapshot(pools)) {
+            bytes += pool.getPooledBytes();
+        }
+        return bytes;
+    }
+
+    /*
+     * Clears the Frame Counts, Bytes Written and Stage Timings.
+     * Pool, cache and server figures are live and are not affected.
+     */
+    public void reset() {
+        for (int stage = 0; stage < STAGE_NAMES.length; stage++) {
+            synchronized (samples[stage]) {
+                stageCounts[stage] = 0;
+                stageMax[stage] = 0;
+                stageAllocated[stage] = 0;
+            }
+        }
+        synchronized (this) {
+            Arrays.fill(rateFrames, 0);
+            framesRendered = 0;
+            bytesWritten = 0;
+        }
+    }
+
+    /*
+     * Copies a Registered Set, So Its Members Are Read Without Holding Its Lock.
+     */
+    private static <T> List<T> snapshot(Set<T> set) {
+        synchronized (set) {
+            return new ArrayList<>(set);
+        }
+    }
+
+    /*
+     * Latency Percentiles of One Stage, in Milliseconds, and Its Average Allocation.
+     */
+    public static class StageLatency {
+
+        private final String stage;
+        private final long count;
+        private final double p50, p95, p99, max;
+        private final long allocatedPerRun;
+
+        StageLatency(String stage, long count, double p50, double p95, double p99, double max, long allocatedPerRun) {
+            this.stage = stage;
+            this.count = count;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.p99 = p99;
+            this.max = max;
+            this.allocatedPerRun = allocatedPerRun;
+        }
+
+        public String getStage() {
+            return stage;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getP50Millis() {
+            return p50;
+        }
+
+        public double getP95Millis() {
+            return p95;
+        }
+
+        public double getP99Millis() {
+            return p99;
+        }
+
+        public double getMaxMillis() {
+            return max;
+        }
+
+        public long getAllocatedBytesPerRun() {
+            return allocatedPerRun;
+        }
+    }
+}
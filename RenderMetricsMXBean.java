@@ -0,0 +1,41 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+/*
+ * Live Render Metrics, Published over JMX as jmorph:type=RenderMetrics.
+ */
+public interface RenderMetricsMXBean {
+
+    // Frames
+    long getFramesRendered();
+    double getFramesPerSecond();
+    long getBytesWritten();
+    long getAllocatedBytesPerFrame();
+
+    // Latency of Each Render Stage over Its Most Recent Runs
+    RenderMetrics.StageLatency[] getStageLatencies();
+
+    // Render Server Jobs
+    int getPendingJobs();
+    int getRunningJobs();
+
+    // Frame Cache
+    long getCacheHits();
+    long getCacheMisses();
+    double getCacheHitRate();
+
+    // Frame Pools
+    int getPooledBuffersInUse();
+    int getPooledBuffersIdle();
+    long getPooledBytes();
+
+    // Clears the Counters and Latencies
+    void reset();
+}
@@ -0,0 +1,477 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Renders Frames Through Concurrent Warp, Blend and Encode Stages.
+ *
+ * Each stage has its own threads and hands frames to the next through a bounded
+ * queue, so encoding frame N overlaps warping later frames and no stage can run
+ * more than a queue's length ahead of the one after it. Warped frames and blended
+ * images come from fixed pools sized to what the queues can hold, so a run
+ * allocates no pixels per frame. Every stage keeps counts of frames, busy time and
+ * queue depth; a queue that stays full points at a slow stage after it.
+ */
+public class RenderPipeline {
+
+    private static final long POLL_MILLIS = 100;
+
+    /*
+     * Writes a Finished Frame. Called from the encode threads.
+     */
+    public interface FrameSink {
+        void write(int frameCount, BufferedImage image) throws IOException;
+    }
+
+    private final MorphRenderer renderer;
+    private final int totalFrames;
+    private final int warpThreads, blendThreads, encodeThreads;
+    private final int queueCapacity;
+
+    private final Stage warpStage = new Stage("warp");
+    private final Stage blendStage = new Stage("blend");
+    private final Stage encodeStage = new Stage("encode");
+
+    // Warped Frames of the Same Morph Rendered Earlier, or null
+    private FrameStore spool;
+
+    // First Failure, Which Stops Every Stage
+    private volatile Throwable failure;
+
+    /*
+     * Constructor for the Render Pipeline.
+     *
+     * @param   renderer        The renderer for the morph
+     * @param   totalFrames     The total number of frames
+     * @param   warpThreads     The threads warping frames
+     * @param   blendThreads    The threads blending frames
+     * @param   encodeThreads   The threads encoding frames
+     * @param   queueCapacity   The most frames waiting between two stages
+     */
+    public RenderPipeline(MorphRenderer renderer, int totalFrames,
+                          int warpThreads, int blendThreads, int encodeThreads, int queueCapacity) {
+        this.renderer = renderer;
+        this.totalFrames = totalFrames;
+        this.warpThreads = Math.max(1, warpThreads);
+        this.blendThreads = Math.max(1, blendThreads);
+        this.encodeThreads = Math.max(1, encodeThreads);
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    /*
+     * Creates a Pipeline That Splits a Number of Threads Between the Stages.
+     * Warping costs the most, encoding about a third as much and blending little.
+     *
+     * @param   renderer        The renderer for the morph
+     * @param   totalFrames     The total number of frames
+     * @param   threads         The total number of threads
+     * @return                  The pipeline
+     */
+    public static RenderPipeline forThreads(MorphRenderer renderer, int totalFrames, int threads) {
+        int encode = Math.max(1, threads / 4);
+        int warp = Math.max(1, threads - encode - 1);
+        return new RenderPipeline(renderer, totalFrames, warp, 1, encode, 2 * Math.max(warp, encode));
+    }
+
+    /*
+     * Creates a Pipeline for a Number of Threads That Fits a Memory Budget.
+     * If the even split needs too much memory, frames stream through one at a time
+     * between stages, and then fewer frames are warped at once, until it fits or
+     * only one frame is in each stage.
+     *
+     * @param   renderer        The renderer for the morph
+     * @param   totalFrames     The total number of frames
+     * @param   threads         The most threads to use
+     * @param   budget          The memory budget
+     * @return                  The pipeline
+     */
+    public static RenderPipeline forBudget(MorphRenderer renderer, int totalFrames, int threads, MemoryBudget budget) {
+        int width = renderer.getFrameWidth(), height = renderer.getFrameHeight();
+        int encode = Math.max(1, threads / 4);
+        int warp = Math.max(1, threads - encode - 1);
+        int queue = 2 * Math.max(warp, encode);
+
+        long bytes = MemoryBudget.pipelineBytes(width, height, warp, 1, encode, queue);
+        if (budget.fits(bytes)) {
+            return new RenderPipeline(renderer, totalFrames, warp, 1, encode, queue);
+        }
+
+        System.out.println("Export " + budget.describe(bytes) + ", Using Fewer Frame Buffers");
+        queue = 1;
+        while (!budget.fits(MemoryBudget.pipelineBytes(width, height, warp, 1, encode, queue)) && (warp > 1 || encode > 1)) {
+            if (warp >= encode) {
+                warp--;
+            }
+            else {
+                encode--;
+            }
+        }
+
+        bytes = MemoryBudget.pipelineBytes(width, height, warp, 1, encode, queue);
+        if (!budget.fits(bytes)) {
+            System.out.println("Warning: Even Streaming, the Export " + budget.describe(bytes)
+                    + " and May Run Out of Memory");
+        }
+        return new RenderPipeline(renderer, totalFrames, warp, 1, encode, queue);
+    }
+
+    /*
+     * Takes the Warps of Frames Already Written to a Store Instead of Rendering Them.
+     * The store must hold frames of the pipeline's morph, numbered by the same
+     * total frames.
+     *
+     * @param   spool       The frame store, or null to render every frame
+     */
+    public void setSpool(FrameStore spool) {
+        this.spool = spool;
+    }
+
+    /*
+     * Renders a List of Frames and Hands Each to the Sink.
+     * Returns once every frame is written, or throws the first failure.
+     *
+     * @param   frames      The frame numbers, from 1
+     * @param   sink        The writer for finished frames
+     */
+    public void run(List<Integer> frames, FrameSink sink) throws IOException {
+        int width = renderer.getFrameWidth(), height = renderer.getFrameHeight();
+
+        BlockingQueue<Warped> warped = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Blended> blended = new ArrayBlockingQueue<>(queueCapacity);
+
+        // Enough Buffers for Full Queues Plus One in Each Thread
+        BlockingQueue<Warped> freeWarped = new ArrayBlockingQueue<>(queueCapacity + warpThreads + blendThreads);
+        FramePool pool = new FramePool(false);
+        while (freeWarped.remainingCapacity() > 0) {
+            freeWarped.add(new Warped(pool.acquire(width, height), pool.acquire(width, height)));
+        }
+        BlockingQueue<BufferedImage> freeImages = new ArrayBlockingQueue<>(queueCapacity + blendThreads + encodeThreads);
+        while (freeImages.remainingCapacity() > 0) {
+            freeImages.add(renderer.createFrameImage());
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger warpersLeft = new AtomicInteger(warpThreads);
+        AtomicInteger blendersLeft = new AtomicInteger(blendThreads);
+        List<Thread> threads = new ArrayList<>();
+
+        // Warp: Take the Next Frame Number and Render Both Warps, or Read Them from the Spool
+        for (int i = 0; i < warpThreads; i++) {
+            threads.add(stageThread(warpStage, i, () -> {
+                int index;
+                while (failure == null && (index = next.getAndIncrement()) < frames.size()) {
+                    Warped item = take(freeWarped, warpStage, false);
+                    if (item == null) {
+                        break;
+                    }
+
+                    long start = System.nanoTime();
+                    item.frameCount = frames.get(index);
+                    if (spool != null && spool.isWritten(item.frameCount - 1)) {
+                        item.start.getPixels().put(0, spool.startFrame(item.frameCount - 1).getPixels(), 0, width * height);
+                        item.end.getPixels().put(0, spool.endFrame(item.frameCount - 1).getPixels(), 0, width * height);
+                    }
+                    else {
+                        renderer.renderFrame(item.frameCount, totalFrames, item.start, item.end);
+                    }
+                    warpStage.finished(System.nanoTime() - start);
+
+                    put(warped, item);
+                }
+                if (warpersLeft.decrementAndGet() == 0) {
+                    for (int b = 0; b < blendThreads; b++) {
+                        put(warped, Warped.END);
+                    }
+                }
+            }));
+        }
+
+        // Blend: Cross-Dissolve the Warps into a Free Image
+        for (int i = 0; i < blendThreads; i++) {
+            threads.add(stageThread(blendStage, i, () -> {
+                Warped item;
+                while ((item = take(warped, blendStage, true)) != null && item != Warped.END) {
+                    BufferedImage image = take(freeImages, blendStage, false);
+                    if (image == null) {
+                        break;
+                    }
+
+                    long start = System.nanoTime();
+                    BlendKernel.blend(item.start.getPixels(), item.end.getPixels(), IntensityEngine.pixels(image),
+                            item.frameCount, totalFrames);
+                    blendStage.finished(System.nanoTime() - start);
+
+                    int frameCount = item.frameCount;
+                    freeWarped.add(item);
+                    put(blended, new Blended(frameCount, image));
+                }
+                if (blendersLeft.decrementAndGet() == 0) {
+                    for (int e = 0; e < encodeThreads; e++) {
+                        put(blended, Blended.END);
+                    }
+                }
+            }));
+        }
+
+        // Encode: Write the Image and Return It to the Pool
+        for (int i = 0; i < encodeThreads; i++) {
+            threads.add(stageThread(encodeStage, i, () -> {
+                Blended item;
+                while ((item = take(blended, encodeStage, true)) != null && item != Blended.END) {
+                    long start = System.nanoTime();
+                    try {
+                        sink.write(item.frameCount, item.image);
+                    } catch (IOException e) {
+                        fail(e);
+                        return;
+                    }
+                    encodeStage.finished(System.nanoTime() - start);
+                    freeImages.add(item.image);
+                }
+            }));
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            fail(e);
+            Thread.currentThread().interrupt();
+        }
+
+        // Hand the Buffers Back So the Pool's Accounting Shows Them Idle
+        for (Warped item : freeWarped) {
+            pool.release(item.start);
+            pool.release(item.end);
+        }
+
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        if (failure != null) {
+            throw new IOException("Error Rendering Frame", failure);
+        }
+    }
+
+    /*
+     * Creates a Thread for a Stage That Stops the Pipeline if It Fails.
+     */
+    private Thread stageThread(Stage stage, int index, Runnable body) {
+        Thread thread = new Thread(() -> {
+            try {
+                body.run();
+            } catch (RuntimeException | Error e) {
+                fail(e);
+            }
+        }, "pipeline-" + stage.name + "-" + (index + 1));
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /*
+     * Records the First Failure.
+     */
+    private synchronized void fail(Throwable throwable) {
+        if (failure == null) {
+            failure = throwable;
+        }
+    }
+
+    /*
+     * Takes from a Queue, Giving Up Once the Pipeline Has Failed.
+     * The depth of input queues is sampled; waits on buffer pools only count as waiting.
+     */
+    private <T> T take(BlockingQueue<T> queue, Stage stage, boolean isInput) {
+        if (isInput) {
+            stage.sampleDepth(queue.size());
+        }
+        long start = System.nanoTime();
+        try {
+            while (failure == null) {
+                T item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (item != null) {
+                    return item;
+                }
+            }
+        } catch (InterruptedException e) {
+            fail(e);
+        } finally {
+            stage.waited(System.nanoTime() - start);
+        }
+        return null;
+    }
+
+    /*
+     * Puts on a Queue, Giving Up Once the Pipeline Has Failed.
+     */
+    private <T> void put(BlockingQueue<T> queue, T item) {
+        try {
+            while (failure == null) {
+                if (queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            fail(e);
+        }
+    }
+
+    /*
+     * Describes the Throughput of Each Stage, One Line per Stage.
+     *
+     * @return      The stage report
+     */
+    public String report() {
+        return warpStage.describe(warpThreads) + "\n"
+                + blendStage.describe(blendThreads) + "\n"
+                + encodeStage.describe(encodeThreads);
+    }
+
+    /*
+     * Retrieves the Warp Stage Counters.
+     */
+    public Stage getWarpStage() {
+        return warpStage;
+    }
+
+    /*
+     * Retrieves the Blend Stage Counters.
+     */
+    public Stage getBlendStage() {
+        return blendStage;
+    }
+
+    /*
+     * Retrieves the Encode Stage Counters.
+     */
+    public Stage getEncodeStage() {
+        return encodeStage;
+    }
+
+    /*
+     * Both Warps of a Frame on Their Way to the Blend Stage.
+     */
+    private static class Warped {
+        static final Warped END = new Warped(null, null);
+
+        final FrameBuffer start, end;
+        int frameCount;
+
+        Warped(FrameBuffer start, FrameBuffer end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /*
+     * A Blended Frame on Its Way to the Encode Stage.
+     */
+    private static class Blended {
+        static final Blended END = new Blended(0, null);
+
+        final int frameCount;
+        final BufferedImage image;
+
+        Blended(int frameCount, BufferedImage image) {
+            this.frameCount = frameCount;
+            this.image = image;
+        }
+    }
+
+    /*
+     * Throughput Counters for One Stage.
+     */
+    public static class Stage {
+
+        private final String name;
+        private final AtomicInteger frames = new AtomicInteger();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+        private final AtomicLong depthTotal = new AtomicLong();
+        private final AtomicInteger depthSamples = new AtomicInteger();
+        private final AtomicInteger depthMax = new AtomicInteger();
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        void finished(long nanos) {
+            frames.incrementAndGet();
+            busyNanos.addAndGet(nanos);
+        }
+
+        void waited(long nanos) {
+            waitNanos.addAndGet(nanos);
+        }
+
+        void sampleDepth(int depth) {
+            depthTotal.addAndGet(depth);
+            depthSamples.incrementAndGet();
+            depthMax.accumulateAndGet(depth, Math::max);
+        }
+
+        /*
+         * Retrieves the Number of Frames the Stage Finished.
+         */
+        public int getFrames() {
+            return frames.get();
+        }
+
+        /*
+         * Retrieves the Time Spent Working, Summed Over the Stage's Threads.
+         */
+        public long getBusyNanos() {
+            return busyNanos.get();
+        }
+
+        /*
+         * Retrieves the Time Spent Waiting for Input or Buffers.
+         */
+        public long getWaitNanos() {
+            return waitNanos.get();
+        }
+
+        /*
+         * Retrieves the Average Depth of the Stage's Input Queue When It Took Work.
+         */
+        public double getAverageDepth() {
+            int samples = depthSamples.get();
+            return (samples == 0) ? 0 : (double) depthTotal.get() / samples;
+        }
+
+        /*
+         * Retrieves the Deepest the Stage's Input Queue Was When It Took Work.
+         */
+        public int getMaxDepth() {
+            return depthMax.get();
+        }
+
+        String describe(int threads) {
+            int count = frames.get();
+            double busy = (count == 0) ? 0 : busyNanos.get() / 1e6 / count;
+            double perSecond = (busyNanos.get() == 0) ? 0 : count * threads * 1e9 / busyNanos.get();
+            return String.format("%-6s %2d threads  %6d frames  %8.2f ms/frame  %7.1f frames/s  queue avg %.1f max %d",
+                    name, threads, count, busy, perSecond, getAverageDepth(), getMaxDepth());
+        }
+    }
+}
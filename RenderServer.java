@@ -0,0 +1,519 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Long-Running Local Service That Renders Morph Jobs.
+ *
+ * Jobs are posted over HTTP on the loopback interface as the text of a job file,
+ * wait in a bounded priority queue and run on a fixed number of render workers.
+ * Because the process stays up, later jobs run on already compiled code and
+ * share decoded source images.
+ *
+ * Relative paths in a posted job start from the server's root directory, and a
+ * job whose images or output lie outside the root is refused, so other local
+ * processes cannot use the server to read or write arbitrary files. Finished jobs
+ * are forgotten once more than a fixed number have finished since.
+ *
+ * Each job is estimated when posted. Within a priority, jobs with a deadline run
+ * earliest deadline first, ahead of jobs without one. A job is refused if, by the
+ * estimates of the running and queued jobs, it would finish after its deadline or
+ * would make a queued job miss a deadline it would otherwise have met.
+ *
+ *   POST /jobs?priority=n&deadline=s
+ *                              Queue a job that must finish within s seconds, answering
+ *                              its id, 409 if it would miss a deadline, or 503 when full
+ *   GET  /jobs                 List every job and its state
+ *   GET  /jobs/id              Show one job
+ */
+public class RenderServer {
+
+    // Decoded Images Kept for Later Jobs
+    private static final int IMAGE_CACHE_SIZE = 16;
+
+    // Finished Jobs Still Listed
+    private static final int FINISHED_JOBS_KEPT = 256;
+
+    private final HttpServer server;
+    private final ExecutorService requestThreads;
+    private final List<Thread> workers = new ArrayList<>();
+    private final int queueCapacity, threadsPerJob;
+    private final File root;
+
+    // Jobs Waiting to Run, Highest Priority First; Taken and Added Under this
+    private final PriorityBlockingQueue<Job> queue;
+    private final Map<Long, Job> jobs = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Job> finished = new ConcurrentLinkedQueue<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final AtomicInteger running = new AtomicInteger();
+
+    // Source Images by Path, Least Recently Used Dropped First
+    private final LinkedHashMap<String, BufferedImage> images = new LinkedHashMap<>(16, 0.75f, true);
+
+    /*
+     * Constructor for the Render Server.
+     *
+     * @param   port            The loopback port to listen on
+     * @param   workerCount     The number of jobs to render at once
+     * @param   queueCapacity   The most jobs allowed to wait
+     * @param   root            The directory jobs may read and write under
+     */
+    public RenderServer(int port, int workerCount, int queueCapacity, File root) throws IOException {
+        this.queueCapacity = queueCapacity;
+        this.root = root.getCanonicalFile();
+        this.threadsPerJob = Math.max(1, Runtime.getRuntime().availableProcessors() / workerCount);
+        queue = new PriorityBlockingQueue<>(Math.max(1, queueCapacity));
+
+        // Requests Only Parse Text and Queue Work, So a Small Pool Serves Them
+        requestThreads = Executors.newFixedThreadPool(4, IntensityEngine.daemonThreads("render-server"));
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(requestThreads);
+        server.createContext("/jobs", this::handle);
+
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::work, "render-worker-" + (i + 1));
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+        RenderMetrics.get().register(this);
+    }
+
+    /*
+     * Starts Listening and Rendering.
+     */
+    public void start() {
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        server.start();
+    }
+
+    /*
+     * Stops Taking Requests and Interrupts the Workers.
+     */
+    public void stop() {
+        server.stop(0);
+        requestThreads.shutdownNow();
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    /*
+     * Retrieves the Port the Server Listens On.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /*
+     * Retrieves the Number of Jobs Waiting to Run.
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /*
+     * Retrieves the Number of Jobs Rendering Now.
+     */
+    public int getRunningCount() {
+        return running.get();
+    }
+
+    /*
+     * Queues a Job.
+     *
+     * @param   job                 The job to render
+     * @param   priority            Higher priorities run first
+     * @param   deadlineSeconds     The seconds the job must finish within, or 0 for none
+     * @return                      The queued job, a job in the REFUSED state if it would
+     *                              miss a deadline, or null if the queue is full
+     */
+    public Job submit(MorphJob job, int priority, long deadlineSeconds) throws IOException {
+        checkInsideRoot(job.getStartImageFile());
+        checkInsideRoot(job.getEndImageFile());
+        checkInsideRoot(job.getOutputDirectory());
+        RenderEstimator.Estimate estimate = RenderEstimator.get().estimate(job, threadsPerJob);
+        long deadline = (deadlineSeconds > 0) ? System.nanoTime() + deadlineSeconds * 1000000000L : 0;
+
+        synchronized (this) {
+            if (queue.size() >= queueCapacity) {
+                return null;
+            }
+
+            Job candidate = new Job(nextId.getAndIncrement(), priority, job, estimate, deadline);
+
+            // Plan the Queue Without and With the Job
+            List<Job> waiting = new ArrayList<>(queue);
+            Set<Job> lateBefore = lateJobs(waiting);
+            waiting.add(candidate);
+            Set<Job> lateAfter = lateJobs(waiting);
+            if (lateAfter.contains(candidate)) {
+                candidate.setState("REFUSED", "Would Miss Its Deadline, Estimated "
+                        + RenderEstimator.seconds(estimate.getSeconds()));
+                return candidate;
+            }
+            for (Job late : lateAfter) {
+                if (!lateBefore.contains(late)) {
+                    candidate.setState("REFUSED", "Would Make Job " + late.id + " Miss Its Deadline");
+                    return candidate;
+                }
+            }
+
+            jobs.put(candidate.id, candidate);
+            queue.add(candidate);
+            notifyAll();
+            return candidate;
+        }
+    }
+
+    /*
+     * Refuses a Path Outside the Root Directory, Following Links and .. First.
+     */
+    private void checkInsideRoot(File file) throws IOException {
+        File path = file.getCanonicalFile();
+        for (File parent = path; parent != null; parent = parent.getParentFile()) {
+            if (parent.equals(root)) {
+                return;
+            }
+        }
+        throw new IOException("Path Outside " + root + ": " + file);
+    }
+
+    /*
+     * Finds the Jobs That Would Miss Their Deadlines if the Given Jobs Ran in Queue Order.
+     * Each job goes to the first worker free by the estimates, after the running jobs.
+     */
+    private Set<Job> lateJobs(List<Job> waiting) {
+        double free[] = new double[workers.size()];
+        int w = 0;
+        for (Job job : jobs.values()) {
+            if (job.getState().equals("RUNNING") && w < free.length) {
+                free[w++] = job.getRemainingSeconds();
+            }
+        }
+
+        List<Job> order = new ArrayList<>(waiting);
+        order.sort(null);
+        long now = System.nanoTime();
+        Set<Job> late = new HashSet<>();
+        for (Job job : order) {
+            int first = 0;
+            for (int i = 1; i < free.length; i++) {
+                first = (free[i] < free[first]) ? i : first;
+            }
+            free[first] += job.estimate.getSeconds();
+            if (job.deadline != 0 && now + (long) (free[first] * 1e9) > job.deadline) {
+                late.add(job);
+            }
+        }
+        return late;
+    }
+
+    /*
+     * Takes Jobs from the Queue Until Interrupted.
+     */
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            // Taken and Marked Running at Once, So Deadline Planning Always Sees It
+            Job job;
+            synchronized (this) {
+                try {
+                    while ((job = queue.poll()) == null) {
+                        wait();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                job.setState("RUNNING", null);
+                running.incrementAndGet();
+            }
+
+            try {
+                MorphJob morph = job.job;
+                MorphExport export = new MorphExport(morph, threadsPerJob);
+                job.export = export;
+                export.run(morph.createRenderer(image(morph.getStartImageFile()), image(morph.getEndImageFile())));
+                job.rendered = export.getRenderedCount();
+                job.skipped = export.getSkippedCount();
+                job.setState("DONE", null);
+            } catch (IOException | RuntimeException e) {
+                job.setState("FAILED", e.getMessage());
+            } finally {
+                running.decrementAndGet();
+                forgetFinished(job);
+            }
+        }
+    }
+
+    /*
+     * Adds a Job to the Finished Jobs, Forgetting the Oldest Beyond the Number Kept.
+     */
+    private void forgetFinished(Job job) {
+        finished.add(job);
+        while (finished.size() > FINISHED_JOBS_KEPT) {
+            Job oldest = finished.poll();
+            if (oldest != null) {
+                jobs.remove(oldest.id);
+            }
+        }
+    }
+
+    /*
+     * Reads a Source Image, Reusing It if an Earlier Job Read the Same File.
+     */
+    private BufferedImage image(File file) throws IOException {
+        String key = file.getCanonicalPath() + "@" + file.lastModified();
+        synchronized (images) {
+            BufferedImage image = images.get(key);
+            if (image != null) {
+                return image;
+            }
+        }
+
+        BufferedImage image = RenderEvents.readImage(file);
+        if (image == null) {
+            throw new IOException("Unreadable Image: " + file);
+        }
+        image = ImageView.toIntRGB(image);
+
+        synchronized (images) {
+            images.put(key, image);
+            if (images.size() > IMAGE_CACHE_SIZE) {
+                images.remove(images.keySet().iterator().next());
+            }
+        }
+        return image;
+    }
+
+    /*
+     * Answers a Request to the Jobs Endpoint.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+
+            if (method.equals("POST") && path.equals("/jobs")) {
+                Properties properties = new Properties();
+                try (InputStream in = exchange.getRequestBody()) {
+                    properties.load(new StringReader(new String(in.readAllBytes(), StandardCharsets.UTF_8)));
+                }
+
+                String query = exchange.getRequestURI().getQuery();
+                Job queued;
+                try {
+                    MorphJob job = MorphJob.fromProperties(properties, root);
+                    queued = submit(job, (int) parameter(query, "priority"), parameter(query, "deadline"));
+                } catch (IOException e) {
+                    respond(exchange, 400, "error=" + e.getMessage() + "\n");
+                    return;
+                }
+
+                if (queued == null) {
+                    respond(exchange, 503, "error=Queue Full\n");
+                }
+                else if (queued.getState().equals("REFUSED")) {
+                    respond(exchange, 409, queued.describe());
+                }
+                else {
+                    respond(exchange, 202, queued.describe());
+                }
+            }
+            else if (method.equals("GET") && path.equals("/jobs")) {
+                StringBuilder text = new StringBuilder();
+                for (Job job : jobs.values()) {
+                    text.append(job.describe()).append('\n');
+                }
+                respond(exchange, 200, text.toString());
+            }
+            else if (method.equals("GET") && path.startsWith("/jobs/")) {
+                Job job = null;
+                try {
+                    job = jobs.get(Long.parseLong(path.substring("/jobs/".length())));
+                } catch (NumberFormatException e) {
+                    // Answered as Not Found Below
+                }
+
+                if (job == null) {
+                    respond(exchange, 404, "error=No Such Job\n");
+                }
+                else {
+                    respond(exchange, 200, job.describe());
+                }
+            }
+            else {
+                respond(exchange, 405, "error=Unsupported Request\n");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /*
+     * Reads a Number from a Query String, Such as the Priority, Defaulting to 0.
+     */
+    private static long parameter(String query, String name) {
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith(name + "=")) {
+                    try {
+                        return Long.parseLong(parameter.substring(name.length() + 1));
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+
+    /*
+     * Sends a Plain Text Response.
+     */
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte bytes[] = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /*
+     * A Queued Job and Its Progress.
+     */
+    public static class Job implements Comparable<Job> {
+
+        private final long id;
+        private final int priority;
+        private final MorphJob job;
+        private final RenderEstimator.Estimate estimate;
+
+        // The System.nanoTime() the Job Must Finish By, or 0 for None
+        private final long deadline;
+
+        // Written by the Worker, Read by Requests
+        private volatile String state = "QUEUED";
+        private volatile String error;
+        private volatile int rendered, skipped;
+        private volatile MorphExport export;
+
+        Job(long id, int priority, MorphJob job, RenderEstimator.Estimate estimate, long deadline) {
+            this.id = id;
+            this.priority = priority;
+            this.job = job;
+            this.estimate = estimate;
+            this.deadline = deadline;
+        }
+
+        void setState(String state, String error) {
+            this.error = error;
+            this.state = state;
+        }
+
+        /*
+         * Orders Higher Priorities First, Then Earlier Deadlines, Then Earlier Jobs.
+         */
+        public int compareTo(Job other) {
+            if (priority != other.priority) {
+                return Integer.compare(other.priority, priority);
+            }
+            if (deadline != other.deadline) {
+                if (deadline == 0 || other.deadline == 0) {
+                    return (deadline == 0) ? 1 : -1;
+                }
+                return Long.compare(deadline, other.deadline);
+            }
+            return Long.compare(id, other.id);
+        }
+
+        /*
+         * Predicts the Seconds Until the Job Finishes Once Running, Refined by the Frames Done.
+         */
+        double getRemainingSeconds() {
+            if (state.equals("DONE") || state.equals("FAILED")) {
+                return 0;
+            }
+            MorphExport running = export;
+            RenderEstimator.Progress progress = (running == null) ? null : running.getProgress();
+            return (progress == null) ? estimate.getSeconds() : progress.getRemainingSeconds();
+        }
+
+        /*
+         * Predicts the Bytes the Job Writes, Refined by the Frames Done.
+         */
+        long getExpectedBytes() {
+            MorphExport running = export;
+            RenderEstimator.Progress progress = (running == null) ? null : running.getProgress();
+            return (progress == null) ? estimate.getBytes() : progress.getExpectedBytes();
+        }
+
+        /*
+         * Describes the Job as Lines of key=value.
+         */
+        String describe() {
+            String text = "id=" + id + "\n"
+                    + "state=" + state + "\n"
+                    + "priority=" + priority + "\n"
+                    + "frames=" + job.getTotalFrames() + "\n"
+                    + "rendered=" + rendered + "\n"
+                    + "skipped=" + skipped + "\n"
+                    + "estimatedSeconds=" + String.format("%.1f", estimate.getSeconds()) + "\n"
+                    + "estimatedBytes=" + estimate.getBytes() + "\n"
+                    + "remainingSeconds=" + String.format("%.1f", getRemainingSeconds()) + "\n"
+                    + "expectedBytes=" + getExpectedBytes() + "\n"
+                    + ((deadline == 0) ? "" : "deadlineSeconds="
+                            + String.format("%.1f", (deadline - System.nanoTime()) / 1e9) + "\n")
+                    + "output=" + job.getOutputDirectory().getAbsolutePath() + "\n";
+            return (error == null) ? text : text + "error=" + error + "\n";
+        }
+
+        /*
+         * Retrieves the Job Id.
+         */
+        public long getId() {
+            return id;
+        }
+
+        /*
+         * Retrieves the Job State: QUEUED, RUNNING, DONE, FAILED or REFUSED.
+         */
+        public String getState() {
+            return state;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/*
+ * Generated Images and Meshes for Benchmarking and Testing Morphs.
+ *
+ * Everything is made from a seed, so the same seed always gives the same image or
+ * mesh, at any size.
+ */
+public class SyntheticMorph {
+
+    private SyntheticMorph() {
+    }
+
+    /*
+     * Creates an Image of Smooth Gradients, Soft Blobs and Noise, Like a Photograph.
+     *
+     * @param   width       The image width
+     * @param   height      The image height
+     * @param   seed        The random seed
+     * @return              The image, of type TYPE_INT_RGB
+     */
+    public static BufferedImage image(int width, int height, long seed) {
+        Random random = new Random(seed);
+
+        // Blobs Give the Warp Features to Move
+        int blobCount = 12;
+        double blobX[] = new double[blobCount], blobY[] = new double[blobCount];
+        double blobRadius[] = new double[blobCount];
+        int blobColor[] = new int[blobCount];
+        for (int i = 0; i < blobCount; i++) {
+            blobX[i] = random.nextDouble() * width;
+            blobY[i] = random.nextDouble() * height;
+            blobRadius[i] = (0.05 + random.nextDouble() * 0.15) * Math.min(width, height);
+            blobColor[i] = random.nextInt(0x1000000);
+        }
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int pixels[] = IntensityEngine.pixels(image);
+        for (int y = 0; y < height; y++) {
+            int rowOffset = y * width;
+            for (int x = 0; x < width; x++) {
+                int r = x * 200 / width;
+                int g = y * 200 / height;
+                int b = (x + y) * 100 / (width + height);
+
+                for (int i = 0; i < blobCount; i++) {
+                    double dx = x - blobX[i], dy = y - blobY[i];
+                    double radius = blobRadius[i];
+                    if (dx * dx + dy * dy < radius * radius) {
+                        r = (r + ((blobColor[i] >> 16) & 0xFF)) >> 1;
+                        g = (g + ((blobColor[i] >> 8) & 0xFF)) >> 1;
+                        b = (b + (blobColor[i] & 0xFF)) >> 1;
+                    }
+                }
+
+                int noise = random.nextInt(16);
+                pixels[rowOffset + x] = (Math.min(255, r + noise) << 16) | (Math.min(255, g + noise) << 8)
+                        | Math.min(255, b + noise);
+            }
+        }
+        return image;
+    }
+
+    /*
+     * Creates an Even Grid Mesh with Every Inner Point Moved at Random.
+     * Each inner point moves less than a quarter of a cell in x and in y, so no point
+     * can cross its neighbours and every triangle keeps its orientation.
+     *
+     * @param   width       The width of the image the mesh covers
+     * @param   height      The height of the image the mesh covers
+     * @param   columns     The number of control point columns
+     * @param   rows        The number of control point rows
+     * @param   jitter      How far points move, from 0 for none to 1 for nearly a quarter cell
+     * @param   seed        The random seed
+     * @return              The mesh
+     */
+    public static MorphMesh mesh(int width, int height, int columns, int rows, double jitter, long seed) {
+        Random random = new Random(seed);
+        double spread = 0.5 * Math.max(0, Math.min(1, jitter)) * 0.99;
+        double cellWidth = (double) width / (columns + 1);
+        double cellHeight = (double) height / (rows + 1);
+
+        int count = (columns + 2) * (rows + 2);
+        double x[] = new double[count];
+        double y[] = new double[count];
+        for (int xi = 0; xi < (columns + 2); xi++) {
+            for (int yi = 0; yi < (rows + 2); yi++) {
+                int i = (xi * (rows + 2)) + yi;
+                x[i] = Math.min(width, xi * cellWidth);
+                y[i] = Math.min(height, yi * cellHeight);
+
+                // Border Points Stay on the Border
+                if (xi > 0 && yi > 0 && xi <= columns && yi <= rows) {
+                    x[i] += (random.nextDouble() - 0.5) * spread * cellWidth;
+                    y[i] += (random.nextDouble() - 0.5) * spread * cellHeight;
+                }
+            }
+        }
+
+        return new MorphMesh(columns, rows, x, y);
+    }
+}
@@ -12,43 +12,48 @@ import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.geom.AffineTransform;
-import java.awt.geom.GeneralPath;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.Flow;
 
 /*
  * The View for the Program.
  */
 public class View extends JFrame {
 
-    // Color Constant
-    private static final Color SELECTED_COLOR = Color.ORANGE;
-
     // Program Components
     private Controller controller;
     private ImageView startImageView, endImageView, morphImageView;
     private ConsoleView consoleView;
     private int controlPointRow, controlPointColumn;
 
-    // Control Point Movement Variables
-    private boolean isDragging = false;
-    private ControlPoint curControlPoint;
-    private ControlPoint correspondingControlPoint;
-    private Point previousPoint;
-    private boolean controlPointsEnabled = true;
+    // Mouse Handling for the Control Points, and the Session Recorder When Recording
+    private ControlPointEditor editor;
+    private EditSession.Recorder sessionRecorder;
+
+    // Frames for the Morph, Released Once the Morph is Closed
+    private FrameStore morphFrames;
+    private final FramePool framePool = new FramePool(Boolean.getBoolean("jmorph.offHeapFrames"));
+
+    // Renderer of the Current Morph and Blended Frames Kept Between Morphs
+    private MorphRenderer morphRenderer;
+    private final FrameCache frameCache = FrameCache.fromProperties();
+
+    // Frames Most Subscribers May Have Waiting Before Rendering Pauses
+    private static final int PUBLISHED_FRAMES_BUFFERED = 4;
+
+    // Time Between Status Updates While Generating a Morph
+    private static final long STATUS_NANOS = 250_000_000L;
 
-    // Group Move Variables
-    private boolean inGroupBox = false;
-    private boolean inGroupMove = false;
-    private Point groupMoveBoxStart;
-    private Point groupMoveLastPoint;
-    private ControlPoint containedControlPoints[];
+    // One Render Pass of the Current Morph, Feeding the Window and the Frame Files
+    private FramePublisher morphPublisher;
+    private MorphDisplay morphDisplay;
 
-    // Frames for the Morph
-    private BufferedImage startImageFrames[];
-    private BufferedImage endImageFrames[];
+    // Playback Timing of the Preview and the Morph
+    private final PlaybackStats previewStats = new PlaybackStats();
+    private final PlaybackStats morphStats = new PlaybackStats();
+    private boolean isPlaybackStatsShown = false;
 
     /*
      * Constructor for the View Class.
@@ -67,6 +72,7 @@ public class View extends JFrame {
         startImageView = new ImageView(readImage("res/Barack.jpg"), controlPointRow, controlPointColumn);
         endImageView = new ImageView(readImage("res/Michelle.jpg"), controlPointRow, controlPointColumn);
         consoleView = new ConsoleView(controller);
+        editor = new ControlPointEditor(startImageView, endImageView, consoleView::enableGroupMoveButton);
 
         addListeners();
 
@@ -93,152 +99,35 @@ public class View extends JFrame {
      */
     private void addListeners() {
 
-        // Create Mouse Listener for Control Points
-        MouseListener ml = new MouseListener(){
-            public void mouseExited(MouseEvent e){}
-            public void mouseEntered(MouseEvent e){}
-            public void mouseReleased(MouseEvent e){
-                if (controlPointsEnabled) {
-                    isDragging = false;
-                    curControlPoint = null;
-                }
-                if (inGroupMove) {
-                    inGroupMove = false;
-                    startImageView.deleteGroupMoveBox();
-                    endImageView.deleteGroupMoveBox();
-                    consoleView.enableGroupMoveButton();
-                }
-                if (inGroupBox) {
-                    if (containedControlPoints[0] == null) {
-                        inGroupMove = false;
-                        consoleView.enableGroupMoveButton();
-                    }
-                    inGroupBox = false;
-                    startImageView.eraseGroupMoveBox();
-                    endImageView.eraseGroupMoveBox();
-                }
-            }
-            public void mousePressed(MouseEvent e){
-
-                ImageView curImageView = startImageView;
-                ImageView correspondingImageView = endImageView;
-
-                if (e.getSource() == endImageView) {
-                    curImageView = endImageView;
-                    correspondingImageView = startImageView;
-                }
-
-                if (curImageView.getGroupMoveBox() != null && curImageView.getGroupMoveBox().contains(e.getPoint())) {
-                    inGroupMove = true;
-                }
-
-                if (inGroupBox) {
-                    groupMoveBoxStart = e.getPoint();
-                }
-                else if (inGroupMove) {
-                    groupMoveLastPoint = e.getPoint();
-                }
-                else if (controlPointsEnabled) {
-
-                    // Check if User Clicked On a Control Point
-                    ControlPoint tempControlPoint = curImageView.whichControlPoint(e.getPoint());
-                    if (tempControlPoint != null) {
-
-                        // Reset Selected Control Points If New Point Pair Selected
-                        if (!(tempControlPoint == curControlPoint || tempControlPoint == correspondingControlPoint)) {
-                            curImageView.resetControlPointsColor();
-                            correspondingImageView.resetControlPointsColor();
-                        }
-                        curControlPoint = tempControlPoint;
-
-                        // Set Selected Control Point Pair Color
-                        correspondingControlPoint = correspondingImageView.getControlPoint(curControlPoint.getX(), curControlPoint.getY());
-                        curControlPoint.changeColor(SELECTED_COLOR);
-                        correspondingControlPoint.changeColor(SELECTED_COLOR);
-                        curImageView.repaint();
-                        correspondingImageView.repaint();
-
-                        isDragging = true;
-                    }
-                }
-            }
-            public void mouseClicked(MouseEvent e){}
-        };
-
-        // Create Mouse Motion Listener for Control Points
-        MouseMotionListener mml = new MouseMotionListener(){
-            public void mouseDragged(MouseEvent e) {
-
-                ImageView sourceImageView = (ImageView) e.getSource();
-                ImageView correspondingImageView = startImageView;
-
-                if (sourceImageView == startImageView) {
-                    correspondingImageView = endImageView;
-                }
-
-                if (inGroupBox) {
-                    sourceImageView.drawGroupMoveBox(groupMoveBoxStart, e.getPoint());
-
-                    containedControlPoints = sourceImageView.selectControlPointsInBox();
-                    correspondingImageView.colorGroupControlPoints(containedControlPoints);
-
-                }
-                else if (inGroupMove) {
-
-                    Point constrainedPoints[] = sourceImageView.constrainPoints(containedControlPoints, (e.getX() - groupMoveLastPoint.getX()), (e.getY() - groupMoveLastPoint.getY()));
-
-                    if (constrainedPoints != null) {
-                        int i = 0;
-                        while (i < containedControlPoints.length && containedControlPoints[i] != null) {
-                            ControlPoint cp = containedControlPoints[i];
-
-                            cp.changePoint(constrainedPoints[i].getX(), constrainedPoints[i].getY());
-                            i++;
-                        }
-                        groupMoveLastPoint = e.getPoint();
-                    }
-
-                    sourceImageView.repaint();
-                }
-                else if (controlPointsEnabled && isDragging) {
-
-                    Point constrainedPoint = sourceImageView.constrainPoint(curControlPoint, e.getPoint());
-
-                    if (constrainedPoint == null) {
-                        constrainedPoint = previousPoint;
-                    }
-                    else {
-                        previousPoint = constrainedPoint;
-                    }
-
-                    curControlPoint.changePoint(constrainedPoint.getX(), constrainedPoint.getY());
-                    sourceImageView.repaint();
-                }
-            }
-            public void mouseMoved(MouseEvent e) {}
-        };
-
-        // Add Mouse Listener to Image Views
-        startImageView.addMouseListener(ml);
-        endImageView.addMouseListener(ml);
+        // Record the Session Before the Editor Handles Each Event
+        String sessionFile = System.getProperty("jmorph.recordSession");
+        if (sessionFile != null) {
+            sessionRecorder = new EditSession.Recorder(new File(sessionFile), startImageView, endImageView);
+            startImageView.addMouseListener(sessionRecorder);
+            endImageView.addMouseListener(sessionRecorder);
+            startImageView.addMouseMotionListener(sessionRecorder);
+            endImageView.addMouseMotionListener(sessionRecorder);
+        }
 
-        // Add Mouse Motion Listener to Image Views
-        startImageView.addMouseMotionListener(mml);
-        endImageView.addMouseMotionListener(mml);
+        // Add the Control Point Editor to Image Views
+        startImageView.addMouseListener(editor);
+        endImageView.addMouseListener(editor);
+        startImageView.addMouseMotionListener(editor);
+        endImageView.addMouseMotionListener(editor);
     }
 
     /*
      * Enables the Control Points.
      */
     public void enableControlPoints() {
-        controlPointsEnabled = true;
+        editor.setControlPointsEnabled(true);
     }
 
     /*
      * Disables the Control Points.
      */
     public void disableControlPoints() {
-        controlPointsEnabled = false;
+        editor.setControlPointsEnabled(false);
     }
 
     /*
@@ -248,143 +137,82 @@ public class View extends JFrame {
      * @param   totalFrames     The total number of frames
      */
     public void setPreviewFrame(int frameCount, int totalFrames) {
-
-        // Find the New Point Locations
-        for (int xi = 1; xi < (controlPointColumn + 1); xi++) {
-            for (int yi = 1; yi < (controlPointRow + 1); yi++) {
-
-                // Get Coordinates
-                double x1 = startImageView.getControlPoints()[xi][yi].getPreviewStartXCoordinate();
-                double y1 = startImageView.getControlPoints()[xi][yi].getPreviewStartYCoordinate();
-                double x2 = endImageView.getControlPoints()[xi][yi].getXCoordinate();
-                double y2 = endImageView.getControlPoints()[xi][yi].getYCoordinate();
-
-                // Calculate Coordinate
-                double x = (frameCount * ((x2 - x1) / totalFrames)) + x1;
-                double y = (frameCount * ((y2 - y1) / totalFrames)) + y1;
-
-                startImageView.getControlPoints()[xi][yi].changePreviewPoint(x, y);
-            }
-        }
-        startImageView.repaint();
+        startImageView.setPreviewFrame(endImageView, frameCount, totalFrames);
     }
 
     /*
-     * Shows the Current Frame in the Morph.
+     * Shows or Hides the Playback Overlay on the Start Image and the Morph.
      *
-     * @param   frameCount      The current frame count
-     * @param   totalFrames     The total number of frames
+     * @param   isShown     Whether or not to show the overlay
      */
-    public void showMorphFrame(int frameCount, int totalFrames) {
-
-
-        BufferedImage startFrame = startImageFrames[frameCount - 1];
-        BufferedImage endFrame = endImageFrames[totalFrames - frameCount];
-        BufferedImage combinedImage = new BufferedImage(startFrame.getWidth(), startFrame.getHeight(), BufferedImage.TYPE_INT_RGB);
-
-        Graphics g = combinedImage.getGraphics();
-        Graphics2D g2d = (Graphics2D) g.create();
-
-        g2d.setComposite(AlphaComposite.SrcOver.derive(1 - ((float)frameCount / totalFrames)));
-        g2d.drawImage(startFrame, 0, 0, this);
-
-        g2d.setComposite(AlphaComposite.SrcOver.derive((float) frameCount / totalFrames));
-        g2d.drawImage(endFrame, 0, 0, this);
-
-        File outputFile = new File("Frame" + frameCount + ".jpg");
-        try {
-            ImageIO.write(combinedImage, "jpg", outputFile);
-        } catch (IOException e) {
-            System.out.println("Error Saving Morph Frame");
+    public void setPlaybackStatsShown(boolean isShown) {
+        isPlaybackStatsShown = isShown;
+
+        // Frames Rendered While Hidden Were Never Painted with the Overlay
+        previewStats.reset();
+        morphStats.reset();
+        startImageView.setPlaybackStats(isShown ? previewStats : null);
+        if (morphImageView != null) {
+            morphImageView.setPlaybackStats(isShown ? morphStats : null);
         }
-
-        morphImageView.setImage(combinedImage);
     }
 
     /*
-     * Sets the Given Morph Frame.
-     *
-     * @param   frameCount          The Current Frame
-     * @param   totalFrames         The Total Number of Frames
-     * @param   isForwardRunning    Whether or not the instance is of start to end image
+     * Retrieves the Playback Timing of the Preview.
      */
-    private void setFrame(int frameCount, int totalFrames, boolean isForwardRunning) {
+    public PlaybackStats getPreviewStats() {
+        return previewStats;
+    }
 
-        ImageView startIV = startImageView;
-        ImageView endIV = endImageView;
+    /*
+     * Retrieves the Playback Timing of the Morph.
+     */
+    public PlaybackStats getMorphStats() {
+        return morphStats;
+    }
 
-        if (!isForwardRunning) {
-            startIV = endImageView;
-            endIV = startImageView;
+    /*
+     * Asks for the Next Frame of the Morph, Shown Once It Has Been Blended.
+     */
+    public void showNextMorphFrame() {
+        if (morphDisplay != null) {
+            morphDisplay.requestFrame();
         }
+    }
 
-        // Find the New Point Locations
-        for (int xi = 1; xi < (controlPointColumn + 1); xi++) {
-            for (int yi = 1; yi < (controlPointRow + 1); yi++) {
-
-                // Get Coordinates
-                double x1 = morphImageView.getControlPoints()[xi][yi].getPreviewStartXCoordinate();
-                double y1 = morphImageView.getControlPoints()[xi][yi].getPreviewStartYCoordinate();
-                double x2 = endIV.getControlPoints()[xi][yi].getXCoordinate();
-                double y2 = endIV.getControlPoints()[xi][yi].getYCoordinate();
-
-                // Calculate Coordinate
-                double x = (frameCount * ((x2 - x1) / totalFrames)) + x1;
-                double y = (frameCount * ((y2 - y1) / totalFrames)) + y1;
-
-                morphImageView.getControlPoints()[xi][yi].changePreviewPoint(x, y);
+    /*
+     * Blends a Frame of a Morph. Called from the publishing thread.
+     *
+     * @param   renderer        The renderer of the morph
+     * @param   frames          The warped frames of the morph, or null
+     * @param   frameCount      The frame count
+     * @param   totalFrames     The total number of frames
+     * @param   combinedPixels  The pixels to blend into
+     */
+    private void blendMorphFrame(MorphRenderer renderer, FrameStore frames, int frameCount, int totalFrames,
+                                 int combinedPixels[]) {
+
+        int width = renderer.getFrameWidth();
+        int height = renderer.getFrameHeight();
+
+        // Blend Only Frames the Cache Does Not Already Hold
+        long morphHash = renderer.getMorphHash();
+        if (!frameCache.get(morphHash, frameCount, totalFrames, combinedPixels)) {
+            if (frames != null && frames.isWritten(frameCount - 1)) {
+                BlendKernel.blend(frames.startFrame(frameCount - 1).getPixels(),
+                        frames.endFrame(frameCount - 1).getPixels(), combinedPixels, frameCount, totalFrames);
             }
-        }
-
-        for (int xi = 0; xi < (controlPointColumn + 1); xi++) {
-            for (int yi = 0; yi < (controlPointRow + 1); yi++) {
-
-                // Original Triangle
-                double sx1 = startIV.getControlPoints()[xi][yi].getPreviewStartXCoordinate();
-                double sy1 = startIV.getControlPoints()[xi][yi].getPreviewStartYCoordinate();
-                double sx2 = startIV.getControlPoints()[xi + 1][yi].getPreviewStartXCoordinate();
-                double sy2 = startIV.getControlPoints()[xi + 1][yi].getPreviewStartYCoordinate();
-                double sx3 = startIV.getControlPoints()[xi + 1][yi + 1].getPreviewStartXCoordinate();
-                double sy3 = startIV.getControlPoints()[xi + 1][yi + 1].getPreviewStartYCoordinate();
-                double sx4 = startIV.getControlPoints()[xi][yi + 1].getPreviewStartXCoordinate();
-                double sy4 = startIV.getControlPoints()[xi][yi + 1].getPreviewStartYCoordinate();
-
-                // New Triangle
-                double dx1 = morphImageView.getControlPoints()[xi][yi].getXCoordinate();
-                double dy1 = morphImageView.getControlPoints()[xi][yi].getYCoordinate();
-                double dx2 = morphImageView.getControlPoints()[xi + 1][yi].getXCoordinate();
-                double dy2 = morphImageView.getControlPoints()[xi + 1][yi].getYCoordinate();
-                double dx3 = morphImageView.getControlPoints()[xi + 1][yi + 1].getXCoordinate();
-                double dy3 = morphImageView.getControlPoints()[xi + 1][yi + 1].getYCoordinate();
-                double dx4 = morphImageView.getControlPoints()[xi][yi + 1].getXCoordinate();
-                double dy4 = morphImageView.getControlPoints()[xi][yi + 1].getYCoordinate();
-
-                // Check for the Top Right and Bottom Left
-                if (((xi == controlPointColumn) && (yi == 1))
-                        || ((xi == 1) && (yi == controlPointRow))) {
-
-                    Triangle S = new Triangle(sx1, sy1, sx2, sy2, sx4, sy4);
-                    Triangle D = new Triangle(dx1, dy1, dx2, dy2, dx4, dy4);
-                    setWarpFrame(startIV.getImage(), morphImageView.getImage(), S, D, null, null);
-
-                    S = new Triangle(sx2, sy2, sx3, sy3, sx4, sy4);
-                    D = new Triangle(dx2, dy2, dx3, dy3, dx4, dy4);
-                    setWarpFrame(startIV.getImage(), morphImageView.getImage(), S, D, null, null);
-
-                }
-                else {
-
-                    Triangle S = new Triangle(sx1, sy1, sx2, sy2, sx3, sy3);
-                    Triangle D = new Triangle(dx1, dy1, dx2, dy2, dx3, dy3);
-                    setWarpFrame(startIV.getImage(), morphImageView.getImage(), S, D, null, null);
-
-                    S = new Triangle(sx3, sy3, sx4, sy4, sx1, sy1);
-                    D = new Triangle(dx3, dy3, dx4, dy4, dx1, dy1);
-                    setWarpFrame(startIV.getImage(), morphImageView.getImage(), S, D, null, null);
-                }
+            else {
+                // The Frame Left the Cache Before It Was Shown, so Render It Again
+                FrameBuffer startFrame = framePool.acquire(width, height);
+                FrameBuffer endFrame = framePool.acquire(width, height);
+                renderer.renderFrame(frameCount, totalFrames, startFrame, endFrame);
+                BlendKernel.blend(startFrame.getPixels(), endFrame.getPixels(), combinedPixels, frameCount, totalFrames);
+                framePool.release(startFrame);
+                framePool.release(endFrame);
             }
+            frameCache.put(morphHash, frameCount, totalFrames, combinedPixels);
         }
-        morphImageView.repaint();
     }
 
     /*
@@ -491,8 +319,11 @@ public class View extends JFrame {
      * Starts a Group Move Sequence.
      */
     public void startGroupMove() {
-        inGroupBox = true;
+        editor.startGroupMove();
         consoleView.disableGroupMoveButton();
+        if (sessionRecorder != null) {
+            sessionRecorder.groupMoveStarted();
+        }
     }
 
     /*
@@ -514,8 +345,8 @@ public class View extends JFrame {
                 File endImage = new File(s + "/endImage.jpg");
 
                 try {
-                    ImageIO.write(startImageView.getImage(), "jpg", startImage);
-                    ImageIO.write(endImageView.getImage(), "jpg", endImage);
+                    ImageIO.write(startImageView.getAdjustedImage(), "jpg", startImage);
+                    ImageIO.write(endImageView.getAdjustedImage(), "jpg", endImage);
                 } catch (IOException e) {
                     System.out.println("Error: Couldn't save project.");
                 }
@@ -524,179 +355,312 @@ public class View extends JFrame {
     }
 
     /*
-     * Solves a series of matrix equations.
-     * ** Code from Dr. Seales
+     * Opens a File Explorer and Saves a Job the Headless Renderer Can Run.
+     * The folder gets both original images, the meshes, the intensities and the
+     * frame settings, with the frames going to a frames folder inside it.
      */
-    private static void solve(int n, double[][] a, int[] l,
-                              double[] b, double[] x){
-        /*********************************************************
-         a and l have previously been passed to Gauss() b is the product of
-         a and x. x is the 1x3 matrix of coefficients to solve for
-         *************************************************************/
-        int i, k;
-        double sum;
-        for(k=0; k < (n-1); ++k){
-            for( i=k+1; i<n; ++i){
-                b[l[i]] -= a[l[i]][k] * b[l[k]];
-            }
-        }
-        x[n-1] = b[l[n-1]] / a[l[n-1]][n-1];
-
-        for( i=n-2; i>= 0; --i){
-            sum = b[l[i]];
-            for(int j=i+1; j<n; ++j){
-                sum = sum - a[l[i]][j] * x[j];
+    public void saveMorphJob() {
+        JFileChooser fc = new JFileChooser();
+        int returnVal = fc.showSaveDialog(View.this);
+        if (returnVal == JFileChooser.APPROVE_OPTION) {
+            File folder = fc.getSelectedFile().getAbsoluteFile();
+            folder.mkdirs();
+
+            File startImage = new File(folder, "startImage.png");
+            File endImage = new File(folder, "endImage.png");
+
+            MorphJob job = new MorphJob(
+                    startImage, startImageView.getIntensity(),
+                    MorphMesh.fromControlPoints(startImageView.getControlPoints(), controlPointColumn, controlPointRow),
+                    endImage, endImageView.getIntensity(),
+                    MorphMesh.fromControlPoints(endImageView.getControlPoints(), controlPointColumn, controlPointRow),
+                    consoleView.getFramesSlider().getValue(), consoleView.getSecondSlider().getValue(),
+                    new File(folder, "frames"), "jpg");
+
+            try {
+                ImageIO.write(startImageView.getOriginalImage(), "png", startImage);
+                ImageIO.write(endImageView.getOriginalImage(), "png", endImage);
+                job.save(new File(folder, "job.properties"));
+            } catch (IOException e) {
+                System.out.println("Error: Couldn't save morph job.");
             }
-            x[i] = sum / a[l[i]][i];
         }
     }
 
     /*
-     * Solves the Gaussian Elimination.
-     * ** Code from Dr. Seales
+     * Generates the Actual Morph Sequence.
      */
-    private static void Gauss( int n, double[][] a, int[] l){
-        /****************************************************
-         a is a n x n matrix and l is an int array of length n
-         l is used as an index array that will determine the order of
-         elimination of coefficients
-         All array indexes are assumed to start at 0
-         ******************************************************/
-        double [] s = new double[n];   //scaling factor
-        int i, j=0, k;
-        double r, rmax, smax, xmult;
-        for(i=0; i<n; ++i){
-            l[i] = i;
-            smax = 0;
-            for(j=0; j<n; ++j)
-                smax = Math.max(smax, Math.abs(a[i][j]));
-            s[i] = smax;
-        }
+    public void generateMorph() {
 
-        i=n-1;
-        for(k=0; k<(n-1); ++k){
-            --j;
-            rmax = 0;
-            for(i=k; i<n; ++i){
-                r = Math.abs(a[l[i]][k] / s[l[i]]);
-                if( r > rmax){
-                    rmax = r;
-                    j = i;
+        int frameCount = consoleView.getFramesSlider().getValue () * consoleView.getSecondSlider().getValue();
+        // Reuse the Buffers of the Last Morph
+        stopMorphPlayback();
+        releaseMorphFrames();
+
+        // Render Both Warps of Each Frame from One Rasterized Mesh, Unless the
+        // Cache Still Holds Every Blended Frame of this Morph
+        MorphRenderer renderer = createMorphRenderer();
+        morphRenderer = renderer;
+        if (!frameCache.containsAll(renderer.getMorphHash(), frameCount)) {
+
+            // Say How Long the Window Will Take Before Setting Anything Up
+            RenderEstimator estimator = RenderEstimator.get();
+            consoleView.showStatus("Generating Morph: " + estimator.estimate(renderer.getFrameWidth(),
+                    renderer.getFrameHeight(), renderer.getTriangleCount(), frameCount, RenderEstimator.IN_MEMORY, 1)
+                    .describe());
+
+            morphFrames = createFrameStore(renderer.getMorphHash(), renderer.getFrameWidth(), renderer.getFrameHeight(),
+                    frameCount);
+
+            // A Reused Spool Already Holds Some Frames
+            int pendingCount = 0;
+            for (int i = 0; i < frameCount; i++) {
+                if (!morphFrames.isWritten(i)) {
+                    pendingCount++;
                 }
             }
-            int temp = l[j];
-            l[j] = l[k];
-            l[k] = temp;
-            for( i = k+1; i< n; ++i){
-                xmult = a[l[i]][k] / a[l[k]][k];
-                a[l[i]][k] = xmult;
-                for(j = k+1; j<n; ++j){
-                    a[l[i]][j] = a[l[i]][j] - xmult * a[l[k]][j];
+            String reused = (pendingCount < frameCount)
+                    ? "Reusing " + (frameCount - pendingCount) + " Spooled Frames, " : "";
+
+            // Refine the Estimate as Frames Finish, and Learn from How Long It Took
+            RenderEstimator.Progress progress = estimator.estimate(renderer.getFrameWidth(), renderer.getFrameHeight(),
+                    renderer.getTriangleCount(), pendingCount, RenderEstimator.IN_MEMORY, 1).start();
+            consoleView.showStatus("Generating Morph: " + reused + progress.getEstimate().describe());
+
+            long lastStatus = System.nanoTime();
+            for (int i = 0; i < frameCount; i++) {
+                if (morphFrames.isWritten(i)) {
+                    continue;
+                }
+                renderer.renderFrame(i + 1, frameCount, morphFrames.startFrame(i), morphFrames.endFrame(i));
+                morphFrames.markWritten(i);
+                progress.frameFinished(2 * MemoryBudget.frameBytes(renderer.getFrameWidth(), renderer.getFrameHeight()));
+
+                if (System.nanoTime() - lastStatus > STATUS_NANOS) {
+                    consoleView.showStatus("Generating Morph: " + reused + progress.describe());
+                    lastStatus = System.nanoTime();
                 }
             }
+            estimator.record(progress);
+            consoleView.showStatus("Generated " + pendingCount + " Frames in "
+                    + RenderEstimator.seconds(progress.getElapsedSeconds()));
+        }
+        else {
+            consoleView.showStatus("Showing " + frameCount + " Cached Frames");
+        }
+
+        // Show the First Frame Until Playback Starts
+        FrameStore frames = morphFrames;
+        BufferedImage firstFrame = renderer.createFrameImage();
+        blendMorphFrame(renderer, frames, 1, frameCount, IntensityEngine.pixels(firstFrame));
+        morphImageView = createMorphView(startImageView, firstFrame);
+        morphStats.reset();
+        if (isPlaybackStatsShown) {
+            morphImageView.setPlaybackStats(morphStats);
         }
+
+        // One Render Pass Feeds the Window and the Frame Files, at the Pace of the Slower
+        morphPublisher = new FramePublisher((frame, total, pixels) -> blendMorphFrame(renderer, frames, frame, total, pixels),
+                renderer.getFrameWidth(), renderer.getFrameHeight(), frameCount, PUBLISHED_FRAMES_BUFFERED);
+        morphDisplay = new MorphDisplay(morphImageView, consoleView.getFramesSlider().getValue());
+        morphPublisher.subscribe(morphDisplay);
+        FrameFileWriter frameWriter = new FrameFileWriter(new File("."), "jpg");
+        frameWriter.getDone().whenComplete((written, error) -> {
+            if (error != null) {
+                System.out.println("Error Saving Morph Frame: " + error.getMessage());
+            }
+        });
+        morphPublisher.subscribe(frameWriter);
+        morphPublisher.start();
+
+        MorphView morphView = new MorphView(morphImageView);
+        morphView.addWindowListener(new WindowAdapter() {
+            public void windowClosing(WindowEvent e) {
+                controller.stopMorph();
+                stopMorphPlayback();
+                releaseMorphFrames();
+
+                // No Morph is Left to Reuse the Buffers
+                framePool.trim(0);
+            }
+        });
+
     }
 
     /*
-     * Sets the Current Warp Frame.
-     * ** Code from Dr. Seales
+     * Creates the Store for the Frames of a Morph.
+     * Morphs over the memory budget, or any morph when jmorph.spoolFrames is set,
+     * go to a memory-mapped spool file instead. Setting jmorph.spoolFile keeps the
+     * spool at that path; generating the same morph again reuses the frames it
+     * holds, and --render --spool exports from it.
+     *
+     * @param   morphHash       The hash of the morph
+     * @param   width           The frame width
+     * @param   height          The frame height
+     * @param   frameCount      The number of frames
+     * @return                  The frame store
      */
-    private static void setWarpFrame (BufferedImage src, BufferedImage dest,
-             Triangle S, Triangle D,
-             Object ALIASING, Object INTERPOLATION) {
-
-        if( ALIASING == null )
-            ALIASING = RenderingHints.VALUE_ANTIALIAS_ON;
-        if( INTERPOLATION == null )
-            INTERPOLATION = RenderingHints.VALUE_INTERPOLATION_BICUBIC;
-        double [][] a = new double [3][3];
-        for( int i= 0; i<3; ++i){
-            a[i][0] = S.getX(i);
-            a[i][1] = S.getY(i);
-            a[i][2] = 1.0;
+    private FrameStore createFrameStore(long morphHash, int width, int height, int frameCount) {
+        String spoolFile = System.getProperty("jmorph.spoolFile");
+        MemoryBudget budget = MemoryBudget.fromProperties();
+        // Idle Pool Buffers This Morph Would Not Reuse Stay Resident Too
+        long bytes = MemoryBudget.inMemoryBytes(width, height, frameCount)
+                + framePool.getSpareBytes(width, height, 2 * frameCount);
+        boolean isOverBudget = !budget.fits(bytes);
+
+        if (isOverBudget) {
+            System.out.println("Morph " + budget.describe(bytes) + ", Spooling Frames to Disk");
+            long spooledBytes = MemoryBudget.spooledBytes(width, height);
+            if (!budget.fits(spooledBytes)) {
+                System.out.println("Warning: Even Spooled, the Morph " + budget.describe(spooledBytes)
+                        + " and May Run Out of Memory");
+            }
         }
 
-        int l[] = new int[3];
-        Gauss(3,a,l);
-
-        double[] b = new double[3];
-        for( int i= 0; i<3; ++i){
-            b[i] = D.getX(i);
+        if (spoolFile != null || Boolean.getBoolean("jmorph.spoolFrames") || isOverBudget) {
+            // A Spooled Morph Reuses None of the Idle Pool Buffers
+            framePool.trim(0);
+            try {
+                if (spoolFile != null) {
+                    return FrameSpool.openOrCreate(new File(spoolFile), morphHash, width, height, frameCount);
+                }
+                return FrameSpool.createTemporary(morphHash, width, height, frameCount);
+            } catch (IOException e) {
+                System.out.println("Error Creating Frame Spool");
+            }
         }
 
-        double[] x = new double[3];
-        solve(3, a, l, b, x);
+        return new PooledFrameStore(framePool, width, height, frameCount);
+    }
 
-        double [] by = new double[3];
-        for(int i = 0; i<3; ++i){
-            by[i] = D.getY(i);
+    /*
+     * Stops Publishing the Frames of the Last Morph.
+     * Frames already blended are still written to their files.
+     */
+    private void stopMorphPlayback() {
+        if (morphDisplay != null) {
+            morphDisplay.cancel();
+            morphDisplay = null;
         }
+        if (morphPublisher != null) {
+            morphPublisher.stop();
+            morphPublisher = null;
+        }
+    }
 
-        double[] y = new double[3];
-        solve(3, a, l, by, y);
-
-        AffineTransform af = new AffineTransform(x[0], y[0], x[1], y[1],
-                x[2], y[2]);
-        GeneralPath destPath = new GeneralPath(GeneralPath.WIND_EVEN_ODD);
-
-        destPath.moveTo((float)D.getX(0), (float)D.getY(0));
-        destPath.lineTo((float)D.getX(1), (float)D.getY(1));
-        destPath.lineTo((float)D.getX(2), (float)D.getY(2) );
-        destPath.lineTo((float)D.getX(0), (float)D.getY(0) );
-        Graphics2D g2 = dest.createGraphics();
+    /*
+     * Releases the Frames of the Last Morph.
+     */
+    private void releaseMorphFrames() {
+        if (morphFrames != null) {
+            morphFrames.close();
+            morphFrames = null;
+        }
+    }
 
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-                ALIASING);
-        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
-                INTERPOLATION);
-        g2.clip(destPath);
-        g2.setTransform(af);
-        g2.drawImage(src, 0, 0, null);
-        g2.dispose();
+    /*
+     * Creates the Renderer for the Current Images and Control Points.
+     *
+     * @return      The morph renderer
+     */
+    private MorphRenderer createMorphRenderer() {
+        MorphMesh startMesh = MorphMesh.fromControlPoints(startImageView.getControlPoints(), controlPointColumn, controlPointRow);
+        MorphMesh endMesh = MorphMesh.fromControlPoints(endImageView.getControlPoints(), controlPointColumn, controlPointRow);
 
+        return new MorphRenderer(startImageView.getOriginalImage(), startImageView.getIntensity(), startMesh,
+                endImageView.getOriginalImage(), endImageView.getIntensity(), endMesh);
+    }
 
+    /*
+     * Creates a Morph View with the Control Points of an Image View.
+     *
+     * @param   curImageView    The ImageView whose control points to duplicate
+     * @param   firstFrame      The blended frame to show first, kept by the view
+     */
+    private ImageView createMorphView(ImageView curImageView, BufferedImage firstFrame) {
+        return new ImageView(firstFrame, controlPointRow, controlPointColumn, curImageView.getControlPoints());
     }
 
     /*
-     * Generates the Actual Morph Sequence.
+     * Shows Published Frames in the Morph Window, One for Each Request of the Playback Timer.
+     * The frame on screen is kept until the next one replaces it.
      */
-    public void generateMorph() {
+    private class MorphDisplay implements Flow.Subscriber<MorphFrame> {
 
-        int frameCount = consoleView.getFramesSlider().getValue () * consoleView.getSecondSlider().getValue();
-        startImageFrames = new BufferedImage[frameCount];
-        endImageFrames = new BufferedImage[frameCount];
+        private final ImageView imageView;
+        private final int targetFps;
+
+        // Requests Made Before the Subscription Arrived, Guarded by this
+        private Flow.Subscription subscription;
+        private long pendingRequests = 0;
+        private volatile boolean isCancelled = false;
 
-        // Create the End Frames
-        morphImageView = createMorphView(endImageView);
+        // Used on the Event Dispatch Thread Only
+        private MorphFrame shownFrame;
+        private long requestedAt;
 
-        for (int i = 0; i < endImageFrames.length; i++) {
-            setFrame(i, frameCount, false);
-            endImageFrames[i] = ImageView.deepCopy(morphImageView.getImage());
+        MorphDisplay(ImageView imageView, int targetFps) {
+            this.imageView = imageView;
+            this.targetFps = targetFps;
         }
-         morphImageView.resetPreviewControlPoints();
 
-         // Create the Start Frames
-        morphImageView = createMorphView(startImageView);
-        for (int i = 0; i < startImageFrames.length; i++) {
-            setFrame(i, frameCount, true);
-            startImageFrames[i] = ImageView.deepCopy(morphImageView.getImage());
+        /*
+         * Asks for One More Frame.
+         */
+        void requestFrame() {
+            requestedAt = System.nanoTime();
+            synchronized (this) {
+                if (subscription == null) {
+                    pendingRequests++;
+                }
+                else {
+                    subscription.request(1);
+                }
+            }
         }
 
-        MorphView morphView = new MorphView(morphImageView);
-        morphView.addWindowListener(new WindowAdapter() {
-            public void windowClosing(WindowEvent e) {
-                controller.stopMorph();
+        /*
+         * Stops Taking Frames, So Rendering No Longer Waits for the Window.
+         */
+        void cancel() {
+            isCancelled = true;
+            synchronized (this) {
+                if (subscription != null) {
+                    subscription.cancel();
+                }
             }
-        });
+        }
 
-    }
+        public synchronized void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (isCancelled) {
+                subscription.cancel();
+            }
+            else if (pendingRequests > 0) {
+                subscription.request(pendingRequests);
+            }
+        }
 
-    /*
-     * Creates a Duplicate Morph View.
-     *
-     * @param   curImageView    The ImageView to duplicate
-     */
-    private ImageView createMorphView(ImageView curImageView) {
-        return new ImageView(curImageView.getImage(), controlPointRow, controlPointColumn, curImageView.getControlPoints());
+        public void onNext(MorphFrame frame) {
+            SwingUtilities.invokeLater(() -> {
+                if (isCancelled) {
+                    frame.release();
+                    return;
+                }
+                morphStats.frameRendered(System.nanoTime() - requestedAt, targetFps);
+                imageView.swapImage(frame.asImage());
+                if (shownFrame != null) {
+                    shownFrame.release();
+                }
+                shownFrame = frame;
+            });
+        }
+
+        public void onError(Throwable throwable) {
+            System.out.println("Error Rendering Morph Frame: " + throwable.getMessage());
+        }
+
+        public void onComplete() {
+        }
     }
 }
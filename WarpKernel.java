@@ -0,0 +1,200 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+/*
+ * Software Warp for One Triangle of the Morph Mesh.
+ *
+ * Every destination pixel whose center falls inside the destination triangle is
+ * mapped back into the source triangle and sampled bilinearly. A brightness change
+ * can be applied to each source sample as it is read, so the source never has to be
+ * adjusted ahead of time.
+ */
+public class WarpKernel {
+
+    /*
+     * Warps a Source Triangle onto a Destination Triangle.
+     *
+     * @param   src             The source pixels, packed RGB
+     * @param   srcWidth        The source width
+     * @param   srcHeight       The source height
+     * @param   dst             The destination pixels, packed RGB
+     * @param   dstWidth        The destination width
+     * @param   dstHeight       The destination height
+     * @param   S               The source triangle
+     * @param   D               The destination triangle
+     * @param   scaled          The brightness table from IntensityEngine.scaledTable, or null for none
+     * @param   limit           The saturation limit from IntensityEngine.saturationLimit
+     */
+    public static void warpTriangle(int src[], int srcWidth, int srcHeight,
+                                    int dst[], int dstWidth, int dstHeight,
+                                    Triangle S, Triangle D, int scaled[], int limit) {
+
+        double dx0 = D.getX(0), dy0 = D.getY(0);
+        double dx1 = D.getX(1), dy1 = D.getY(1);
+        double dx2 = D.getX(2), dy2 = D.getY(2);
+
+        // Solve the Affine Map from the Destination Back to the Source
+        double det = (dx1 - dx0) * (dy2 - dy0) - (dx2 - dx0) * (dy1 - dy0);
+        if (det == 0) {
+            return;
+        }
+
+        double sx0 = S.getX(0), sy0 = S.getY(0);
+        double ux1 = S.getX(1) - sx0, uy1 = S.getY(1) - sy0;
+        double ux2 = S.getX(2) - sx0, uy2 = S.getY(2) - sy0;
+
+        double ix = (dy2 - dy0) / det, iy = -(dx2 - dx0) / det;
+        double jx = -(dy1 - dy0) / det, jy = (dx1 - dx0) / det;
+
+        // Source Offset per Destination Step in X and Y
+        double ax = ux1 * ix + ux2 * jx;
+        double ay = ux1 * iy + ux2 * jy;
+        double bx = uy1 * ix + uy2 * jx;
+        double by = uy1 * iy + uy2 * jy;
+
+        // Rows Whose Centers Lie in the Triangle
+        int yStart = Math.max(0, (int) Math.ceil(Math.min(dy0, Math.min(dy1, dy2)) - 0.5));
+        int yEnd = Math.min(dstHeight, (int) Math.ceil(Math.max(dy0, Math.max(dy1, dy2)) - 0.5));
+
+        for (int y = yStart; y < yEnd; y++) {
+            double yc = y + 0.5;
+
+            // Find Where the Row Crosses the Triangle Edges
+            double left = Double.POSITIVE_INFINITY;
+            double right = Double.NEGATIVE_INFINITY;
+            int crossings = 0;
+
+            double crossing = edgeCrossing(dx0, dy0, dx1, dy1, yc);
+            if (!Double.isNaN(crossing)) {
+                left = Math.min(left, crossing);
+                right = Math.max(right, crossing);
+                crossings++;
+            }
+            crossing = edgeCrossing(dx1, dy1, dx2, dy2, yc);
+            if (!Double.isNaN(crossing)) {
+                left = Math.min(left, crossing);
+                right = Math.max(right, crossing);
+                crossings++;
+            }
+            crossing = edgeCrossing(dx2, dy2, dx0, dy0, yc);
+            if (!Double.isNaN(crossing)) {
+                left = Math.min(left, crossing);
+                right = Math.max(right, crossing);
+                crossings++;
+            }
+
+            if (crossings < 2) {
+                continue;
+            }
+
+            int xStart = Math.max(0, (int) Math.ceil(left - 0.5));
+            int xEnd = Math.min(dstWidth, (int) Math.ceil(right - 0.5));
+
+            warpSpan(src, srcWidth, srcHeight, dst, y * dstWidth, xStart, xEnd,
+                    sx0 + ax * (xStart + 0.5 - dx0) + ay * (yc - dy0) - 0.5,
+                    sy0 + bx * (xStart + 0.5 - dx0) + by * (yc - dy0) - 0.5,
+                    ax, bx, scaled, limit);
+        }
+    }
+
+    /*
+     * Finds Where an Edge Crosses a Row Center.
+     * Edges include their upper end and exclude their lower end so that shared
+     * edges split rows between neighbouring triangles without gaps or overlap.
+     *
+     * @return      The x-coordinate of the crossing, or NaN if the edge misses the row
+     */
+    static double edgeCrossing(double x0, double y0, double x1, double y1, double yc) {
+        if (y0 == y1) {
+            return Double.NaN;
+        }
+
+        // Walk Every Edge Top Down so Neighbours Compute the Same Crossing
+        if (y0 > y1) {
+            double t = x0; x0 = x1; x1 = t;
+            t = y0; y0 = y1; y1 = t;
+        }
+        if (yc < y0 || yc >= y1) {
+            return Double.NaN;
+        }
+        return x0 + (yc - y0) * (x1 - x0) / (y1 - y0);
+    }
+
+    /*
+     * Fills a Run of Destination Pixels from the Source.
+     *
+     * @param   rowOffset       The index of the first pixel of the destination row
+     * @param   xStart          The first destination column
+     * @param   xEnd            The destination column to stop before
+     * @param   u               The source x-coordinate of the first pixel
+     * @param   v               The source y-coordinate of the first pixel
+     * @param   du              The source x step per destination column
+     * @param   dv              The source y step per destination column
+     */
+    static void warpSpan(int src[], int srcWidth, int srcHeight, int dst[], int rowOffset,
+                         int xStart, int xEnd, double u, double v, double du, double dv,
+                         int scaled[], int limit) {
+        for (int x = xStart; x < xEnd; x++) {
+            dst[rowOffset + x] = sample(src, srcWidth, srcHeight, u, v, scaled, limit);
+            u += du;
+            v += dv;
+        }
+    }
+
+    /*
+     * Samples the Source Bilinearly at a Pixel-Center Coordinate.
+     *
+     * @return      The packed RGB sample
+     */
+    static int sample(int src[], int srcWidth, int srcHeight, double u, double v, int scaled[], int limit) {
+
+        // Clamp to the Source Edges
+        if (u < 0) u = 0;
+        if (v < 0) v = 0;
+        if (u > srcWidth - 1) u = srcWidth - 1;
+        if (v > srcHeight - 1) v = srcHeight - 1;
+
+        int x0 = (int) u;
+        int y0 = (int) v;
+        int x1 = Math.min(x0 + 1, srcWidth - 1);
+        int y1 = Math.min(y0 + 1, srcHeight - 1);
+
+        // Weights in 1/256ths
+        int fx = (int) ((u - x0) * 256);
+        int fy = (int) ((v - y0) * 256);
+
+        int p00 = src[y0 * srcWidth + x0];
+        int p10 = src[y0 * srcWidth + x1];
+        int p01 = src[y1 * srcWidth + x0];
+        int p11 = src[y1 * srcWidth + x1];
+
+        // Apply the Brightness Change to Each Sample as it is Read
+        if (scaled != null) {
+            p00 = IntensityEngine.adjustPixel(p00, scaled, limit);
+            p10 = IntensityEngine.adjustPixel(p10, scaled, limit);
+            p01 = IntensityEngine.adjustPixel(p01, scaled, limit);
+            p11 = IntensityEngine.adjustPixel(p11, scaled, limit);
+        }
+
+        int w00 = (256 - fx) * (256 - fy);
+        int w10 = fx * (256 - fy);
+        int w01 = (256 - fx) * fy;
+        int w11 = fx * fy;
+
+        int r = (((p00 >> 16) & 0xFF) * w00 + ((p10 >> 16) & 0xFF) * w10
+                + ((p01 >> 16) & 0xFF) * w01 + ((p11 >> 16) & 0xFF) * w11 + 32768) >> 16;
+        int g = (((p00 >> 8) & 0xFF) * w00 + ((p10 >> 8) & 0xFF) * w10
+                + ((p01 >> 8) & 0xFF) * w01 + ((p11 >> 8) & 0xFF) * w11 + 32768) >> 16;
+        int b = ((p00 & 0xFF) * w00 + (p10 & 0xFF) * w10
+                + (p01 & 0xFF) * w01 + (p11 & 0xFF) * w11 + 32768) >> 16;
+
+        return (r << 16) | (g << 8) | b;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+package jmorph.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Interpolation Benchmarks: the Preview Step and the Mesh Interpolation of a Frame.
+ *
+ * setPreviewFrame moves the control points of a real ImageView, including the
+ * overlay invalidation and repaint request, so it runs headless.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class InterpolationBenchmark {
+
+    @Param({"300", "600", "1200"})
+    public int imageSize;
+
+    @Param({"5", "10", "20"})
+    public int density;
+
+    private Object startView, endView;
+    private Object startMesh, endMesh;
+    private double x[], y[];
+    private int frame = 0;
+
+    @Setup
+    public void setUp() throws Throwable {
+        startView = (Object) Targets.NEW_IMAGE_VIEW.invokeExact(Targets.image(imageSize, 1), density, density);
+        endView = (Object) Targets.NEW_IMAGE_VIEW.invokeExact(Targets.image(imageSize, 2), density, density);
+
+        double startGrid[][] = Targets.grid(imageSize, density, 0.5, 3);
+        double endGrid[][] = Targets.grid(imageSize, density, 0.5, 4);
+        startMesh = (Object) Targets.NEW_MESH.invokeExact(density, density, startGrid[0], startGrid[1]);
+        endMesh = (Object) Targets.NEW_MESH.invokeExact(density, density, endGrid[0], endGrid[1]);
+        x = new double[startGrid[0].length];
+        y = new double[startGrid[0].length];
+    }
+
+    @Benchmark
+    public Object setPreviewFrame() throws Throwable {
+        frame = (frame % 29) + 1;
+        Targets.SET_PREVIEW_FRAME.invokeExact(startView, endView, frame, 30);
+        return startView;
+    }
+
+    @Benchmark
+    public double[] interpolateMesh() throws Throwable {
+        frame = (frame % 29) + 1;
+        Targets.MESH_INTERPOLATE.invokeExact(startMesh, endMesh, frame, 30, x, y);
+        return x;
+    }
+}
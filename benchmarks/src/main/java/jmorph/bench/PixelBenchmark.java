@@ -0,0 +1,80 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+package jmorph.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Per-Pixel Benchmarks: the Morph Frame Blend and the Image Intensity Change.
+ *
+ * blend is the work of each frame the morph window plays. adjustedCopy is what
+ * ImageView.changeIntensity hands to its background engine, and applyIntensity is
+ * the same pass into an existing buffer, which is how the engine runs once warmed up.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PixelBenchmark {
+
+    @Param({"300", "600", "1200"})
+    public int imageSize;
+
+    private BufferedImage image;
+    private int start[], end[], out[];
+    private int scaled[];
+    private int limit;
+    private int frame = 0;
+
+    @Setup
+    public void setUp() throws Throwable {
+        image = Targets.image(imageSize, 1);
+        start = (int[]) Targets.PIXELS.invokeExact(image);
+        end = (int[]) Targets.PIXELS.invokeExact(Targets.image(imageSize, 2));
+        out = new int[imageSize * imageSize];
+
+        scaled = (int[]) Targets.SCALED_TABLE.invokeExact(1.4f);
+        limit = (int) Targets.SATURATION_LIMIT.invokeExact(1.4f);
+    }
+
+    @Benchmark
+    public int[] blend() throws Throwable {
+        frame = (frame % 29) + 1;
+        Targets.BLEND.invokeExact(start, end, out, frame, 30);
+        return out;
+    }
+
+    @Benchmark
+    public BufferedImage adjustedCopy() throws Throwable {
+        return (BufferedImage) Targets.ADJUSTED_COPY.invokeExact(image, 1.4f);
+    }
+
+    @Benchmark
+    public int[] applyIntensity() throws Throwable {
+        Targets.APPLY_INTENSITY.invokeExact(start, 0, out, 0, out.length, scaled, limit);
+        return out;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+package jmorph.bench;
+
+import java.awt.image.BufferedImage;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Random;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/*
+ * Handles to the Application Code Under Benchmark.
+ *
+ * JMH will not generate code for benchmarks in the default package, and classes
+ * in a named package cannot refer to the application's default package classes by
+ * name. The benchmarks therefore call through these method handles. They are
+ * static final, so the JIT binds each call directly to its target and the calls
+ * cost the same as written out. Application types appear as Object.
+ */
+final class Targets {
+
+    static final MethodHandle NEW_MESH;             // (int, int, double[], double[]) Object
+    static final MethodHandle MESH_TRIANGLES;       // (Object) int[]
+    static final MethodHandle MESH_INTERPOLATE;     // (Object, Object, int, int, double[], double[]) void
+    static final MethodHandle NEW_TRIANGLE;         // (double x6) Object
+    static final MethodHandle WARP_TRIANGLE;        // (int[], int, int, int[], int, int, Object, Object, int[], int) void
+    static final MethodHandle NEW_RENDERER;         // (BufferedImage, float, Object, BufferedImage, float, Object) Object
+    static final MethodHandle RENDER_FRAME;         // (Object, int, int, int[], int[]) void
+    static final MethodHandle BLEND;                // (int[], int[], int[], int, int) void
+    static final MethodHandle ADJUSTED_COPY;        // (BufferedImage, float) BufferedImage
+    static final MethodHandle APPLY_INTENSITY;      // (int[], int, int[], int, int, int[], int) void
+    static final MethodHandle SCALED_TABLE;         // (float) int[]
+    static final MethodHandle SATURATION_LIMIT;     // (float) int
+    static final MethodHandle PIXELS;               // (BufferedImage) int[]
+    static final MethodHandle NEW_IMAGE_VIEW;       // (BufferedImage, int, int) Object
+    static final MethodHandle SET_PREVIEW_FRAME;    // (Object, Object, int, int) void
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            ClassLoader loader = Targets.class.getClassLoader();
+            Class<?> mesh = Class.forName("MorphMesh", true, loader);
+            Class<?> triangle = Class.forName("Triangle", true, loader);
+            Class<?> warp = Class.forName("WarpKernel", true, loader);
+            Class<?> renderer = Class.forName("MorphRenderer", true, loader);
+            Class<?> blend = Class.forName("BlendKernel", true, loader);
+            Class<?> intensity = Class.forName("IntensityEngine", true, loader);
+            Class<?> imageView = Class.forName("ImageView", true, loader);
+
+            NEW_MESH = generic(lookup.findConstructor(mesh,
+                    methodType(void.class, int.class, int.class, double[].class, double[].class)));
+            MESH_TRIANGLES = generic(lookup.findVirtual(mesh, "triangles", methodType(int[].class)));
+            MESH_INTERPOLATE = generic(lookup.findVirtual(mesh, "interpolate",
+                    methodType(void.class, mesh, int.class, int.class, double[].class, double[].class)));
+
+            NEW_TRIANGLE = generic(lookup.findConstructor(triangle, methodType(void.class,
+                    double.class, double.class, double.class, double.class, double.class, double.class)));
+            WARP_TRIANGLE = generic(lookup.findStatic(warp, "warpTriangle", methodType(void.class,
+                    int[].class, int.class, int.class, int[].class, int.class, int.class,
+                    triangle, triangle, int[].class, int.class)));
+
+            NEW_RENDERER = generic(lookup.findConstructor(renderer, methodType(void.class,
+                    BufferedImage.class, float.class, mesh, BufferedImage.class, float.class, mesh)));
+            RENDER_FRAME = generic(lookup.findVirtual(renderer, "renderFrame",
+                    methodType(void.class, int.class, int.class, int[].class, int[].class)));
+
+            BLEND = lookup.findStatic(blend, "blend",
+                    methodType(void.class, int[].class, int[].class, int[].class, int.class, int.class));
+
+            ADJUSTED_COPY = lookup.findStatic(intensity, "adjustedCopy",
+                    methodType(BufferedImage.class, BufferedImage.class, float.class));
+            APPLY_INTENSITY = lookup.findStatic(intensity, "apply", methodType(void.class,
+                    int[].class, int.class, int[].class, int.class, int.class, int[].class, int.class));
+            SCALED_TABLE = lookup.findStatic(intensity, "scaledTable", methodType(int[].class, float.class));
+            SATURATION_LIMIT = lookup.findStatic(intensity, "saturationLimit", methodType(int.class, float.class));
+            PIXELS = lookup.findStatic(intensity, "pixels", methodType(int[].class, BufferedImage.class));
+
+            NEW_IMAGE_VIEW = generic(lookup.findConstructor(imageView,
+                    methodType(void.class, BufferedImage.class, int.class, int.class)));
+            SET_PREVIEW_FRAME = generic(lookup.findVirtual(imageView, "setPreviewFrame",
+                    methodType(void.class, imageView, int.class, int.class)));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Targets() {
+    }
+
+    /*
+     * Replaces Application Types in a Handle's Type with Object.
+     */
+    private static MethodHandle generic(MethodHandle handle) {
+        MethodType type = handle.type();
+        for (int i = 0; i < type.parameterCount(); i++) {
+            if (!isPlatformType(type.parameterType(i))) {
+                type = type.changeParameterType(i, Object.class);
+            }
+        }
+        if (!isPlatformType(type.returnType())) {
+            type = type.changeReturnType(Object.class);
+        }
+        return handle.asType(type);
+    }
+
+    /*
+     * Checks if a Type Comes from the JDK Rather Than the Application.
+     */
+    private static boolean isPlatformType(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        return type.isPrimitive() || type.getClassLoader() == null;
+    }
+
+    /*
+     * Creates an Image of Smooth Gradients with Noise, Like a Photograph.
+     */
+    static BufferedImage image(int size, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int r = Math.min(255, (x * 255 / size) + random.nextInt(16));
+                int g = Math.min(255, (y * 255 / size) + random.nextInt(16));
+                int b = Math.min(255, ((x + y) * 127 / size) + random.nextInt(16));
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        return image;
+    }
+
+    /*
+     * Creates the Coordinates of a Grid Mesh, Inner Points Jittered Within Their Cells.
+     *
+     * @return      The x-coordinates followed by the y-coordinates
+     */
+    static double[][] grid(int size, int density, double jitter, long seed) {
+        Random random = new Random(seed);
+        int count = (density + 2) * (density + 2);
+        double x[] = new double[count], y[] = new double[count];
+        double cell = (double) size / (density + 1);
+
+        for (int xi = 0; xi < density + 2; xi++) {
+            for (int yi = 0; yi < density + 2; yi++) {
+                int i = xi * (density + 2) + yi;
+                boolean isBorder = xi == 0 || yi == 0 || xi == density + 1 || yi == density + 1;
+                x[i] = Math.min(size, xi * cell) + (isBorder ? 0 : (random.nextDouble() - 0.5) * jitter * cell);
+                y[i] = Math.min(size, yi * cell) + (isBorder ? 0 : (random.nextDouble() - 0.5) * jitter * cell);
+            }
+        }
+        return new double[][] {x, y};
+    }
+}
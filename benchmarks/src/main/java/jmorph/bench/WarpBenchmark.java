@@ -0,0 +1,92 @@
+/*
+ * Author: Sydney Norman
+ * Date: December 7, 2017
+ * Project: Image Morph
+ *
+ * This Program allows a user to specify control points on a starting and ending
+ * image and illustrate the morphing between the two images.
+ *
+ */
+
+package jmorph.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Warping Benchmarks: One Triangle, and Both Warps of a Whole Frame.
+ *
+ * warpTriangle is the per-triangle step the old setWarpFrame performed; renderFrame
+ * is what the old setFrame did for a whole frame, at several mesh densities.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WarpBenchmark {
+
+    @Param({"300", "600", "1200"})
+    public int imageSize;
+
+    @Param({"5", "10", "20"})
+    public int density;
+
+    private int startPixels[], out[], endOut[];
+    private Object sourceTriangle, destinationTriangle;
+    private Object renderer;
+    private int frame = 0;
+
+    @Setup
+    public void setUp() throws Throwable {
+        BufferedImage start = Targets.image(imageSize, 1);
+        BufferedImage end = Targets.image(imageSize, 2);
+        startPixels = (int[]) Targets.PIXELS.invokeExact(start);
+        out = new int[imageSize * imageSize];
+        endOut = new int[imageSize * imageSize];
+
+        double startGrid[][] = Targets.grid(imageSize, density, 0.5, 3);
+        double endGrid[][] = Targets.grid(imageSize, density, 0.5, 4);
+        Object startMesh = (Object) Targets.NEW_MESH.invokeExact(density, density, startGrid[0], startGrid[1]);
+        Object endMesh = (Object) Targets.NEW_MESH.invokeExact(density, density, endGrid[0], endGrid[1]);
+        renderer = (Object) Targets.NEW_RENDERER.invokeExact(start, 1f, startMesh, end, 0.8f, endMesh);
+
+        // A Triangle from the Middle of the Mesh
+        int triangles[] = (int[]) Targets.MESH_TRIANGLES.invokeExact(startMesh);
+        int t = 3 * (triangles.length / 6);
+        sourceTriangle = triangle(startGrid, triangles, t);
+        destinationTriangle = triangle(endGrid, triangles, t);
+    }
+
+    private static Object triangle(double grid[][], int triangles[], int t) throws Throwable {
+        int a = triangles[t], b = triangles[t + 1], c = triangles[t + 2];
+        return (Object) Targets.NEW_TRIANGLE.invokeExact(grid[0][a], grid[1][a], grid[0][b], grid[1][b], grid[0][c], grid[1][c]);
+    }
+
+    @Benchmark
+    public int[] warpTriangle() throws Throwable {
+        Targets.WARP_TRIANGLE.invokeExact(startPixels, imageSize, imageSize, out, imageSize, imageSize,
+                sourceTriangle, destinationTriangle, (int[]) null, 255);
+        return out;
+    }
+
+    @Benchmark
+    public int[] renderFrame() throws Throwable {
+        frame = (frame % 29) + 1;
+        Targets.RENDER_FRAME.invokeExact(renderer, frame, 30, out, endOut);
+        return out;
+    }
+}